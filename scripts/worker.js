@@ -0,0 +1,266 @@
+// Long-lived worker extracting REST calls from JavaScript files, driven by NodeWorkerPool.
+//
+// Each line read from stdin is a JSON request and is answered by one JSON line on stdout:
+//   {"id": 1, "type": "ping"}
+//     -> {"id": 1, "type": "pong"}
+//   {"id": 2, "type": "parse", "files": [{"path": "/web/src/app/data.js", "content": "..."}]}
+//     -> {"id": 2, "type": "result", "files": [{"path": "/web/src/app/data.js", "restCalls": [...]}]}
+// A file that fails to parse is answered with an "error" instead of its rest calls.
+const readline = require("readline");
+const acorn = require("acorn");
+const walk = require("acorn-walk");
+
+const HTTP_VERBS = new Set(["get", "post", "put", "delete", "patch", "head"]);
+const HTTP_OBJECTS = new Set(["$http", "axios", "http", "httpClient", "HttpClient"]);
+const UNKNOWN = "{?}";
+
+function parse(content) {
+    const options = { ecmaVersion: "latest", allowHashBang: true, allowReturnOutsideFunction: true };
+    try {
+        return acorn.parse(content, { ...options, sourceType: "module" });
+    } catch (e) {
+        return acorn.parse(content, { ...options, sourceType: "script" });
+    }
+}
+
+// Name of the object an HTTP verb is called on, $http.get, axios.post or this.http.put
+function httpObjectName(callee) {
+    if (callee.type !== "MemberExpression" || callee.computed || !HTTP_VERBS.has(callee.property.name)) {
+        return null;
+    }
+
+    const object = callee.object;
+    if (object.type === "Identifier" && HTTP_OBJECTS.has(object.name)) {
+        return object.name;
+    }
+    if (object.type === "MemberExpression" && object.object.type === "ThisExpression" && !object.computed
+        && HTTP_OBJECTS.has(object.property.name)) {
+        return "this." + object.property.name;
+    }
+
+    return null;
+}
+
+function propertyValue(objectExpression, name) {
+    for (const property of objectExpression.properties) {
+        if (property.type === "Property" && !property.computed
+            && (property.key.name === name || property.key.value === name)) {
+            return property.value;
+        }
+    }
+
+    return null;
+}
+
+// The HTTP call made by a call expression as {verb, objectName, url node}, null if it is none
+function httpCall(node) {
+    const objectName = httpObjectName(node.callee);
+    if (objectName) {
+        return { verb: node.callee.property.name, objectName, url: node.arguments[0] };
+    }
+
+    // fetch(url, {method: "POST"}) and $http({method: "GET", url: url})
+    if (node.callee.type === "Identifier" && node.callee.name === "fetch") {
+        const options = node.arguments[1];
+        const method = options && options.type === "ObjectExpression" ? propertyValue(options, "method") : null;
+        const verb = method && method.type === "Literal" ? String(method.value).toLowerCase() : "get";
+        return { verb, objectName: "fetch", url: node.arguments[0] };
+    }
+    if (node.callee.type === "Identifier" && HTTP_OBJECTS.has(node.callee.name)
+        && node.arguments.length > 0 && node.arguments[0].type === "ObjectExpression") {
+        const method = propertyValue(node.arguments[0], "method");
+        const verb = method && method.type === "Literal" ? String(method.value).toLowerCase() : "get";
+        return { verb, objectName: node.callee.name, url: propertyValue(node.arguments[0], "url") };
+    }
+
+    return null;
+}
+
+function concatPaths(left, right) {
+    if (left.endsWith("/") && right.startsWith("/")) {
+        return left + right.slice(1);
+    }
+    return left + right;
+}
+
+function resolveUrl(node, values) {
+    if (!node) {
+        return UNKNOWN;
+    }
+
+    switch (node.type) {
+        case "Literal":
+            return typeof node.value === "string" ? node.value : UNKNOWN;
+        case "Identifier":
+            return Object.prototype.hasOwnProperty.call(values, node.name) ? values[node.name] : UNKNOWN;
+        case "BinaryExpression":
+            return node.operator === "+" ? concatPaths(resolveUrl(node.left, values), resolveUrl(node.right, values)) : UNKNOWN;
+        case "TemplateLiteral": {
+            let url = "";
+            node.quasis.forEach((quasi, i) => {
+                url += quasi.value.cooked;
+                if (i < node.expressions.length) {
+                    url += resolveUrl(node.expressions[i], values);
+                }
+            });
+            return url;
+        }
+        default:
+            return UNKNOWN;
+    }
+}
+
+function functionName(node, parent) {
+    if (node.id) {
+        return node.id.name;
+    }
+    if (parent && parent.type === "VariableDeclarator" && parent.id.type === "Identifier") {
+        return parent.id.name;
+    }
+    if (parent && (parent.type === "Property" || parent.type === "MethodDefinition") && !parent.computed) {
+        return parent.key.name || String(parent.key.value);
+    }
+    if (parent && parent.type === "AssignmentExpression" && parent.left.type === "MemberExpression" && !parent.left.computed) {
+        return parent.left.property.name;
+    }
+
+    return null;
+}
+
+function isFunction(node) {
+    return node.type === "FunctionDeclaration" || node.type === "FunctionExpression" || node.type === "ArrowFunctionExpression";
+}
+
+// Name of the innermost named function enclosing the last node of the ancestors
+function enclosingFunction(ancestors) {
+    for (let i = ancestors.length - 2; i >= 0; i--) {
+        if (isFunction(ancestors[i])) {
+            const name = functionName(ancestors[i], ancestors[i - 1]);
+            if (name) {
+                return name;
+            }
+        }
+    }
+
+    return "";
+}
+
+function extractRestCalls(content) {
+    const ast = parse(content);
+    const source = (node) => content.slice(node.start, node.end);
+
+    // String values of variables, assigned once from literals or concatenations
+    const values = {};
+    walk.simple(ast, {
+        VariableDeclarator(node) {
+            if (node.id.type === "Identifier" && node.init) {
+                const value = resolveUrl(node.init, values);
+                if (value !== UNKNOWN) {
+                    values[node.id.name] = value;
+                }
+            }
+        }
+    });
+
+    // Functions passing one of their parameters on as the URL of an HTTP call, such as makeRestCall(url)
+    const wrappers = {};
+    walk.ancestor(ast, {
+        CallExpression(node, ancestors) {
+            const call = httpCall(node);
+            if (!call || !call.url || call.url.type !== "Identifier") {
+                return;
+            }
+            for (let i = ancestors.length - 2; i >= 0; i--) {
+                if (isFunction(ancestors[i])) {
+                    const index = ancestors[i].params.findIndex(param => param.type === "Identifier" && param.name === call.url.name);
+                    const name = functionName(ancestors[i], ancestors[i - 1]);
+                    if (index >= 0 && name) {
+                        wrappers[name] = { index, verb: call.verb, objectName: call.objectName };
+                    }
+                    break;
+                }
+            }
+        }
+    });
+
+    const restCalls = [];
+    walk.ancestor(ast, {
+        CallExpression(node, ancestors) {
+            let call = httpCall(node);
+            let name = call ? call.verb : null;
+
+            // A call through a wrapper takes the URL from the caller's argument
+            if (node.callee.type === "Identifier" && Object.prototype.hasOwnProperty.call(wrappers, node.callee.name)) {
+                const wrapper = wrappers[node.callee.name];
+                call = { verb: wrapper.verb, objectName: wrapper.objectName, url: node.arguments[wrapper.index] };
+                name = node.callee.name;
+            } else if (call && call.url && call.url.type === "Identifier" && enclosingWrapper(ancestors, wrappers)) {
+                // The HTTP call inside a wrapper is reported at each call of the wrapper
+                return;
+            }
+
+            if (!call) {
+                return;
+            }
+            restCalls.push({
+                name,
+                objectName: call.objectName,
+                objectType: call.objectName,
+                calledFrom: enclosingFunction(ancestors),
+                parameterContents: node.arguments.map(source).join(", "),
+                url: resolveUrl(call.url, values),
+                httpMethod: call.verb.toUpperCase()
+            });
+        }
+    });
+
+    return restCalls;
+}
+
+function enclosingWrapper(ancestors, wrappers) {
+    for (let i = ancestors.length - 2; i >= 0; i--) {
+        if (isFunction(ancestors[i])) {
+            const name = functionName(ancestors[i], ancestors[i - 1]);
+            return name !== null && Object.prototype.hasOwnProperty.call(wrappers, name);
+        }
+    }
+
+    return false;
+}
+
+function handle(request) {
+    switch (request.type) {
+        case "ping":
+            return { id: request.id, type: "pong" };
+        case "parse":
+            return {
+                id: request.id,
+                type: "result",
+                files: request.files.map(file => {
+                    try {
+                        return { path: file.path, restCalls: extractRestCalls(file.content) };
+                    } catch (e) {
+                        return { path: file.path, error: String(e.message || e) };
+                    }
+                })
+            };
+        default:
+            return { id: request.id, type: "error", error: "Unknown request type " + request.type };
+    }
+}
+
+const lines = readline.createInterface({ input: process.stdin, terminal: false });
+lines.on("line", line => {
+    if (!line.trim()) {
+        return;
+    }
+
+    let response;
+    try {
+        response = handle(JSON.parse(line));
+    } catch (e) {
+        response = { id: null, type: "error", error: String(e.message || e) };
+    }
+    process.stdout.write(JSON.stringify(response) + "\n");
+});
+lines.on("close", () => process.exit(0));
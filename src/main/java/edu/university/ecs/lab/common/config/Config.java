@@ -1,9 +1,12 @@
 package edu.university.ecs.lab.common.config;
 
+import com.google.gson.annotations.SerializedName;
 import edu.university.ecs.lab.common.error.Error;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -18,6 +21,7 @@ import static edu.university.ecs.lab.common.error.Error.NULL_ERROR;
 public class Config {
     private static final String GIT_SCHEME_DOMAIN = "https://github.com/";
     private static final String GIT_PATH_EXTENSION = ".git";
+    private static final List<String> DEFAULT_PRUNE_DIRECTORIES = List.of(".git", "target", "node_modules", "build");
 
     /**
      * The name of the system analyzed
@@ -32,8 +36,139 @@ public class Config {
     /**
      * Initial starting commit for repository
      */
+    @SerializedName(value = "baseBranch", alternate = "branch")
     private final String branch;
 
+    /**
+     * Optional number of worker threads used during IR extraction, a value
+     * of 1 or less extracts serially
+     */
+    private Integer extractionThreads;
+
+    /**
+     * Optional directory of the persistent parse cache, caching is disabled if not set
+     */
+    private String parseCacheDirectory;
+
+    /**
+     * Optional maximum size of the parse cache in megabytes
+     */
+    private Integer parseCacheMegabytes;
+
+    /**
+     * Optional names of directories not descended into when discovering microservices
+     */
+    private List<String> pruneDirectories;
+
+    /**
+     * Optional flag to extract files straight from the git object database without
+     * checking out the commit
+     */
+    @Getter(AccessLevel.NONE)
+    private Boolean readFromObjectDatabase;
+
+    /**
+     * Optional flag to materialize only the files extraction reads, the valid files below
+     * directories holding a build file, instead of checking out the whole working tree
+     */
+    @Getter(AccessLevel.NONE)
+    private Boolean sparseCheckout;
+
+    /**
+     * Optional depth of a shallow clone in commits from the tip of each cloned branch,
+     * the full history is cloned if not set
+     */
+    private Integer cloneDepth;
+
+    /**
+     * Optional flag to clone only the base branch instead of every branch
+     */
+    @Getter(AccessLevel.NONE)
+    private Boolean singleBranch;
+
+    /**
+     * Optional directory of bare mirrors of the cloned repositories, a mirror is fetched
+     * once per clone and shared by every configuration of the same repository URL
+     */
+    private String mirrorDirectory;
+
+    /**
+     * Optional number of isolated checkouts of the repository leased to delta extractions, so
+     * the deltas of different commit pairs can be extracted at once, the shared working tree
+     * is reset for each delta if not set
+     */
+    private Integer worktrees;
+
+    /**
+     * Optional minimum similarity in percent of a deleted and an added file for the pair to be
+     * detected as a rename, renames are not detected if not set
+     */
+    private Integer renameSimilarity;
+
+    /**
+     * Optional number of Node.js workers extracting the REST calls of JavaScript files in the
+     * microservices, JavaScript files are not extracted if not set
+     */
+    private Integer javaScriptWorkers;
+
+    /**
+     * Optional local Maven repository, such as ~/.m2/repository, used to resolve library types
+     * from the jars of each microservice's dependencies, library types are not resolved if not set
+     */
+    private String mavenRepository;
+
+    /**
+     * Optional time budget in seconds for parsing a single Java file, files exceeding it are
+     * quarantined and parsed without type resolution, no budget is enforced if not set
+     */
+    private Integer fileTimeBudgetSeconds;
+
+    /**
+     * Optional file the quarantined files are persisted to, the quarantine is only kept
+     * for the run if not set
+     */
+    private String quarantineFile;
+
+    /**
+     * Optional flag to write the timings of IR extraction to a sidecar file next to the IR
+     */
+    @Getter(AccessLevel.NONE)
+    private Boolean extractionMetrics;
+
+    /**
+     * Optional number of slowest files listed in the extraction timings
+     */
+    private Integer slowFileCount;
+
+    /**
+     * Optional glob patterns of microservice directories relative to the repository root,
+     * such as services/*, only matching microservices are extracted, all are if not set
+     */
+    private List<String> includePaths;
+
+    /**
+     * Optional glob patterns of microservice directories relative to the repository root
+     * that are not extracted, exclusions take precedence over inclusions
+     */
+    private List<String> excludePaths;
+
+    /**
+     * Optional commit the history analysis starts at, the first commit of the history
+     * changing a valid file if not set
+     */
+    private String fromCommit;
+
+    /**
+     * Optional commit the history analysis ends at, the HEAD of the repository if not set
+     */
+    private String toCommit;
+
+    /**
+     * Optional flag to follow only the first parent of merge commits in the history analysis
+     */
+    @Getter(AccessLevel.NONE)
+    private Boolean firstParent;
+
 
     public Config(String systemName, String repositoryURL, String branch) throws Exception {
         validateConfig(systemName, repositoryURL, branch);
@@ -85,4 +220,148 @@ public class Config {
         return repositoryURL.substring(lastSlashIndex + 1, lastDotIndex);
     }
 
+    /**
+     * This method gets the number of worker threads to use for IR extraction
+     *
+     * @return the configured number of threads or 1 if not configured
+     */
+    public int getExtractionThreads() {
+        return Objects.isNull(extractionThreads) || extractionThreads < 1 ? 1 : extractionThreads;
+    }
+
+    /**
+     * This method gets the maximum size of the parse cache
+     *
+     * @return the configured size in megabytes or 512 if not configured
+     */
+    public int getParseCacheMegabytes() {
+        return Objects.isNull(parseCacheMegabytes) || parseCacheMegabytes < 1 ? 512 : parseCacheMegabytes;
+    }
+
+    /**
+     * This method gets the names of directories skipped during microservice discovery
+     *
+     * @return the configured directory names or .git, target, node_modules and build if not configured
+     */
+    public List<String> getPruneDirectories() {
+        return Objects.isNull(pruneDirectories) ? DEFAULT_PRUNE_DIRECTORIES : pruneDirectories;
+    }
+
+    /**
+     * This method gets whether files are read from the git object database
+     *
+     * @return true if configured, false otherwise
+     */
+    public boolean isReadFromObjectDatabase() {
+        return Boolean.TRUE.equals(readFromObjectDatabase);
+    }
+
+    /**
+     * This method gets whether only the files read by extraction are checked out
+     *
+     * @return true if configured, false otherwise
+     */
+    public boolean isSparseCheckout() {
+        return Boolean.TRUE.equals(sparseCheckout);
+    }
+
+    /**
+     * This method gets the depth of a shallow clone
+     *
+     * @return the configured depth or 0 if the full history is cloned
+     */
+    public int getCloneDepth() {
+        return Objects.isNull(cloneDepth) ? 0 : Math.max(cloneDepth, 0);
+    }
+
+    /**
+     * This method gets whether only the base branch is cloned
+     *
+     * @return true if configured, false otherwise
+     */
+    public boolean isSingleBranch() {
+        return Boolean.TRUE.equals(singleBranch);
+    }
+
+    /**
+     * This method gets the number of isolated checkouts leased to delta extractions
+     *
+     * @return the configured number of checkouts or 0 if the shared working tree is used
+     */
+    public int getWorktrees() {
+        return Objects.isNull(worktrees) ? 0 : Math.max(worktrees, 0);
+    }
+
+    /**
+     * This method gets the minimum similarity of a rename
+     *
+     * @return the configured similarity between 0 and 100 or 0 if renames are not detected
+     */
+    public int getRenameSimilarity() {
+        return Objects.isNull(renameSimilarity) ? 0 : Math.min(Math.max(renameSimilarity, 0), 100);
+    }
+
+    /**
+     * This method gets the number of Node.js workers extracting JavaScript files
+     *
+     * @return the configured number of workers or 0 if JavaScript files are not extracted
+     */
+    public int getJavaScriptWorkers() {
+        return Objects.isNull(javaScriptWorkers) ? 0 : Math.max(javaScriptWorkers, 0);
+    }
+
+    /**
+     * This method gets the time budget for parsing a single Java file
+     *
+     * @return the configured budget in seconds or 0 if no budget is enforced
+     */
+    public int getFileTimeBudgetSeconds() {
+        return Objects.isNull(fileTimeBudgetSeconds) || fileTimeBudgetSeconds < 0 ? 0 : fileTimeBudgetSeconds;
+    }
+
+    /**
+     * This method gets whether extraction timings are written next to the IR
+     *
+     * @return true if configured, false otherwise
+     */
+    public boolean isExtractionMetrics() {
+        return Boolean.TRUE.equals(extractionMetrics);
+    }
+
+    /**
+     * This method gets the number of slowest files listed in the extraction timings
+     *
+     * @return the configured number of files or 20 if not configured
+     */
+    public int getSlowFileCount() {
+        return Objects.isNull(slowFileCount) ? 20 : Math.max(slowFileCount, 0);
+    }
+
+    /**
+     * This method gets the glob patterns of the microservice directories to extract
+     *
+     * @return the configured patterns or an empty list if all microservices are extracted
+     */
+    public List<String> getIncludePaths() {
+        return Objects.isNull(includePaths) ? List.of() : includePaths;
+    }
+
+    /**
+     * This method gets the glob patterns of the microservice directories not to extract
+     *
+     * @return the configured patterns or an empty list if none are excluded
+     */
+    public List<String> getExcludePaths() {
+        return Objects.isNull(excludePaths) ? List.of() : excludePaths;
+    }
+
+    /**
+     * This method gets whether the history analysis follows only first parents
+     *
+     * @return true if configured, false otherwise
+     */
+    public boolean isFirstParent() {
+        return Boolean.TRUE.equals(firstParent);
+    }
+
 }
@@ -4,33 +4,86 @@ import edu.university.ecs.lab.common.config.Config;
 import edu.university.ecs.lab.common.config.ConfigUtil;
 import edu.university.ecs.lab.common.error.Error;
 import edu.university.ecs.lab.common.utils.FileUtils;
+import edu.university.ecs.lab.common.utils.JavaTokenizer;
+import org.eclipse.jgit.api.CloneCommand;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.CanceledException;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.InvalidRemoteException;
 import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.diff.DiffConfig;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
-import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
- * Service to perform Git opperations
+ * Service to perform Git opperations, closing it releases the blob readers of the threads
+ * that read from the object database
  */
-public class GitService {
-    private static final int EXIT_SUCCESS = 0;
+public class GitService implements AutoCloseable {
     private static final String HEAD_COMMIT = "HEAD";
+    private static final String SPARSE_MANIFEST = "cimet-sparse";
+    private static final Set<String> BUILD_FILES = Set.of("pom.xml", "build.gradle");
+    private static final String WORKTREES_SUFFIX = "-worktrees";
+    private static final String WORKTREE_MANIFESTS = "cimet-worktrees";
+    private static final ObjectId EMPTY_SEMANTIC_HASH = JavaTokenizer.semanticHash(new byte[0]);
+
+    /**
+     * Tree filter selecting the valid files, directories are always entered
+     */
+    private static final TreeFilter VALID_FILES_FILTER = new TreeFilter() {
+        @Override
+        public boolean include(TreeWalk walker) {
+            return walker.isSubtree() || FileUtils.isValidFile(walker.getPathString());
+        }
+
+        @Override
+        public boolean shouldBeRecursive() {
+            return true;
+        }
+
+        @Override
+        public TreeFilter clone() {
+            return this;
+        }
+    };
+
+    /**
+     * Pools of leased checkouts by repository name
+     */
+    private static final Map<String, WorktreePool> WORKTREE_POOLS = new ConcurrentHashMap<>();
 
     private final Config config;
     private final Repository repository;
 
+    /**
+     * Reader of blobs for each thread, an object reader keeps its inflater and pack windows
+     * between reads but must not be shared between threads
+     */
+    private final Map<Thread, ObjectReader> blobReaders = new ConcurrentHashMap<>();
+
     /**
      * Create a Git service object from a project configuration file
      * 
@@ -41,10 +94,15 @@ public class GitService {
         FileUtils.makeDirs();
         cloneRemote();
         this.repository = initRepository();
+
+        // A sparse clone has no working tree until a commit is materialized
+        if (config.isSparseCheckout() && !Files.exists(getSparseManifest())) {
+            resetLocal(getHeadCommit());
+        }
     }
 
     /**
-     * Method to clone a repository
+     * Method to clone a repository, a partially cloned directory is removed on failure
      */
     public void cloneRemote() {
         String repositoryPath = FileUtils.getRepositoryPath(config.getRepoName());
@@ -54,18 +112,8 @@ public class GitService {
             return;
         }
 
-        // Create and execute operating system process to clone repository
         try {
-            ProcessBuilder processBuilder =
-                    new ProcessBuilder("git", "clone", config.getRepositoryURL(), repositoryPath);
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-            int exitCode = process.waitFor();
-
-            if (exitCode != EXIT_SUCCESS) {
-                throw new Exception();
-            }
-
+            cloneRepository(config, new File(repositoryPath));
         } catch (Exception e) {
             Error.reportAndExit(Error.GIT_FAILED, Optional.of(e));
         }
@@ -74,7 +122,92 @@ public class GitService {
     }
 
     /**
-     * Method to reset repository to a given commit
+     * Method to clone the repository of a configuration in process. The clone is shallow if a depth
+     * is configured and holds only the base branch if configured. With a mirror directory configured
+     * the repository is first mirrored or its mirror fetched, and the clone is made from the mirror.
+     * Any URI JGit supports is accepted, including file:// URIs and paths of local repositories.
+     *
+     * @param config the configuration of the repository
+     * @param directory the directory to clone into, removed again if the clone fails
+     * @throws GitAPIException if the repository or its mirror cannot be cloned or fetched
+     * @throws IOException if a repository cannot be read or the directory cannot be removed
+     */
+    public static void cloneRepository(Config config, File directory) throws GitAPIException, IOException {
+        String uri = Objects.isNull(config.getMirrorDirectory()) ? config.getRepositoryURL() : updateMirror(config).toURI().toString();
+
+        // The working tree is materialized sparsely from the object database
+        CloneCommand cloneCommand = Git.cloneRepository()
+                .setURI(uri)
+                .setDirectory(directory)
+                .setNoCheckout(config.isSparseCheckout());
+
+        if (config.isSingleBranch()) {
+            String branch = Objects.isNull(config.getBranch()) ? getDefaultBranch(uri) : Constants.R_HEADS + config.getBranch();
+            cloneCommand.setBranch(branch).setBranchesToClone(List.of(branch));
+        }
+        if (config.getCloneDepth() > 0) {
+            cloneCommand.setDepth(config.getCloneDepth());
+        }
+
+        try (Git git = cloneCommand.call()) {
+            LoggerManager.debug(() -> "Cloned " + uri + " into " + directory);
+        } catch (GitAPIException | RuntimeException e) {
+            org.eclipse.jgit.util.FileUtils.delete(directory, org.eclipse.jgit.util.FileUtils.RECURSIVE | org.eclipse.jgit.util.FileUtils.SKIP_MISSING);
+            throw e;
+        }
+    }
+
+    /**
+     * Method to mirror the repository of a configuration into the mirror directory, or fetch
+     * the mirror if it exists
+     *
+     * @param config the configuration of the repository
+     * @return the directory of the bare mirror
+     * @throws GitAPIException if the repository cannot be mirrored or fetched
+     * @throws IOException if the mirror cannot be opened
+     */
+    private static File updateMirror(Config config) throws GitAPIException, IOException {
+        // Mirrors are named by repository and URL so forks of the same name do not collide
+        String url = config.getRepositoryURL();
+        File mirror = new File(config.getMirrorDirectory(), config.getRepoName() + "-" + ObjectId.fromRaw(Constants.newMessageDigest()
+                .digest(url.getBytes(StandardCharsets.UTF_8))).abbreviate(8).name() + Constants.DOT_GIT_EXT);
+
+        if (new File(mirror, Constants.HEAD).exists()) {
+            try (Git git = Git.open(mirror)) {
+                git.fetch().setRemoveDeletedRefs(true).call();
+            }
+            LoggerManager.info(() -> "Fetched mirror " + mirror);
+        } else {
+            try (Git git = Git.cloneRepository().setURI(url).setDirectory(mirror).setMirror(true).call()) {
+                LoggerManager.info(() -> "Mirrored " + url + " into " + mirror);
+            } catch (GitAPIException | RuntimeException e) {
+                org.eclipse.jgit.util.FileUtils.delete(mirror, org.eclipse.jgit.util.FileUtils.RECURSIVE | org.eclipse.jgit.util.FileUtils.SKIP_MISSING);
+                throw e;
+            }
+        }
+
+        return mirror;
+    }
+
+    /**
+     * Method to get the branch the HEAD of a remote repository points to
+     *
+     * @param uri the URI of the remote repository
+     * @return the full name of the default branch
+     * @throws GitAPIException if the remote cannot be listed
+     */
+    private static String getDefaultBranch(String uri) throws GitAPIException {
+        Ref head = Git.lsRemoteRepository().setRemote(uri).callAsMap().get(Constants.HEAD);
+        if (head == null || !head.isSymbolic()) {
+            throw new InvalidRemoteException("Cannot determine the default branch of " + uri);
+        }
+
+        return head.getTarget().getName();
+    }
+
+    /**
+     * Method to reset repository to a given commit, with sparse checkout configured
+     * only the files read by extraction are materialized
      * 
      * @param commitID commit id to reset to
      */
@@ -85,9 +218,16 @@ public class GitService {
             return;
         }
 
+        if (config.isSparseCheckout()) {
+            materializeSparse(commitID);
+            return;
+        }
+
         // Reset branch to old commit
         try (Git git = new Git(repository)) {
             git.reset().setMode(ResetCommand.ResetType.HARD).setRef(commitID).call();
+            // A full checkout replaces whatever was materialized sparsely
+            Files.deleteIfExists(getSparseManifest());
         } catch (Exception e) {
             Error.reportAndExit(Error.GIT_FAILED, Optional.of(e));
         }
@@ -95,6 +235,324 @@ public class GitService {
         LoggerManager.info(() -> "Set repository " + config.getRepoName() + " to " + commitID);
     }
 
+    /**
+     * Method to set the working tree to the sparse files of a commit. The files written are recorded in
+     * a manifest in the git directory, so moving to another commit only writes the files whose blob
+     * changed and deletes the files that are gone. Without a manifest the working tree is assumed to
+     * hold the full checkout of the index. The current branch and the index are moved to the commit,
+     * so git reports the files left out of the working tree as deleted rather than as changed.
+     *
+     * @param commitID commit id to materialize
+     */
+    private void materializeSparse(String commitID) {
+        Map<String, ObjectId> sparseFiles = getSparseFiles(getTreeFiles(commitID));
+        Path repositoryPath = Paths.get(FileUtils.getRepositoryPath(config.getRepoName()));
+        int changed = 0;
+
+        try (ObjectReader reader = repository.newObjectReader()) {
+            changed = materializeFiles(reader, repositoryPath, sparseFiles, readSparseManifest());
+
+            // Move the current branch like a reset
+            RevCommit commit = repository.parseCommit(repository.resolve(commitID + "^{commit}"));
+            RefUpdate refUpdate = repository.updateRef(HEAD_COMMIT);
+            refUpdate.setNewObjectId(commit);
+            refUpdate.setForceUpdate(true);
+            RefUpdate.Result result = refUpdate.update();
+            if (result == RefUpdate.Result.LOCK_FAILURE || result == RefUpdate.Result.IO_FAILURE || result == RefUpdate.Result.REJECTED) {
+                throw new IOException("Failed to move " + HEAD_COMMIT + " to " + commitID + ": " + result);
+            }
+
+            // The index holds the whole tree of the commit, a full reset later restores the missing files
+            DirCache dirCache = repository.lockDirCache();
+            try {
+                DirCacheBuilder builder = dirCache.builder();
+                builder.addTree(new byte[0], DirCacheEntry.STAGE_0, reader, commit.getTree());
+                builder.commit();
+            } finally {
+                dirCache.unlock();
+            }
+
+            writeManifest(getSparseManifest(), sparseFiles);
+        } catch (Exception e) {
+            Error.reportAndExit(Error.GIT_FAILED, Optional.of(e));
+        }
+
+        int finalChanged = changed;
+        LoggerManager.info(() -> "Set repository " + config.getRepoName() + " to " + commitID + " sparsely, "
+                + sparseFiles.size() + " files materialized, " + finalChanged + " written or deleted");
+    }
+
+    /**
+     * Method to write the files of a tree below a directory, given the files the directory already
+     * holds. Only the files whose blob changed are written and only the files that are gone are deleted.
+     *
+     * @param reader reader to load the blobs with
+     * @param root the directory to write the files below
+     * @param files map of file path to blob id to materialize
+     * @param materialized map of file path to blob id of the files already in the directory
+     * @return the number of files written or deleted
+     * @throws IOException if a blob cannot be read or a file cannot be written
+     */
+    private static int materializeFiles(ObjectReader reader, Path root, Map<String, ObjectId> files, Map<String, ObjectId> materialized) throws IOException {
+        int changed = 0;
+
+        for (String path : materialized.keySet()) {
+            if (!files.containsKey(path) && Files.deleteIfExists(root.resolve(path))) {
+                changed++;
+            }
+        }
+
+        for (Map.Entry<String, ObjectId> file : files.entrySet()) {
+            Path localPath = root.resolve(file.getKey());
+            if (file.getValue().equals(materialized.get(file.getKey())) && Files.exists(localPath)) {
+                continue;
+            }
+
+            Files.createDirectories(localPath.getParent());
+            try (OutputStream outputStream = Files.newOutputStream(localPath)) {
+                reader.open(file.getValue(), Constants.OBJ_BLOB).copyTo(outputStream);
+            }
+            changed++;
+        }
+
+        return changed;
+    }
+
+    /**
+     * Method to select the files of a tree read by extraction, the valid files below a directory
+     * holding a build file. Microservice roots hold a build file, so no file outside is parsed.
+     *
+     * @param treeFiles map of file path to blob id of a commit
+     * @return map of the selected file paths to blob id, in tree order
+     */
+    public static Map<String, ObjectId> getSparseFiles(Map<String, ObjectId> treeFiles) {
+        Set<String> buildDirectories = new HashSet<>();
+        for (String path : treeFiles.keySet()) {
+            int separator = path.lastIndexOf(FileUtils.GIT_SEPARATOR);
+            if (BUILD_FILES.contains(path.substring(separator + 1))) {
+                buildDirectories.add(separator < 0 ? "" : path.substring(0, separator));
+            }
+        }
+
+        Map<String, ObjectId> sparseFiles = new LinkedHashMap<>();
+        for (Map.Entry<String, ObjectId> file : treeFiles.entrySet()) {
+            if (FileUtils.isValidFile(file.getKey()) && hasBuildAncestor(file.getKey(), buildDirectories)) {
+                sparseFiles.put(file.getKey(), file.getValue());
+            }
+        }
+
+        return sparseFiles;
+    }
+
+    private static boolean hasBuildAncestor(String path, Set<String> buildDirectories) {
+        for (int separator = path.lastIndexOf(FileUtils.GIT_SEPARATOR); separator > 0; separator = path.lastIndexOf(FileUtils.GIT_SEPARATOR, separator - 1)) {
+            if (buildDirectories.contains(path.substring(0, separator))) {
+                return true;
+            }
+        }
+
+        return buildDirectories.contains("");
+    }
+
+    private Path getSparseManifest() {
+        return Paths.get(FileUtils.getRepositoryPath(config.getRepoName()), ".git", SPARSE_MANIFEST);
+    }
+
+    /**
+     * Method to read the files materialized by the last sparse checkout
+     *
+     * @return map of file path to blob id, the valid files of the index if there was no sparse checkout
+     * @throws IOException if the manifest or index cannot be read
+     */
+    private Map<String, ObjectId> readSparseManifest() throws IOException {
+        Map<String, ObjectId> materialized = new HashMap<>();
+        Path manifest = getSparseManifest();
+
+        if (Files.exists(manifest)) {
+            materialized = readManifest(manifest);
+        } else {
+            DirCache dirCache = repository.readDirCache();
+            for (int i = 0; i < dirCache.getEntryCount(); i++) {
+                DirCacheEntry entry = dirCache.getEntry(i);
+                if (FileUtils.isValidFile(entry.getPathString())) {
+                    materialized.put(entry.getPathString(), entry.getObjectId());
+                }
+            }
+        }
+
+        return materialized;
+    }
+
+    private static Map<String, ObjectId> readManifest(Path manifest) throws IOException {
+        Map<String, ObjectId> materialized = new HashMap<>();
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            int separator = line.indexOf(' ');
+            if (separator > 0) {
+                materialized.put(line.substring(separator + 1), ObjectId.fromString(line.substring(0, separator)));
+            }
+        }
+
+        return materialized;
+    }
+
+    private static void writeManifest(Path manifest, Map<String, ObjectId> files) throws IOException {
+        List<String> lines = new ArrayList<>(files.size());
+        files.forEach((path, blobId) -> lines.add(blobId.name() + " " + path));
+        Files.createDirectories(manifest.getParent());
+        Files.write(manifest, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Method to lease an isolated checkout of the repository at a commit. The checkouts are pooled
+     * per repository and shared by every service of the repository in the process, so tasks holding
+     * different leases can read different commits at once. An idle checkout already at the commit is
+     * preferred, then the least recently leased idle checkout, which is moved to the commit writing only
+     * the files that differ, then a new checkout while the pool holds fewer than the configured number
+     * of worktrees. If every checkout is leased the call waits for one to be returned.
+     * <p>
+     * The checkouts are directories next to the repository holding the files of the commit, the sparse
+     * files if sparse checkout is configured, read from the shared object database. The files of each
+     * checkout are recorded in a manifest in the git directory of the repository.
+     *
+     * @param commitID commit id to lease a checkout of
+     * @return the leased checkout, to be closed once the task is done with it
+     */
+    public Worktree leaseWorktree(String commitID) {
+        WorktreePool pool = WORKTREE_POOLS.computeIfAbsent(config.getRepoName(), repoName -> new WorktreePool(
+                Paths.get(FileUtils.getRepositoryPath(repoName) + WORKTREES_SUFFIX),
+                Paths.get(FileUtils.getRepositoryPath(repoName), ".git", WORKTREE_MANIFESTS)));
+        Worktree worktree = null;
+
+        try {
+            String commit = repository.resolve(commitID + "^{commit}").name();
+            worktree = pool.lease(commit, Math.max(config.getWorktrees(), 1));
+
+            if (!commit.equals(worktree.commitID)) {
+                Map<String, ObjectId> treeFiles = getTreeFiles(commit);
+                Map<String, ObjectId> files = config.isSparseCheckout() ? getSparseFiles(treeFiles) : treeFiles;
+                Map<String, ObjectId> materialized = Files.exists(worktree.manifest) ? readManifest(worktree.manifest) : new HashMap<>();
+
+                // Without a manifest the files of an interrupted checkout are unknown, start over
+                if (materialized.isEmpty()) {
+                    org.eclipse.jgit.util.FileUtils.delete(worktree.path.toFile(), org.eclipse.jgit.util.FileUtils.RECURSIVE | org.eclipse.jgit.util.FileUtils.SKIP_MISSING);
+                }
+                Files.deleteIfExists(worktree.manifest);
+                worktree.commitID = null;
+
+                int changed;
+                try (ObjectReader reader = repository.newObjectReader()) {
+                    changed = materializeFiles(reader, worktree.path, files, materialized);
+                }
+                writeManifest(worktree.manifest, files);
+                worktree.commitID = commit;
+
+                Worktree leased = worktree;
+                LoggerManager.info(() -> "Set worktree " + leased.path + " to " + commit + ", "
+                        + files.size() + " files materialized, " + changed + " written or deleted");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Error.reportAndExit(Error.GIT_FAILED, Optional.of(e));
+        } catch (Exception e) {
+            Error.reportAndExit(Error.GIT_FAILED, Optional.of(e));
+        }
+
+        return worktree;
+    }
+
+    /**
+     * An isolated checkout of the repository leased to a single task, closing the lease
+     * returns the checkout to its pool with its files in place for the next lease
+     */
+    public static class Worktree implements AutoCloseable {
+        private final WorktreePool pool;
+        private final Path path;
+        private final Path manifest;
+        private String commitID;
+        private boolean leased;
+        private long lastLeased;
+
+        private Worktree(WorktreePool pool, Path path, Path manifest) {
+            this.pool = pool;
+            this.path = path;
+            this.manifest = manifest;
+        }
+
+        /**
+         * @return the directory of the checkout, holding the files at the root of the repository
+         */
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * @return the commit id the checkout is at
+         */
+        public String getCommitID() {
+            return commitID;
+        }
+
+        /**
+         * Return the checkout to its pool
+         */
+        @Override
+        public void close() {
+            pool.release(this);
+        }
+    }
+
+    /**
+     * The checkouts of a repository and their leases
+     */
+    private static class WorktreePool {
+        private final Path directory;
+        private final Path manifestDirectory;
+        private final List<Worktree> worktrees = new ArrayList<>();
+        private long leases;
+
+        private WorktreePool(Path directory, Path manifestDirectory) {
+            this.directory = directory;
+            this.manifestDirectory = manifestDirectory;
+        }
+
+        private synchronized Worktree lease(String commitID, int size) throws InterruptedException {
+            while (true) {
+                Worktree selected = null;
+                for (Worktree worktree : worktrees) {
+                    if (worktree.leased) {
+                        continue;
+                    }
+                    if (commitID.equals(worktree.commitID)) {
+                        selected = worktree;
+                        break;
+                    }
+                    if (selected == null || worktree.lastLeased < selected.lastLeased) {
+                        selected = worktree;
+                    }
+                }
+
+                if (selected == null && worktrees.size() < size) {
+                    String name = String.valueOf(worktrees.size());
+                    selected = new Worktree(this, directory.resolve(name), manifestDirectory.resolve(name));
+                    worktrees.add(selected);
+                }
+
+                if (selected != null) {
+                    selected.leased = true;
+                    selected.lastLeased = ++leases;
+                    return selected;
+                }
+
+                wait();
+            }
+        }
+
+        private synchronized void release(Worktree worktree) {
+            worktree.leased = false;
+            notifyAll();
+        }
+    }
+
     /**
      * Method to check that local directory exists
      */
@@ -126,6 +584,30 @@ public class GitService {
         return repository;
     }
 
+    /**
+     * Method to get every difference between the trees of two commits, including whitespace and
+     * comment only changes, without rename detection
+     *
+     * @param commitOld old commit id
+     * @param commitNew new commit id
+     * @return list of changes from old commit to new commit
+     */
+    public List<DiffEntry> getTreeDifferences(String commitOld, String commitNew) {
+        List<DiffEntry> returnList = null;
+
+        try (RevWalk revWalk = new RevWalk(repository);
+             ObjectReader reader = repository.newObjectReader()) {
+            RevCommit oldCommit = revWalk.parseCommit(repository.resolve(commitOld));
+            RevCommit newCommit = revWalk.parseCommit(repository.resolve(commitNew));
+
+            returnList = scanDifferences(repository, reader, oldCommit.getTree(), newCommit.getTree());
+        } catch (Exception e) {
+            Error.reportAndExit(Error.GIT_FAILED, Optional.of(e));
+        }
+
+        return returnList;
+    }
+
     /**
      * Method to get differences between old and new commits
      * 
@@ -135,122 +617,232 @@ public class GitService {
      */
     public List<DiffEntry> getDifferences(String commitOld, String commitNew) {
         List<DiffEntry> returnList = null;
-        RevCommit oldCommit = null, newCommit = null;
-        RevWalk revWalk = new RevWalk(repository);
 
-        try {
+        try (RevWalk revWalk = new RevWalk(repository)) {
             // Parse the old and new commits
-            oldCommit = revWalk.parseCommit(repository.resolve(commitOld));
-            newCommit = revWalk.parseCommit(repository.resolve(commitNew));
+            RevCommit oldCommit = revWalk.parseCommit(repository.resolve(commitOld));
+            RevCommit newCommit = revWalk.parseCommit(repository.resolve(commitNew));
+
+            returnList = getDifferences(repository, oldCommit.getTree(), newCommit.getTree(), config.getRenameSimilarity());
         } catch (Exception e) {
             Error.reportAndExit(Error.GIT_FAILED, Optional.of(e));
         }
 
-        // Prepare tree parsers for both commits
-        try (ObjectReader reader = repository.newObjectReader()) {
-            CanonicalTreeParser oldTreeParser = new CanonicalTreeParser();
-            CanonicalTreeParser newTreeParser = new CanonicalTreeParser();
+        LoggerManager.debug(() -> "Got differences of repository " + config.getRepoName() + " between " + commitOld + " -> " + commitNew);
 
-            // Use tree objects from the commits
-            oldTreeParser.reset(reader, oldCommit.getTree().getId());
-            newTreeParser.reset(reader, newCommit.getTree().getId());
+        return returnList;
+    }
 
+    /**
+     * Method to get the differences between two trees that change code, without rename detection
+     *
+     * @param repository repository holding the trees
+     * @param oldTree id of the old tree
+     * @param newTree id of the new tree
+     * @return list of changes from the old tree to the new tree, without whitespace and comment only changes
+     * @throws IOException if the trees or blobs cannot be read
+     * @see #getDifferences(Repository, ObjectId, ObjectId, int)
+     */
+    public static List<DiffEntry> getDifferences(Repository repository, ObjectId oldTree, ObjectId newTree) throws IOException {
+        return getDifferences(repository, oldTree, newTree, 0);
+    }
+
+    /**
+     * Method to get the differences between two trees that change code. The blobs of the changed
+     * files are loaded by the ids of the diff entries through a single reader, so the trees are
+     * walked once for the whole diff rather than once per changed file. With a rename similarity
+     * a deleted and an added file at least that similar are paired into a rename.
+     *
+     * @param repository repository holding the trees
+     * @param oldTree id of the old tree
+     * @param newTree id of the new tree
+     * @param renameSimilarity minimum similarity in percent of a rename, 0 to not detect renames
+     * @return list of changes from the old tree to the new tree, without whitespace and comment only changes
+     * @throws IOException if the trees or blobs cannot be read
+     */
+    public static List<DiffEntry> getDifferences(Repository repository, ObjectId oldTree, ObjectId newTree, int renameSimilarity) throws IOException {
+        try (ObjectReader reader = repository.newObjectReader()) {
             // Compute differences between the trees of the two commits
-            try (Git git = new Git(repository)) {
-                List<DiffEntry> rawDiffs = git.diff()
-                        .setOldTree(oldTreeParser)
-                        .setNewTree(newTreeParser)
-                        .call();
-
-                // Filter out diffs that only contain whitespace or comment changes
-                RevCommit finalOldCommit = oldCommit;
-                RevCommit finalNewCommit = newCommit;
-                returnList = rawDiffs.stream()
-                        .filter(diff -> isCodeChange(diff, repository, finalOldCommit, finalNewCommit))
-                        .collect(Collectors.toList());
+            List<DiffEntry> rawDiffs = scanDifferences(repository, reader, oldTree, newTree);
+
+            // Pair deleted and added files into renames, identical blobs are paired without being read
+            if (renameSimilarity > 0) {
+                RenameDetector renameDetector = new RenameDetector(reader, repository.getConfig().get(DiffConfig.KEY));
+                renameDetector.setRenameScore(renameSimilarity);
+                renameDetector.addAll(rawDiffs);
+                try {
+                    rawDiffs = renameDetector.compute(reader, NullProgressMonitor.INSTANCE);
+                } catch (CanceledException e) {
+                    // The null progress monitor is never cancelled
+                    throw new IOException(e);
+                }
             }
-        } catch (Exception e) {
-            Error.reportAndExit(Error.GIT_FAILED, Optional.of(e));
-        }
 
-        LoggerManager.debug(() -> "Got differences of repository " + config.getRepoName() + " between " + commitOld + " -> " + commitNew);
+            // Filter out diffs that only contain whitespace or comment changes
+            List<DiffEntry> returnList = new ArrayList<>(rawDiffs.size());
+            for (DiffEntry diff : rawDiffs) {
+                if (isCodeChange(diff, reader)) {
+                    returnList.add(diff);
+                }
+            }
 
-        return returnList;
+            return returnList;
+        }
+    }
+
+    /**
+     * Method to get every difference between two trees
+     *
+     * @param repository repository holding the trees
+     * @param reader reader to read the trees with
+     * @param oldTree id of the old tree
+     * @param newTree id of the new tree
+     * @return list of changes from the old tree to the new tree
+     * @throws IOException if the trees cannot be read
+     */
+    private static List<DiffEntry> scanDifferences(Repository repository, ObjectReader reader, ObjectId oldTree, ObjectId newTree) throws IOException {
+        try (TreeWalk treeWalk = new TreeWalk(repository, reader)) {
+            treeWalk.addTree(oldTree);
+            treeWalk.addTree(newTree);
+            treeWalk.setRecursive(true);
+            // Subtrees with the same id on both sides are skipped without being read
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            return DiffEntry.scan(treeWalk);
+        }
     }
 
     /**
      * Method to check if a commit difference was a change to the code
      * 
      * @param diff DiffEntry object
-     * @param repository repository to check
-     * @param oldCommit old commit id
-     * @param newCommit new commit id
-     * 
+     * @param reader reader to load the blobs of the difference with
      * @return true if difference was a change to the code, false otherwise
+     * @throws IOException if a blob cannot be read
      */
-    private boolean isCodeChange(DiffEntry diff, Repository repository, RevCommit oldCommit, RevCommit newCommit) {
+    private static boolean isCodeChange(DiffEntry diff, ObjectReader reader) throws IOException {
         if((!diff.getOldPath().endsWith(".java") && !diff.getNewPath().endsWith(".java"))) {
             return true;
         }
 
-        // Read the file contents before and after the changes
-        String oldContent = getContentFromTree(repository, oldCommit.getTree().getId(), diff.getOldPath());
-        String newContent = getContentFromTree(repository, newCommit.getTree().getId(), diff.getNewPath());
-
-        // Remove comments and whitespace from both contents
-        String oldCode = stripCommentsAndWhitespace(oldContent);
-        String newCode = stripCommentsAndWhitespace(newContent);
+        // A renamed or copied file changes its path even if its code is the same
+        if (DiffEntry.ChangeType.RENAME == diff.getChangeType() || DiffEntry.ChangeType.COPY == diff.getChangeType()) {
+            return true;
+        }
 
-        // If the meaningful code is different, return true
-        return !oldCode.equals(newCode);
+        // Compare the significant tokens of the file before and after the changes
+        return !getSemanticHash(reader, diff.getOldId(), diff.getOldMode()).equals(getSemanticHash(reader, diff.getNewId(), diff.getNewMode()));
     }
 
     /**
-     * Get file data from a file tree
+     * Get the semantic hash of one side of a difference, cached by blob id
      * 
-     * @param repository repository to check
-     * @param treeId id of the tree to check
-     * @param filePath file to get data from
-     * @return data from the file, or an empty string if an error occurs or file is not found
+     * @param reader reader to load the blob with if its hash is not cached
+     * @param blobId id of the blob, the zero id for the missing side of an added or deleted file
+     * @param fileMode mode of the file
+     * @return hash of the significant tokens of the file, the hash of no tokens if the side is missing or not a file
+     * @throws IOException if the blob cannot be read
      */
-    private String getContentFromTree(Repository repository, ObjectId treeId, String filePath) {
-        try (ObjectReader reader = repository.newObjectReader();
+    private static ObjectId getSemanticHash(ObjectReader reader, AbbreviatedObjectId blobId, FileMode fileMode) throws IOException {
+        if (!blobId.isComplete() || ObjectId.zeroId().equals(blobId.toObjectId()) || fileMode.getObjectType() != Constants.OBJ_BLOB) {
+            return EMPTY_SEMANTIC_HASH;
+        }
+
+        try {
+            return JavaTokenizer.semanticHash(blobId.toObjectId(), () -> {
+                try {
+                    return reader.open(blobId.toObjectId(), Constants.OBJ_BLOB).getCachedBytes(Integer.MAX_VALUE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Get the files of a commit's tree without checking the commit out
+     *
+     * @param commitID commit id to read the tree of
+     * @return map of file path relative to the repository root to blob id, in tree order
+     */
+    public Map<String, ObjectId> getTreeFiles(String commitID) {
+        Map<String, ObjectId> treeFiles = new LinkedHashMap<>();
+
+        try (RevWalk revWalk = new RevWalk(repository);
              TreeWalk treeWalk = new TreeWalk(repository)) {
+            RevCommit commit = revWalk.parseCommit(repository.resolve(commitID));
 
-            // Add the tree to the tree walker
-            treeWalk.addTree(treeId);
-            treeWalk.setRecursive(true); // We want to search recursively
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setRecursive(true);
 
-            // Walk through the tree to find the file
             while (treeWalk.next()) {
-                String currentPath = treeWalk.getPathString();
-                if (currentPath.equals(filePath)) {
-                    // Ensure we have a blob (file) and not a tree
-                    if (treeWalk.getFileMode(0).getObjectType() == Constants.OBJ_BLOB) {
-                        // Read the file content and return it
-                        byte[] data = reader.open(treeWalk.getObjectId(0)).getBytes();
-                        return new String(data, StandardCharsets.UTF_8);
-                    }
+                // Only regular files, symbolic links and submodules are skipped
+                if (FileMode.REGULAR_FILE.equals(treeWalk.getFileMode(0)) || FileMode.EXECUTABLE_FILE.equals(treeWalk.getFileMode(0))) {
+                    treeFiles.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
                 }
             }
+        } catch (Exception e) {
+            Error.reportAndExit(Error.GIT_FAILED, Optional.of(e));
+        }
+
+        LoggerManager.debug(() -> "Read tree of repository " + config.getRepoName() + " at " + commitID);
 
+        return treeFiles;
+    }
+
+    /**
+     * Read the content of a blob from the object database with the reader of the calling
+     * thread, safe for concurrent use
+     *
+     * @param blobId id of the blob to read
+     * @return the content of the blob
+     */
+    public byte[] readBlob(ObjectId blobId) {
+        try {
+            return getBlobReader().open(blobId, Constants.OBJ_BLOB).getCachedBytes(Integer.MAX_VALUE);
         } catch (Exception e) {
-            // Return an empty string in case of an error
-            return "";
+            Error.reportAndExit(Error.GIT_FAILED, Optional.of(e));
         }
 
-        // If the file is not found, return an empty string
-        return "";
+        return null;
     }
 
     /**
-     * Remove comments and whitespace from file content
-     * 
-     * @param content string of all file content
-     * @return string of file content with whitespace and comments removed
+     * Get the size of a blob without reading its content with the reader of the calling
+     * thread, safe for concurrent use
+     *
+     * @param blobId id of the blob
+     * @return the size of the blob in bytes
      */
-    private String stripCommentsAndWhitespace(String content) {
-        return content.replaceAll("(//.*|/\\*[^*]*\\*+(?:[^/*][^*]*\\*+)*/|\\s+)", "");
+    public long getBlobSize(ObjectId blobId) {
+        try {
+            return getBlobReader().getObjectSize(blobId, Constants.OBJ_BLOB);
+        } catch (Exception e) {
+            Error.reportAndExit(Error.GIT_FAILED, Optional.of(e));
+        }
+
+        return 0;
+    }
+
+    /**
+     * Get the blob reader of the calling thread, opening it on its first read
+     *
+     * @return the object reader of the calling thread
+     */
+    private ObjectReader getBlobReader() {
+        // Only the current thread uses its own reader
+        return blobReaders.computeIfAbsent(Thread.currentThread(), thread -> repository.newObjectReader());
+    }
+
+    /**
+     * Close the blob readers of every thread that read from the object database. It must not be
+     * called while blobs are read, a later read opens a new reader so the service stays usable.
+     */
+    @Override
+    public void close() {
+        blobReaders.values().forEach(ObjectReader::close);
+        blobReaders.clear();
     }
 
     /**
@@ -270,6 +862,107 @@ public class GitService {
         return returnList;
     }
 
+    /**
+     * Method to walk the commits of a range of history from the oldest
+     *
+     * @param fromCommit commit id the range starts after, null to start at the first commit
+     * @param toCommit commit id the range ends at, null for HEAD
+     * @param firstParent whether only the first parent of merge commits is followed
+     * @return walk over the commits, to be closed once iterated
+     * @see #walkCommits(Repository, String, String, boolean)
+     */
+    public RevWalk walkCommits(String fromCommit, String toCommit, boolean firstParent) {
+        RevWalk revWalk = null;
+
+        try {
+            revWalk = walkCommits(repository, fromCommit, toCommit, firstParent);
+        } catch (Exception e) {
+            Error.reportAndExit(Error.GIT_FAILED, Optional.of(e));
+        }
+
+        LoggerManager.debug(() -> "Walking commits of repository " + config.getRepoName() + " in "
+                + Objects.toString(fromCommit, "") + ".." + Objects.toString(toCommit, HEAD_COMMIT));
+
+        return revWalk;
+    }
+
+    /**
+     * Method to walk the commits of a range of history in reverse topological order, parents before
+     * their children. Only the commits changing a valid file are returned, so commits touching no
+     * microservice code never cause a delta. The walk is lazy, commits are parsed as it is iterated,
+     * though the whole range is walked before the first commit is returned to reverse it.
+     *
+     * @param repository repository to walk
+     * @param fromCommit commit id the range starts after, excluded with its ancestors, null to start at the first commit
+     * @param toCommit commit id the range ends at, null for HEAD
+     * @param firstParent whether only the first parent of merge commits is followed
+     * @return walk over the commits, to be closed once iterated
+     * @throws IOException if a commit cannot be resolved or read
+     */
+    public static RevWalk walkCommits(Repository repository, String fromCommit, String toCommit, boolean firstParent) throws IOException {
+        RevWalk revWalk = new RevWalk(repository);
+
+        try {
+            revWalk.setFirstParent(firstParent);
+            revWalk.sort(RevSort.TOPO, true);
+            revWalk.sort(RevSort.REVERSE, true);
+            // Commits are compared to their parents on the valid files only, unchanged subtrees are skipped
+            revWalk.setTreeFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, VALID_FILES_FILTER));
+            revWalk.markStart(revWalk.parseCommit(resolveCommit(repository, Objects.isNull(toCommit) ? HEAD_COMMIT : toCommit)));
+            if (Objects.nonNull(fromCommit)) {
+                revWalk.markUninteresting(revWalk.parseCommit(resolveCommit(repository, fromCommit)));
+            }
+        } catch (IOException | RuntimeException e) {
+            revWalk.close();
+            throw e;
+        }
+
+        return revWalk;
+    }
+
+    /**
+     * Method to resolve a revision, such as an abbreviated id, to the id of its commit
+     *
+     * @param commitID the revision to resolve
+     * @return full commit id
+     */
+    public String resolveCommit(String commitID) {
+        String resolved = null;
+
+        try {
+            resolved = resolveCommit(repository, commitID).name();
+        } catch (Exception e) {
+            Error.reportAndExit(Error.GIT_FAILED, Optional.of(e));
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Method to check if the object database holds a commit
+     *
+     * @param commitID full commit id
+     * @return true if the commit is in the repository, false otherwise
+     */
+    public boolean hasCommit(String commitID) {
+        try {
+            return ObjectId.isId(commitID) && repository.getObjectDatabase().has(ObjectId.fromString(commitID));
+        } catch (Exception e) {
+            Error.reportAndExit(Error.GIT_FAILED, Optional.of(e));
+        }
+
+        return false;
+    }
+
+    private static ObjectId resolveCommit(Repository repository, String commitID) throws IOException {
+        ObjectId commit = repository.resolve(commitID + "^{commit}");
+        if (commit == null) {
+            throw new IOException("Cannot resolve commit " + commitID);
+        }
+
+        return commit;
+    }
+
     /**
      * Get head commit for the repository
      * 
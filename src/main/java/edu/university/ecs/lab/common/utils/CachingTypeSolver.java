@@ -0,0 +1,106 @@
+package edu.university.ecs.lab.common.utils;
+
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Type solver that memoizes the results of a delegate type solver in a bounded
+ * least recently used cache. Unsolved lookups are cached as well since they are
+ * the most expensive to repeat. This class is thread safe.
+ */
+public class CachingTypeSolver implements TypeSolver {
+    /**
+     * The type solver whose results are cached
+     */
+    private final TypeSolver delegate;
+
+    /**
+     * Cache of type name to resolution result in access order
+     */
+    private final Map<String, SymbolReference<ResolvedReferenceTypeDeclaration>> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private TypeSolver parent;
+
+    /**
+     * Create a caching type solver, the delegate's parent is set to this solver
+     * so lookups made internally by the delegate are cached as well
+     *
+     * @param delegate the type solver to cache results of
+     * @param maxEntries the maximum number of resolved types held in the cache
+     */
+    public CachingTypeSolver(TypeSolver delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.delegate.setParent(this);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SymbolReference<ResolvedReferenceTypeDeclaration>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        // Resolution may recurse through many lookups, give up once the file's budget is exceeded
+        ParseBudget.check();
+
+        synchronized (cache) {
+            SymbolReference<ResolvedReferenceTypeDeclaration> cached = cache.get(name);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        // Resolve outside the lock, two threads may resolve the same name but both get a valid result
+        misses.incrementAndGet();
+        SymbolReference<ResolvedReferenceTypeDeclaration> resolved = delegate.tryToSolveType(name);
+
+        synchronized (cache) {
+            cache.put(name, resolved);
+        }
+
+        return resolved;
+    }
+
+    /**
+     * This method empties the cache
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups passed to the delegate
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,135 @@
+package edu.university.ecs.lab.common.utils;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithSimpleName;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the declarations of a parsed source file needed to build a JClass in a single
+ * pre-order traversal of the tree. Declarations of every top level and nested type are
+ * collected in source order, the same order {@link Node#findAll(Class)} returns them in.
+ */
+public class DeclarationCollector {
+    /**
+     * Annotations placed on any class or interface declared in the file
+     */
+    @Getter
+    private final List<AnnotationExpr> classAnnotations = new ArrayList<>();
+
+    /**
+     * Every class or interface declared in the file
+     */
+    @Getter
+    private final List<ClassOrInterfaceDeclaration> types = new ArrayList<>();
+
+    /**
+     * Every method declared in the file
+     */
+    @Getter
+    private final List<MethodDeclaration> methods = new ArrayList<>();
+
+    /**
+     * Every field declared in the file
+     */
+    @Getter
+    private final List<FieldDeclaration> fields = new ArrayList<>();
+
+    /**
+     * Method call expressions by enclosing method declaration, keyed by identity since
+     * equal declarations may appear in different types
+     */
+    private final Map<MethodDeclaration, List<MethodCallExpr>> methodCalls = new IdentityHashMap<>();
+
+    /**
+     * Method declarations enclosing the node currently visited, innermost last
+     */
+    private final Deque<MethodDeclaration> enclosingMethods = new ArrayDeque<>();
+
+    private DeclarationCollector() {
+    }
+
+    /**
+     * This method collects the declarations below the given node
+     *
+     * @param root the node to collect from, usually the compilation unit
+     * @return the collected declarations
+     */
+    public static DeclarationCollector collect(Node root) {
+        DeclarationCollector collector = new DeclarationCollector();
+        collector.visit(root);
+        collector.enclosingMethods.clear();
+        return collector;
+    }
+
+    /**
+     * This method returns the method calls made within a method declaration, including
+     * calls made by methods of local or anonymous classes declared within it
+     *
+     * @param methodDeclaration a method declaration collected from the file
+     * @return the method call expressions in source order
+     */
+    public List<MethodCallExpr> getMethodCalls(MethodDeclaration methodDeclaration) {
+        return methodCalls.getOrDefault(methodDeclaration, Collections.emptyList());
+    }
+
+    /**
+     * This method returns the implemented types of the primary type of the file, which is the
+     * type named after the file or the first type declared if there is none
+     *
+     * @param className the class name of the file
+     * @return the simple names of the implemented types
+     */
+    public Set<String> getImplementedTypes(String className) {
+        if (types.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        ClassOrInterfaceDeclaration primary = types.stream()
+                .filter(type -> type.getNameAsString().equals(className))
+                .findFirst()
+                .orElse(types.get(0));
+
+        return primary.getImplementedTypes().stream().map(NodeWithSimpleName::getNameAsString).collect(Collectors.toSet());
+    }
+
+    private void visit(Node node) {
+        if (node instanceof ClassOrInterfaceDeclaration) {
+            types.add((ClassOrInterfaceDeclaration) node);
+        } else if (node instanceof FieldDeclaration) {
+            fields.add((FieldDeclaration) node);
+        } else if (node instanceof AnnotationExpr) {
+            if (node.getParentNode().filter(ClassOrInterfaceDeclaration.class::isInstance).isPresent()) {
+                classAnnotations.add((AnnotationExpr) node);
+            }
+        } else if (node instanceof MethodCallExpr) {
+            // A call belongs to every enclosing method declaration
+            for (MethodDeclaration methodDeclaration : enclosingMethods) {
+                methodCalls.get(methodDeclaration).add((MethodCallExpr) node);
+            }
+        }
+
+        boolean isMethod = node instanceof MethodDeclaration;
+        if (isMethod) {
+            MethodDeclaration methodDeclaration = (MethodDeclaration) node;
+            methods.add(methodDeclaration);
+            methodCalls.put(methodDeclaration, new ArrayList<>());
+            enclosingMethods.addLast(methodDeclaration);
+        }
+
+        for (Node child : node.getChildNodes()) {
+            visit(child);
+        }
+
+        if (isMethod) {
+            enclosingMethods.removeLast();
+        }
+    }
+}
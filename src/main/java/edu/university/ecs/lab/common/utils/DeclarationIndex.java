@@ -0,0 +1,413 @@
+package edu.university.ecs.lab.common.utils;
+
+import edu.university.ecs.lab.common.services.GitService;
+import edu.university.ecs.lab.common.services.LoggerManager;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Index of the type declarations of a repository at one commit, every top level and nested
+ * type of every Java file by its fully qualified name. The declarations are found by a lexical
+ * pre-pass over the sources, the files are not parsed, so the index is cheap to build and lets
+ * type solvers go straight to the file declaring a type, see {@link GitTreeTypeSolver}.
+ * <p>
+ * An index is immutable. The index of the next commit is derived from the differences between
+ * the two commits, only the changed files are scanned again. The most recently used indexes are
+ * kept by repository and commit, so consecutive extractions of the same repository update the
+ * latest one incrementally and extractions of different commits at once do not evict each other.
+ */
+public class DeclarationIndex {
+    private static final String JAVA_EXTENSION = ".java";
+    private static final String DEV_NULL = "/dev/null";
+
+    /**
+     * Marks a brace that does not open the body of a member type
+     */
+    private static final String NOT_A_TYPE = "";
+
+    /**
+     * Maximum number of indexes kept across all repositories
+     */
+    private static final int MAX_CACHED_INDEXES = 8;
+
+    /**
+     * Recently used indexes by repository name and commit, least recently used first
+     */
+    private static final Map<String, DeclarationIndex> INDEXES = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DeclarationIndex> eldest) {
+            return size() > MAX_CACHED_INDEXES;
+        }
+    };
+
+    /**
+     * Kinds of type declarations
+     */
+    public enum Kind {
+        CLASS,
+        INTERFACE,
+        ENUM,
+        RECORD,
+        ANNOTATION
+    }
+
+    /**
+     * A single type declaration of the index
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Declaration {
+        /**
+         * The fully qualified name of the type, nested types are separated from their outer type by a dot
+         */
+        private final String name;
+
+        private final String packageName;
+
+        /**
+         * Path of the declaring file relative to the repository root
+         */
+        private final String path;
+
+        /**
+         * Blob id of the declaring file
+         */
+        private final ObjectId blobId;
+
+        private final Kind kind;
+
+        /**
+         * Simple names of the interfaces implemented by a class, or extended by an interface
+         */
+        private final List<String> interfaces;
+
+        /**
+         * @return the name of the type relative to its package
+         */
+        public String getTypeName() {
+            return packageName.isEmpty() ? name : name.substring(packageName.length() + 1);
+        }
+    }
+
+    /**
+     * The commit the index was built at
+     */
+    @Getter
+    private final String commitID;
+
+    /**
+     * Declarations by path of the declaring file, in path order
+     */
+    private final SortedMap<String, List<Declaration>> declarationsByPath;
+
+    private final Map<String, List<Declaration>> declarationsByName = new HashMap<>();
+    private final Map<String, List<Declaration>> implementationsByInterface = new HashMap<>();
+
+    private DeclarationIndex(String commitID, SortedMap<String, List<Declaration>> declarationsByPath) {
+        this.commitID = commitID;
+        this.declarationsByPath = declarationsByPath;
+
+        for (List<Declaration> declarations : declarationsByPath.values()) {
+            for (Declaration declaration : declarations) {
+                declarationsByName.computeIfAbsent(declaration.getName(), name -> new ArrayList<>(1)).add(declaration);
+                for (String implemented : declaration.getInterfaces()) {
+                    implementationsByInterface.computeIfAbsent(implemented, name -> new ArrayList<>()).add(declaration);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method builds the index of a commit from all Java files of its tree
+     *
+     * @param commitID the commit of the tree
+     * @param treeFiles the files of the tree by path relative to the repository root
+     * @param blobReader reads the content of a blob
+     * @return the index of the commit
+     */
+    public static DeclarationIndex build(String commitID, Map<String, ObjectId> treeFiles, Function<ObjectId, byte[]> blobReader) {
+        SortedMap<String, List<Declaration>> declarationsByPath = new TreeMap<>();
+        for (Map.Entry<String, ObjectId> treeFile : treeFiles.entrySet()) {
+            if (treeFile.getKey().endsWith(JAVA_EXTENSION)) {
+                declarationsByPath.put(treeFile.getKey(), scan(treeFile.getKey(), treeFile.getValue(), blobReader.apply(treeFile.getValue())));
+            }
+        }
+
+        DeclarationIndex index = new DeclarationIndex(commitID, declarationsByPath);
+        LoggerManager.debug(() -> "Built declaration index of " + index.size() + " types from " + declarationsByPath.size() + " files at " + commitID);
+        return index;
+    }
+
+    /**
+     * This method derives the index of another commit from the differences to it, only
+     * the added and modified Java files are scanned
+     *
+     * @param commitID the commit to derive the index of
+     * @param differences the differences between the commit of this index and the other commit
+     * @param blobReader reads the content of a blob
+     * @return the index of the other commit, this index is left unchanged
+     */
+    public DeclarationIndex update(String commitID, List<DiffEntry> differences, Function<ObjectId, byte[]> blobReader) {
+        SortedMap<String, List<Declaration>> updated = new TreeMap<>(declarationsByPath);
+        for (DiffEntry entry : differences) {
+            if (!DiffEntry.ChangeType.ADD.equals(entry.getChangeType()) && !DiffEntry.ChangeType.COPY.equals(entry.getChangeType())) {
+                updated.remove(entry.getOldPath());
+            }
+
+            String newPath = entry.getNewPath();
+            if (!DEV_NULL.equals(newPath) && newPath.endsWith(JAVA_EXTENSION)) {
+                ObjectId blobId = entry.getNewId().toObjectId();
+                updated.put(newPath, scan(newPath, blobId, blobReader.apply(blobId)));
+            }
+        }
+
+        DeclarationIndex index = new DeclarationIndex(commitID, updated);
+        LoggerManager.debug(() -> "Updated declaration index from " + this.commitID + " to " + commitID + " with " + differences.size() + " changes");
+        return index;
+    }
+
+    /**
+     * This method returns the index of a repository at a commit, updating the most recently
+     * used index of the repository from the differences between the commits if there is one
+     *
+     * @param gitService the git service of the repository
+     * @param repoName the name of the repository
+     * @param commitID the commit to index
+     * @return the index of the commit
+     */
+    public static DeclarationIndex forCommit(GitService gitService, String repoName, String commitID) {
+        return forCommit(gitService, repoName, null, commitID);
+    }
+
+    /**
+     * This method returns the index of a repository at the new commit of a comparison, updating
+     * the index of the old commit if it is kept, or else the most recently used index of the
+     * repository. Indexes are built and updated outside of any lock, so extractions of other
+     * commits are not held up, two extractions of the same commit at once may both build it.
+     *
+     * @param gitService the git service of the repository
+     * @param repoName the name of the repository
+     * @param commitOld the old commit of the comparison, null if there is none
+     * @param commitNew the new commit of the comparison, the commit to index
+     * @return the index of the new commit
+     */
+    public static DeclarationIndex forCommit(GitService gitService, String repoName, String commitOld, String commitNew) {
+        DeclarationIndex base;
+        synchronized (INDEXES) {
+            DeclarationIndex cached = INDEXES.get(key(repoName, commitNew));
+            if (cached != null) {
+                return cached;
+            }
+
+            base = commitOld == null ? null : INDEXES.get(key(repoName, commitOld));
+            if (base == null) {
+                // Iterated least recently used first, the last index of the repository is the most recent
+                for (Map.Entry<String, DeclarationIndex> entry : INDEXES.entrySet()) {
+                    if (entry.getKey().equals(key(repoName, entry.getValue().getCommitID()))) {
+                        base = entry.getValue();
+                    }
+                }
+            }
+        }
+
+        // A repository cloned again under the same name may not hold the commit of the kept index
+        if (base != null && !gitService.hasCommit(base.getCommitID())) {
+            base = null;
+        }
+
+        // Every changed path is updated, including files whose code did not change
+        DeclarationIndex index = base == null
+                ? build(commitNew, gitService.getTreeFiles(commitNew), gitService::readBlob)
+                : base.update(commitNew, gitService.getTreeDifferences(base.getCommitID(), commitNew), gitService::readBlob);
+
+        synchronized (INDEXES) {
+            INDEXES.put(key(repoName, commitNew), index);
+        }
+
+        return index;
+    }
+
+    private static String key(String repoName, String commitID) {
+        return repoName + "@" + commitID;
+    }
+
+    /**
+     * @param name the fully qualified name of a type
+     * @return the declarations of the type, several if more than one module declares it
+     */
+    public List<Declaration> find(String name) {
+        return declarationsByName.getOrDefault(name, Collections.emptyList());
+    }
+
+    /**
+     * @param interfaceName the simple name of an interface
+     * @return the declarations implementing or extending the interface
+     */
+    public List<Declaration> findImplementations(String interfaceName) {
+        return implementationsByInterface.getOrDefault(interfaceName, Collections.emptyList());
+    }
+
+    /**
+     * @return the number of indexed types
+     */
+    public int size() {
+        return declarationsByPath.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * This method finds the member type declarations of a Java file, types declared locally
+     * within a method or initializer are not part of the index
+     *
+     * @param path the path of the file relative to the repository root
+     * @param blobId the blob id of the file
+     * @param content the content of the file
+     * @return the declarations in source order
+     */
+    public static List<Declaration> scan(String path, ObjectId blobId, byte[] content) {
+        List<String> tokens = JavaTokenizer.tokenize(new String(content, StandardCharsets.UTF_8), false);
+        List<Declaration> declarations = new ArrayList<>();
+
+        String packageName = "";
+        // Relative name of the type whose body each open brace starts
+        Deque<String> enclosing = new ArrayDeque<>();
+        String pendingBody = NOT_A_TYPE;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+
+            if (token.equals("{")) {
+                enclosing.push(pendingBody);
+                pendingBody = NOT_A_TYPE;
+            } else if (token.equals("}")) {
+                enclosing.poll();
+            } else if (token.equals("package") && enclosing.isEmpty() && declarations.isEmpty()) {
+                StringBuilder name = new StringBuilder();
+                while (++i < tokens.size() && !tokens.get(i).equals(";")) {
+                    name.append(tokens.get(i));
+                }
+                packageName = name.toString();
+            } else {
+                Kind kind = kindOf(tokens, i);
+                if (kind == null) {
+                    continue;
+                }
+
+                List<String> interfaces = new ArrayList<>();
+                int bodyStart = scanHeader(tokens, i + 2, kind, interfaces);
+
+                // Only types whose enclosing braces are all type bodies are members
+                if (!enclosing.contains(NOT_A_TYPE)) {
+                    String typeName = enclosing.isEmpty() ? tokens.get(i + 1) : enclosing.peek() + "." + tokens.get(i + 1);
+                    String name = packageName.isEmpty() ? typeName : packageName + "." + typeName;
+                    declarations.add(new Declaration(name, packageName, path, blobId, kind, interfaces));
+
+                    if (bodyStart < tokens.size() && tokens.get(bodyStart).equals("{")) {
+                        pendingBody = typeName;
+                    }
+                }
+
+                i = bodyStart - 1;
+            }
+        }
+
+        return declarations;
+    }
+
+    /**
+     * This method recognizes a type declaration keyword followed by the name of the type
+     *
+     * @return the kind of the declaration or null if the token does not start one
+     */
+    private static Kind kindOf(List<String> tokens, int i) {
+        String token = tokens.get(i);
+        String previous = i > 0 ? tokens.get(i - 1) : "";
+        String next = i + 1 < tokens.size() ? tokens.get(i + 1) : "";
+
+        // Class literals such as Order.class
+        if (previous.equals(".") || !isIdentifier(next)) {
+            return null;
+        }
+
+        switch (token) {
+            case "class":
+                return Kind.CLASS;
+            case "interface":
+                return previous.equals("@") ? Kind.ANNOTATION : Kind.INTERFACE;
+            case "enum":
+                return Kind.ENUM;
+            case "record":
+                // Contextual keyword, otherwise an ordinary identifier
+                String afterName = i + 2 < tokens.size() ? tokens.get(i + 2) : "";
+                return afterName.equals("(") || afterName.equals("<") ? Kind.RECORD : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * This method reads the header of a type declaration up to its body, collecting the
+     * simple names of the implemented interfaces
+     *
+     * @return the index of the token opening the body, or ending the header otherwise
+     */
+    private static int scanHeader(List<String> tokens, int start, Kind kind, List<String> interfaces) {
+        String listKeyword = kind == Kind.INTERFACE ? "extends" : "implements";
+        boolean inList = false;
+        int parentheses = 0;
+        int angleBrackets = 0;
+        String last = null;
+
+        int i = start;
+        for (; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+
+            if (parentheses == 0 && angleBrackets == 0 && (token.equals("{") || token.equals(";"))) {
+                break;
+            }
+
+            if (token.equals("(")) {
+                parentheses++;
+            } else if (token.equals(")")) {
+                parentheses--;
+            } else if (parentheses > 0) {
+                continue;
+            } else if (token.equals("<")) {
+                angleBrackets++;
+            } else if (token.equals(">")) {
+                angleBrackets--;
+            } else if (angleBrackets > 0) {
+                continue;
+            } else if (token.equals("extends") || token.equals("implements") || token.equals("permits")) {
+                if (inList && last != null) {
+                    interfaces.add(last);
+                }
+                inList = token.equals(listKeyword);
+                last = null;
+            } else if (token.equals(",")) {
+                if (inList && last != null) {
+                    interfaces.add(last);
+                }
+                last = null;
+            } else if (isIdentifier(token)) {
+                // The last name of a qualified or annotated type is its simple name
+                last = token;
+            }
+        }
+
+        if (inList && last != null) {
+            interfaces.add(last);
+        }
+
+        return i;
+    }
+
+    private static boolean isIdentifier(String token) {
+        return !token.isEmpty() && Character.isJavaIdentifierStart(token.charAt(0));
+    }
+}
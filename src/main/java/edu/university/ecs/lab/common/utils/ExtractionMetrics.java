@@ -0,0 +1,283 @@
+package edu.university.ecs.lab.common.utils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import edu.university.ecs.lab.common.models.serialization.JsonSerializable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collects timings of an extraction run, the wall time of each stage, a latency histogram of
+ * the parsed files and the slowest files with their sizes. Recording is thread safe so the
+ * workers of a parallel extraction share a single instance.
+ * <p>
+ * File parsing and the stages nested within it, symbol resolution and REST template parsing,
+ * are summed over all workers and may exceed the wall time of the run when extracting in parallel.
+ */
+public class ExtractionMetrics implements JsonSerializable {
+    /**
+     * Upper bounds in milliseconds of the file latency histogram buckets, the last bucket is unbounded
+     */
+    private static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+    /**
+     * Stages of an extraction run
+     */
+    public enum Stage {
+        TOTAL,
+        CLONE,
+        ROOT_DISCOVERY,
+        DECLARATION_INDEX,
+        PARSE,
+        SYMBOL_RESOLUTION,
+        REST_TEMPLATE,
+        JAVASCRIPT,
+        WRITE
+    }
+
+    private final Map<Stage, LongAdder> stageNanos = new EnumMap<>(Stage.class);
+    private final Map<Stage, LongAdder> stageCounts = new EnumMap<>(Stage.class);
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+    private final LongAdder files = new LongAdder();
+    private final LongAdder fileNanos = new LongAdder();
+
+    /**
+     * Calling object types inferred lexically and by the symbol solver
+     */
+    private final LongAdder lexicalInferences = new LongAdder();
+    private final LongAdder solverInferences = new LongAdder();
+
+    /**
+     * Counters of the parse scheduler of the run, null if none was used
+     */
+    private volatile JsonObject scheduler;
+
+    /**
+     * Number of slowest files kept
+     */
+    private final int slowFileCount;
+
+    /**
+     * The slowest files recorded so far, fastest first
+     */
+    private final PriorityQueue<FileTiming> slowestFiles = new PriorityQueue<>(Comparator.comparingLong(FileTiming::getNanos));
+
+    /**
+     * Create an empty set of metrics
+     *
+     * @param slowFileCount the number of slowest files to keep
+     */
+    public ExtractionMetrics(int slowFileCount) {
+        this.slowFileCount = slowFileCount;
+        for (Stage stage : Stage.values()) {
+            stageNanos.put(stage, new LongAdder());
+            stageCounts.put(stage, new LongAdder());
+        }
+    }
+
+    /**
+     * This method records time spent in a stage
+     *
+     * @param stage the stage timed
+     * @param nanos the elapsed time in nanoseconds
+     */
+    public void record(Stage stage, long nanos) {
+        stageNanos.get(stage).add(nanos);
+        stageCounts.get(stage).increment();
+    }
+
+    /**
+     * This method runs and times a stage
+     *
+     * @param stage the stage timed
+     * @param supplier the work of the stage
+     * @return the result of the supplier
+     */
+    public <T> T time(Stage stage, Supplier<T> supplier) {
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * This method runs and times a stage
+     *
+     * @param stage the stage timed
+     * @param runnable the work of the stage
+     */
+    public void time(Stage stage, Runnable runnable) {
+        time(stage, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * This method records the time spent parsing a single file
+     *
+     * @param path the git path of the file
+     * @param size the size of the file in bytes
+     * @param nanos the elapsed time in nanoseconds
+     */
+    public void recordFile(String path, long size, long nanos) {
+        files.increment();
+        fileNanos.add(nanos);
+
+        long millis = nanos / 1_000_000;
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MS.length && millis >= BUCKET_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+
+        if (slowFileCount <= 0) {
+            return;
+        }
+
+        synchronized (slowestFiles) {
+            if (slowestFiles.size() < slowFileCount) {
+                slowestFiles.add(new FileTiming(path, size, nanos));
+            } else if (slowestFiles.peek().getNanos() < nanos) {
+                slowestFiles.poll();
+                slowestFiles.add(new FileTiming(path, size, nanos));
+            }
+        }
+    }
+
+    /**
+     * This method records how the type of a calling object was inferred
+     *
+     * @param lexical true if it was inferred from the declarations visible at the call,
+     *                false if the symbol solver was used
+     */
+    public void recordTypeInference(boolean lexical) {
+        (lexical ? lexicalInferences : solverInferences).increment();
+    }
+
+    /**
+     * @return the share of calling object types inferred without the symbol solver, 0 if none were inferred
+     */
+    public double getLexicalHitRate() {
+        long lexical = lexicalInferences.sum();
+        long total = lexical + solverInferences.sum();
+        return total == 0 ? 0 : (double) lexical / total;
+    }
+
+    /**
+     * This method records the counters of the parse scheduler of the run once its tasks are done
+     *
+     * @param parseScheduler the parse scheduler
+     */
+    public void recordScheduler(ParseScheduler parseScheduler) {
+        scheduler = parseScheduler.toJsonObject();
+    }
+
+    /**
+     * @param stage the stage timed
+     * @return the total time spent in the stage in nanoseconds
+     */
+    public long getStageNanos(Stage stage) {
+        return stageNanos.get(stage).sum();
+    }
+
+    /**
+     * @return the number of files recorded
+     */
+    public long getFileCount() {
+        return files.sum();
+    }
+
+    /**
+     * @return the slowest files recorded, slowest first
+     */
+    public List<FileTiming> getSlowestFiles() {
+        List<FileTiming> slowest;
+        synchronized (slowestFiles) {
+            slowest = new ArrayList<>(slowestFiles);
+        }
+        slowest.sort(Comparator.comparingLong(FileTiming::getNanos).reversed());
+        return slowest;
+    }
+
+    /**
+     * This method gets the path of the metrics sidecar of an IR file, next to the IR
+     *
+     * @param irFileName the path of the IR file
+     * @return the path of the sidecar file
+     */
+    public static String sidecarPath(String irFileName) {
+        return (irFileName.endsWith(".json") ? irFileName.substring(0, irFileName.length() - ".json".length()) : irFileName) + ".metrics.json";
+    }
+
+    @Override
+    public JsonObject toJsonObject() {
+        JsonObject jsonObject = new JsonObject();
+
+        JsonObject stages = new JsonObject();
+        for (Stage stage : Stage.values()) {
+            JsonObject stageObject = new JsonObject();
+            stageObject.addProperty("millis", getStageNanos(stage) / 1_000_000);
+            stageObject.addProperty("count", stageCounts.get(stage).sum());
+            stages.add(stage.name(), stageObject);
+        }
+        jsonObject.add("stages", stages);
+
+        JsonObject fileObject = new JsonObject();
+        fileObject.addProperty("count", getFileCount());
+        fileObject.addProperty("millis", fileNanos.sum() / 1_000_000);
+
+        JsonArray histogram = new JsonArray();
+        for (int i = 0; i < buckets.length(); i++) {
+            JsonObject bucket = new JsonObject();
+            bucket.addProperty("minMillis", i == 0 ? 0 : BUCKET_BOUNDS_MS[i - 1]);
+            if (i < BUCKET_BOUNDS_MS.length) {
+                bucket.addProperty("maxMillis", BUCKET_BOUNDS_MS[i]);
+            }
+            bucket.addProperty("count", buckets.get(i));
+            histogram.add(bucket);
+        }
+        fileObject.add("histogram", histogram);
+        jsonObject.add("files", fileObject);
+
+        JsonObject typeInference = new JsonObject();
+        typeInference.addProperty("lexical", lexicalInferences.sum());
+        typeInference.addProperty("solver", solverInferences.sum());
+        typeInference.addProperty("lexicalHitRate", getLexicalHitRate());
+        jsonObject.add("typeInference", typeInference);
+
+        JsonArray slowest = new JsonArray();
+        for (FileTiming fileTiming : getSlowestFiles()) {
+            JsonObject fileTimingObject = new JsonObject();
+            fileTimingObject.addProperty("path", fileTiming.getPath());
+            fileTimingObject.addProperty("size", fileTiming.getSize());
+            fileTimingObject.addProperty("millis", fileTiming.getNanos() / 1_000_000.0);
+            slowest.add(fileTimingObject);
+        }
+        jsonObject.add("slowestFiles", slowest);
+
+        if (scheduler != null) {
+            jsonObject.add("scheduler", scheduler);
+        }
+
+        return jsonObject;
+    }
+
+    /**
+     * Time spent parsing a single file
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class FileTiming {
+        private final String path;
+        private final long size;
+        private final long nanos;
+    }
+}
@@ -3,6 +3,7 @@ package edu.university.ecs.lab.common.utils;
 import edu.university.ecs.lab.common.error.Error;
 import java.io.File;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -140,6 +141,28 @@ public class FileUtils {
         return false;
     }
 
+    /**
+     * This method filters the JavaScript source files whose REST calls are extracted, minified
+     * bundles and files below pruned directories such as node_modules are left out
+     *
+     * @param path the file for checking
+     * @param pruneDirectories the names of directories not descended into
+     * @return boolean true if it is a JavaScript source file
+     */
+    public static boolean isJavaScriptFile(String path, Collection<String> pruneDirectories) {
+        if (!path.endsWith(".js") || path.endsWith(".min.js") || path.contains(".github")) {
+            return false;
+        }
+
+        for (String directory : path.replace(SYS_SEPARATOR, GIT_SEPARATOR).split(GIT_SEPARATOR)) {
+            if (pruneDirectories.contains(directory)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     /**
      * This method filters the static files present in the project,
      * not including Java source file but configuration files only
@@ -0,0 +1,110 @@
+package edu.university.ecs.lab.common.utils;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.javaparser.Navigator;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.ByteArrayInputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Source type solver reading the files of a commit's tree from the git object database
+ * instead of the working tree. Types are looked up in the {@link DeclarationIndex} of the
+ * commit, so the declaring file is parsed directly without probing the directories of the
+ * package. The parsed files are held by the solver, so a solver must only be used by one thread.
+ */
+public class GitTreeTypeSolver implements TypeSolver {
+    /**
+     * Declarations of the commit's tree
+     */
+    private final DeclarationIndex declarationIndex;
+
+    /**
+     * Only declarations below this path prefix are resolved, empty for the whole tree
+     */
+    private final String prefix;
+
+    /**
+     * Reads the content of a blob
+     */
+    private final Function<ObjectId, byte[]> blobReader;
+
+    /**
+     * Parsed files by blob id in access order
+     */
+    private final Map<ObjectId, Optional<CompilationUnit>> parsedFiles;
+
+    private final JavaParser javaParser = new JavaParser(new ParserConfiguration());
+
+    private TypeSolver parent;
+
+    /**
+     * Create a type solver over the declarations of a tree below a source root
+     *
+     * @param declarationIndex the declarations of the tree
+     * @param sourceRoot the source root relative to the repository root, empty for the root itself
+     * @param blobReader reads the content of a blob
+     * @param maxParsedFiles the maximum number of parsed files held in memory
+     */
+    public GitTreeTypeSolver(DeclarationIndex declarationIndex, String sourceRoot, Function<ObjectId, byte[]> blobReader, long maxParsedFiles) {
+        this.declarationIndex = declarationIndex;
+        this.prefix = sourceRoot.isEmpty() ? "" : sourceRoot + FileUtils.GIT_SEPARATOR;
+        this.blobReader = blobReader;
+        this.parsedFiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ObjectId, Optional<CompilationUnit>> eldest) {
+                return size() > maxParsedFiles;
+            }
+        };
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        DeclarationIndex.Declaration found = null;
+        for (DeclarationIndex.Declaration declaration : declarationIndex.find(name)) {
+            if (declaration.getPath().startsWith(prefix)) {
+                if (found != null) {
+                    // Declared by several modules, the type is ambiguous
+                    return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+                }
+                found = declaration;
+            }
+        }
+
+        if (found != null) {
+            Optional<CompilationUnit> compilationUnit = parse(found.getBlobId());
+            if (compilationUnit.isPresent()) {
+                Optional<TypeDeclaration<?>> typeDeclaration = Navigator.findType(compilationUnit.get(), found.getTypeName());
+                if (typeDeclaration.isPresent()) {
+                    return SymbolReference.solved(JavaParserFacade.get(this).getTypeDeclaration(typeDeclaration.get()));
+                }
+            }
+        }
+
+        return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+    }
+
+    private Optional<CompilationUnit> parse(ObjectId blobId) {
+        return parsedFiles.computeIfAbsent(blobId, id -> javaParser.parse(new ByteArrayInputStream(blobReader.apply(id))).getResult());
+    }
+}
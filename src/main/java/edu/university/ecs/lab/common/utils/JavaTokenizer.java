@@ -0,0 +1,139 @@
+package edu.university.ecs.lab.common.utils;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Lexer splitting Java source into its significant tokens, identifiers, literals and single
+ * character symbols, skipping whitespace and comments. Comment markers inside string and
+ * character literals are part of the literal.
+ * <p>
+ * The semantic hash of a file is the hash of its token stream, two versions of a file differing
+ * only in whitespace and comments have the same hash. Hashes are cached by blob id so a blob
+ * compared again, as happens when the differences of every commit pair of a history are computed,
+ * is not read nor lexed again.
+ */
+public class JavaTokenizer {
+    private static final int MAX_CACHED_HASHES = 100_000;
+
+    /**
+     * Semantic hash of each recently hashed blob, least recently used first
+     */
+    private static final Map<ObjectId, ObjectId> HASHES = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ObjectId, ObjectId> eldest) {
+            return size() > MAX_CACHED_HASHES;
+        }
+    });
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private JavaTokenizer() {
+    }
+
+    /**
+     * This method splits Java source into its significant tokens
+     *
+     * @param source the Java source
+     * @param literals whether literals keep their text, if not each is replaced by a placeholder
+     *                 token, a quote for strings and characters and 0 for numbers
+     * @return the tokens in source order
+     */
+    public static List<String> tokenize(String source, boolean literals) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(source, literals, tokens::add);
+        return tokens;
+    }
+
+    /**
+     * This method gets the semantic hash of Java source
+     *
+     * @param content the Java source
+     * @return the hash of the significant tokens
+     */
+    public static ObjectId semanticHash(byte[] content) {
+        MessageDigest digest = Constants.newMessageDigest();
+        tokenize(new String(content, StandardCharsets.UTF_8), true, token -> {
+            digest.update(token.getBytes(StandardCharsets.UTF_8));
+            // Separate the tokens so adjacent tokens cannot be confused with a single one
+            digest.update((byte) 0);
+        });
+
+        return ObjectId.fromRaw(digest.digest());
+    }
+
+    /**
+     * This method gets the semantic hash of a blob, reading the blob only if its hash is not cached
+     *
+     * @param blobId the id of the blob
+     * @param content supplies the content of the blob
+     * @return the hash of the significant tokens of the blob
+     */
+    public static ObjectId semanticHash(ObjectId blobId, Supplier<byte[]> content) {
+        ObjectId hash = HASHES.get(blobId);
+        if (hash == null) {
+            hash = semanticHash(content.get());
+            HASHES.put(blobId.copy(), hash);
+        }
+
+        return hash;
+    }
+
+    private static void tokenize(String source, boolean literals, Consumer<String> tokens) {
+        int length = source.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = source.charAt(i);
+            char next = i + 1 < length ? source.charAt(i + 1) : 0;
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && next == '/') {
+                int end = source.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && next == '*') {
+                int end = source.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (source.startsWith("\"\"\"", i)) {
+                int end = i + 3;
+                while (end < length && !source.startsWith("\"\"\"", end)) {
+                    end += source.charAt(end) == '\\' ? 2 : 1;
+                }
+                tokens.accept(literals ? source.substring(i, Math.min(end + 3, length)) : "\"");
+                i = end + 3;
+            } else if (c == '"' || c == '\'') {
+                int end = i + 1;
+                while (end < length && source.charAt(end) != c && source.charAt(end) != '\n') {
+                    end += source.charAt(end) == '\\' ? 2 : 1;
+                }
+                tokens.accept(literals ? source.substring(i, Math.min(end + 1, length)) : String.valueOf(c));
+                i = end + 1;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = i + 1;
+                while (end < length && Character.isJavaIdentifierPart(source.charAt(end))) {
+                    end++;
+                }
+                tokens.accept(source.substring(i, end));
+                i = end;
+            } else if (Character.isDigit(c)) {
+                int end = i + 1;
+                while (end < length && (Character.isLetterOrDigit(source.charAt(end)) || source.charAt(end) == '_' || source.charAt(end) == '.')) {
+                    end++;
+                }
+                tokens.accept(literals ? source.substring(i, end) : "0");
+                i = end;
+            } else {
+                tokens.accept(String.valueOf(c));
+                i++;
+            }
+        }
+    }
+}
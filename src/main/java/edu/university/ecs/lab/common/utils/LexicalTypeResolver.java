@@ -0,0 +1,223 @@
+package edu.university.ecs.lab.common.utils;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.*;
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.nodeTypes.NodeWithTypeParameters;
+import com.github.javaparser.ast.stmt.*;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.ast.type.TypeParameter;
+
+import java.util.Optional;
+
+/**
+ * Resolves the type of simple method call scopes from the declarations lexically visible at the
+ * call, without the symbol solver. A scope naming a local variable, parameter or field of an
+ * enclosing class, optionally qualified with this, is resolved to the simple name of its declared
+ * type, the same name the symbol solver yields for it.
+ * <p>
+ * Scopes that cannot be answered lexically, such as inherited fields, static type references,
+ * untyped lambda parameters, var declarations or any other expression, are left to the symbol solver.
+ */
+public class LexicalTypeResolver {
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private LexicalTypeResolver() {
+    }
+
+    /**
+     * This method resolves the type of a method call scope from the declarations visible at it
+     *
+     * @param scope the scope of a method call
+     * @return the simple name of the declared type, empty string if the type is not a class or
+     * interface type, or empty if the scope cannot be resolved lexically
+     */
+    public static Optional<String> resolve(Expression scope) {
+        if (scope instanceof NameExpr) {
+            return resolveName(scope, scope.asNameExpr().getNameAsString());
+        }
+
+        if (scope instanceof FieldAccessExpr && scope.asFieldAccessExpr().getScope() instanceof ThisExpr
+                && scope.asFieldAccessExpr().getScope().asThisExpr().getTypeName().isEmpty()) {
+            Optional<TypeDeclaration> enclosingType = scope.findAncestor(TypeDeclaration.class);
+            if (enclosingType.isEmpty()) {
+                return Optional.empty();
+            }
+
+            NodeList<BodyDeclaration<?>> members = ((TypeDeclaration<?>) enclosingType.get()).getMembers();
+            return findField(members, scope.asFieldAccessExpr().getNameAsString()).flatMap(type -> typeName(scope, type));
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * This method finds the innermost declaration of a name visible from a node, walking outwards
+     * through blocks, statements, callables and classes
+     */
+    private static Optional<String> resolveName(Node from, String name) {
+        Node child = from;
+        Optional<Node> parent = from.getParentNode();
+
+        while (parent.isPresent()) {
+            Node node = parent.get();
+            Optional<Type> declared = Optional.empty();
+
+            if (node instanceof BlockStmt) {
+                declared = findLocal(((BlockStmt) node).getStatements(), child, name);
+            } else if (node instanceof SwitchEntry) {
+                declared = findLocal(((SwitchEntry) node).getStatements(), child, name);
+            } else if (node instanceof ForStmt) {
+                declared = findVariable(((ForStmt) node).getInitialization(), name);
+            } else if (node instanceof ForEachStmt) {
+                declared = findVariable(NodeList.nodeList(((ForEachStmt) node).getVariable()), name);
+            } else if (node instanceof TryStmt) {
+                // Resources are not visible in catch and finally blocks
+                TryStmt tryStmt = (TryStmt) node;
+                Node tryChild = child;
+                if (tryChild == tryStmt.getTryBlock() || tryStmt.getResources().stream().anyMatch(resource -> resource == tryChild)) {
+                    declared = findVariable(tryStmt.getResources(), name);
+                }
+            } else if (node instanceof CatchClause) {
+                declared = findParameter(NodeList.nodeList(((CatchClause) node).getParameter()), name);
+            } else if (node instanceof LambdaExpr) {
+                declared = findParameter(((LambdaExpr) node).getParameters(), name);
+            } else if (node instanceof CallableDeclaration) {
+                declared = findParameter(((CallableDeclaration<?>) node).getParameters(), name);
+            } else if (node instanceof TypeDeclaration) {
+                declared = findField(((TypeDeclaration<?>) node).getMembers(), name);
+                if (declared.isEmpty() && hasSupertypes((TypeDeclaration<?>) node)) {
+                    // The name may be a field inherited from a supertype
+                    return Optional.empty();
+                }
+            } else if (node instanceof ObjectCreationExpr && ((ObjectCreationExpr) node).getAnonymousClassBody().isPresent()) {
+                declared = findField(((ObjectCreationExpr) node).getAnonymousClassBody().get(), name);
+                if (declared.isEmpty()) {
+                    return Optional.empty();
+                }
+            }
+
+            if (declared.isPresent()) {
+                return typeName(from, declared.get());
+            }
+
+            child = node;
+            parent = node.getParentNode();
+        }
+
+        return Optional.empty();
+    }
+
+    private static boolean hasSupertypes(TypeDeclaration<?> type) {
+        if (type instanceof ClassOrInterfaceDeclaration) {
+            ClassOrInterfaceDeclaration classDeclaration = (ClassOrInterfaceDeclaration) type;
+            return classDeclaration.getExtendedTypes().isNonEmpty() || classDeclaration.getImplementedTypes().isNonEmpty();
+        }
+        if (type instanceof EnumDeclaration) {
+            return ((EnumDeclaration) type).getImplementedTypes().isNonEmpty();
+        }
+        return false;
+    }
+
+    /**
+     * This method finds a local variable declared in a statement preceding the child statement
+     */
+    private static Optional<Type> findLocal(NodeList<Statement> statements, Node child, String name) {
+        Optional<Type> declared = Optional.empty();
+        for (Statement statement : statements) {
+            if (statement == child) {
+                break;
+            }
+
+            if (statement instanceof ExpressionStmt && ((ExpressionStmt) statement).getExpression() instanceof VariableDeclarationExpr) {
+                Optional<Type> variable = findVariable(NodeList.nodeList(((ExpressionStmt) statement).getExpression()), name);
+                if (variable.isPresent()) {
+                    declared = variable;
+                }
+            }
+        }
+        return declared;
+    }
+
+    private static Optional<Type> findVariable(NodeList<Expression> expressions, String name) {
+        for (Expression expression : expressions) {
+            if (expression instanceof VariableDeclarationExpr) {
+                for (VariableDeclarator variable : expression.asVariableDeclarationExpr().getVariables()) {
+                    if (variable.getNameAsString().equals(name)) {
+                        return Optional.of(variable.getType());
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<Type> findParameter(NodeList<Parameter> parameters, String name) {
+        for (Parameter parameter : parameters) {
+            if (parameter.getNameAsString().equals(name)) {
+                return Optional.of(parameter.getType());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<Type> findField(NodeList<BodyDeclaration<?>> members, String name) {
+        for (BodyDeclaration<?> member : members) {
+            if (member instanceof FieldDeclaration) {
+                for (VariableDeclarator variable : member.asFieldDeclaration().getVariables()) {
+                    if (variable.getNameAsString().equals(name)) {
+                        return Optional.of(variable.getType());
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * This method names a declared type the way the symbol solver result is named, the last
+     * segment of the qualified name for class or interface types and empty for others
+     *
+     * @return the name or empty if only the symbol solver can name the type
+     */
+    private static Optional<String> typeName(Node from, Type type) {
+        if (type.isVarType() || type.isUnknownType()) {
+            return Optional.empty();
+        }
+
+        if (!type.isClassOrInterfaceType()) {
+            // Primitive and array types are not reference types
+            return Optional.of("");
+        }
+
+        ClassOrInterfaceType classType = type.asClassOrInterfaceType();
+        if (classType.getScope().isEmpty() && classType.getNameAsString().equals("var")) {
+            // Parsed as a class type below language level 10
+            return Optional.empty();
+        }
+
+        if (classType.getScope().isEmpty() && isTypeParameter(from, classType.getNameAsString())) {
+            return Optional.of("");
+        }
+
+        return Optional.of(classType.getNameAsString());
+    }
+
+    private static boolean isTypeParameter(Node from, String name) {
+        Optional<Node> node = from.getParentNode();
+        while (node.isPresent()) {
+            if (node.get() instanceof NodeWithTypeParameters) {
+                for (TypeParameter typeParameter : ((NodeWithTypeParameters<?>) node.get()).getTypeParameters()) {
+                    if (typeParameter.getNameAsString().equals(name)) {
+                        return true;
+                    }
+                }
+            }
+            node = node.get().getParentNode();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,500 @@
+package edu.university.ecs.lab.common.utils;
+
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import edu.university.ecs.lab.common.config.Config;
+import edu.university.ecs.lab.common.services.LoggerManager;
+import lombok.Getter;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.stream.Stream;
+
+/**
+ * Read only view of a local Maven repository, such as ~/.m2/repository, resolving the library
+ * types of a module from the jars of its dependencies. Nothing is ever downloaded, dependencies
+ * missing from the local repository are skipped.
+ * <p>
+ * Dependencies are followed transitively through the poms found in the repository. Versions
+ * that are not declared or cannot be interpolated from the pom properties resolve to the
+ * highest version present locally, so no parent or bill of materials resolution is needed.
+ * <p>
+ * Each jar is indexed once and the index of its class names is shared by every module and
+ * thread depending on it. Javassist class pools are not thread safe, so each thread resolves
+ * library types through its own {@link Libraries}, opening a jar type solver for a jar the
+ * first time it looks up one of its classes. Library types are resolved against the other
+ * libraries and the JDK only, never against project sources.
+ */
+public class MavenRepository {
+    /**
+     * Maximum depth of transitive dependencies followed
+     */
+    private static final int MAX_DEPTH = 6;
+
+    private static final Pattern PROPERTY = Pattern.compile("\\$\\{([^}]+)}");
+
+    private static final String CLASS_EXTENSION = ".class";
+
+    /**
+     * Elements of a dependency declaration read, nested elements such as exclusions are ignored
+     */
+    private static final Set<String> DEPENDENCY_ELEMENTS = Set.of("groupId", "artifactId", "version", "scope", "optional");
+
+    /**
+     * Open repositories by directory, one instance is shared per directory
+     */
+    private static final Map<Path, MavenRepository> REPOSITORIES = new ConcurrentHashMap<>();
+
+    /**
+     * The root directory of the repository
+     */
+    @Getter
+    private final Path directory;
+
+    /**
+     * Parsed poms by path, empty if the pom could not be read
+     */
+    private final Map<Path, Optional<Pom>> poms = new HashMap<>();
+
+    /**
+     * Names of the classes of each indexed jar by path, empty if the jar could not be read
+     */
+    private final Map<Path, Optional<Set<String>>> jarIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * The first indexed jar declaring each class, library types are resolved against it
+     */
+    private final Map<String, Path> classJars = new ConcurrentHashMap<>();
+
+    private MavenRepository(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * This method returns the local Maven repository configured in the config, if any
+     *
+     * @param config the configuration object
+     * @return the shared repository or null if library types are not resolved
+     */
+    public static MavenRepository fromConfig(Config config) {
+        if (Objects.isNull(config.getMavenRepository()) || config.getMavenRepository().isBlank()) {
+            return null;
+        }
+
+        String configured = config.getMavenRepository();
+        if (configured.startsWith("~")) {
+            configured = System.getProperty("user.home") + configured.substring(1);
+        }
+
+        Path directory = Path.of(configured).toAbsolutePath().normalize();
+        if (!Files.isDirectory(directory)) {
+            LoggerManager.warn(() -> "Maven repository " + directory + " not found, library types are not resolved");
+            return null;
+        }
+
+        return REPOSITORIES.computeIfAbsent(directory, MavenRepository::new);
+    }
+
+    /**
+     * This method resolves the jars of the dependencies declared by a module pom and
+     * their transitive dependencies, skipping test and system scoped dependencies
+     *
+     * @param pomContent the content of the module pom
+     * @return the paths of the jars found in the local repository
+     */
+    public synchronized List<Path> resolveJars(byte[] pomContent) {
+        Optional<Pom> modulePom = parsePom(new ByteArrayInputStream(pomContent));
+        if (modulePom.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<Path> jars = new LinkedHashSet<>();
+        Set<String> visited = new HashSet<>();
+        Deque<Dependency> queue = new ArrayDeque<>(modulePom.get().dependencies);
+        Map<Dependency, Integer> depths = new HashMap<>();
+        modulePom.get().dependencies.forEach(d -> depths.put(d, 0));
+
+        while (!queue.isEmpty()) {
+            Dependency dependency = queue.poll();
+            int depth = depths.get(dependency);
+            if (!visited.add(dependency.groupId + ":" + dependency.artifactId)) {
+                continue;
+            }
+
+            String version = resolveVersion(dependency);
+            if (version == null) {
+                continue;
+            }
+
+            Path versionDirectory = artifactDirectory(dependency.groupId, dependency.artifactId).resolve(version);
+            Path jar = versionDirectory.resolve(dependency.artifactId + "-" + version + ".jar");
+            if (Files.isRegularFile(jar)) {
+                jars.add(jar);
+            }
+
+            if (depth >= MAX_DEPTH) {
+                continue;
+            }
+
+            Optional<Pom> pom = readPom(versionDirectory.resolve(dependency.artifactId + "-" + version + ".pom"));
+            if (pom.isPresent()) {
+                for (Dependency transitive : pom.get().dependencies) {
+                    if (!transitive.optional && !"provided".equals(transitive.scope)) {
+                        depths.putIfAbsent(transitive, depth + 1);
+                        queue.add(transitive);
+                    }
+                }
+            }
+        }
+
+        return new ArrayList<>(jars);
+    }
+
+    /**
+     * This method opens the library type solvers of a single thread, they must not be used by
+     * any other thread
+     *
+     * @return the library type solvers of the calling thread
+     */
+    public Libraries openLibraries() {
+        return new Libraries();
+    }
+
+    private Optional<Set<String>> indexJar(Path jar) {
+        Set<String> classNames = new HashSet<>();
+        try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                String entryName = entries.nextElement().getName();
+                if (entryName.endsWith(CLASS_EXTENSION)) {
+                    // Named the way the jar type solver names its classes
+                    classNames.add(entryName.substring(0, entryName.length() - CLASS_EXTENSION.length()).replace('/', '.').replace('$', '.'));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LoggerManager.warn(() -> "Failed to index jar " + jar);
+            return Optional.empty();
+        }
+
+        classNames.forEach(className -> classJars.putIfAbsent(className, jar));
+        return Optional.of(classNames);
+    }
+
+    private String resolveVersion(Dependency dependency) {
+        Path artifactDirectory = artifactDirectory(dependency.groupId, dependency.artifactId);
+        if (dependency.version != null && !dependency.version.contains("${") && Files.isDirectory(artifactDirectory.resolve(dependency.version))) {
+            return dependency.version;
+        }
+
+        // Fall back to the highest version present locally
+        try (Stream<Path> versions = Files.list(artifactDirectory)) {
+            return versions.filter(Files::isDirectory)
+                    .map(path -> path.getFileName().toString())
+                    .max(MavenRepository::compareVersions)
+                    .orElse(null);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Path artifactDirectory(String groupId, String artifactId) {
+        Path path = directory;
+        for (String segment : groupId.split("\\.")) {
+            path = path.resolve(segment);
+        }
+        return path.resolve(artifactId);
+    }
+
+    private Optional<Pom> readPom(Path pomFile) {
+        return poms.computeIfAbsent(pomFile, p -> {
+            if (!Files.isRegularFile(p)) {
+                return Optional.empty();
+            }
+            try (InputStream inputStream = Files.newInputStream(p)) {
+                return parsePom(inputStream);
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * This method parses the dependencies of a pom, interpolating versions from its properties
+     *
+     * @param inputStream the pom content
+     * @return the parsed pom or empty if it is not valid XML
+     */
+    private static Optional<Pom> parsePom(InputStream inputStream) {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        Pom pom = new Pom();
+        Map<String, String> properties = new HashMap<>();
+        Deque<String> elements = new ArrayDeque<>();
+        Map<String, String> current = null;
+
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(inputStream);
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        String parent = elements.peek();
+                        elements.push(name);
+
+                        // Only dependencies of the project itself, not of plugins or dependency management
+                        if (name.equals("dependency") && elements.size() == 3 && "dependencies".equals(parent)) {
+                            current = new HashMap<>();
+                        } else if (current != null && elements.size() == 4 && DEPENDENCY_ELEMENTS.contains(name)) {
+                            current.put(name, reader.getElementText().trim());
+                            elements.pop();
+                        } else if ("properties".equals(parent) && elements.size() == 3) {
+                            properties.put(name, reader.getElementText().trim());
+                            elements.pop();
+                        } else if (elements.size() == 2 && (name.equals("version") || name.equals("groupId"))) {
+                            properties.put("project." + name, reader.getElementText().trim());
+                            elements.pop();
+                        } else if (elements.size() == 3 && "parent".equals(parent) && name.equals("version")) {
+                            properties.put("project.parent.version", reader.getElementText().trim());
+                            properties.putIfAbsent("project.version", properties.get("project.parent.version"));
+                            elements.pop();
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (current != null && elements.size() == 3) {
+                            if (current.containsKey("groupId") && current.containsKey("artifactId")) {
+                                pom.dependencies.add(new Dependency(current.get("groupId"), current.get("artifactId"),
+                                        current.get("version"), current.getOrDefault("scope", "compile"),
+                                        Boolean.parseBoolean(current.get("optional"))));
+                            }
+                            current = null;
+                        }
+                        elements.pop();
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            return Optional.empty();
+        }
+
+        List<Dependency> dependencies = new ArrayList<>();
+        for (Dependency dependency : pom.dependencies) {
+            if (dependency.scope.equals("test") || dependency.scope.equals("system") || dependency.scope.equals("import")) {
+                continue;
+            }
+            dependencies.add(new Dependency(interpolate(dependency.groupId, properties), dependency.artifactId,
+                    dependency.version == null ? null : interpolate(dependency.version, properties), dependency.scope, dependency.optional));
+        }
+        pom.dependencies = dependencies;
+
+        return Optional.of(pom);
+    }
+
+    private static String interpolate(String value, Map<String, String> properties) {
+        // Bounded to guard against properties referencing each other
+        for (int i = 0; i < 5 && value.contains("${"); i++) {
+            Matcher matcher = PROPERTY.matcher(value);
+            StringBuilder builder = new StringBuilder();
+            while (matcher.find()) {
+                matcher.appendReplacement(builder, Matcher.quoteReplacement(properties.getOrDefault(matcher.group(1), matcher.group())));
+            }
+            matcher.appendTail(builder);
+            value = builder.toString();
+        }
+        return value;
+    }
+
+    /**
+     * This method compares two version strings segment by segment, numerically where
+     * both segments are numbers
+     *
+     * @param a the first version
+     * @param b the second version
+     * @return a negative, zero or positive value as the first version is lower, equal or higher
+     */
+    static int compareVersions(String a, String b) {
+        String[] as = a.split("[.\\-]");
+        String[] bs = b.split("[.\\-]");
+        for (int i = 0; i < Math.max(as.length, bs.length); i++) {
+            String x = i < as.length ? as[i] : "0";
+            String y = i < bs.length ? bs[i] : "0";
+            int comparison;
+            if (x.matches("\\d+") && y.matches("\\d+")) {
+                comparison = new BigInteger(x).compareTo(new BigInteger(y));
+            } else if (x.matches("\\d+")) {
+                // Releases sort above qualifiers such as SNAPSHOT or RC1
+                comparison = 1;
+            } else if (y.matches("\\d+")) {
+                comparison = -1;
+            } else {
+                comparison = x.compareToIgnoreCase(y);
+            }
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Dependencies declared by a pom
+     */
+    private static class Pom {
+        private List<Dependency> dependencies = new ArrayList<>();
+    }
+
+    /**
+     * A single declared dependency, the version may be null if it is managed elsewhere
+     */
+    private static class Dependency {
+        private final String groupId;
+        private final String artifactId;
+        private final String version;
+        private final String scope;
+        private final boolean optional;
+
+        private Dependency(String groupId, String artifactId, String version, String scope, boolean optional) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.scope = scope;
+            this.optional = optional;
+        }
+    }
+
+    /**
+     * The library type solvers of a single thread. Each holds its own jar type solver of every
+     * jar it looked up a class of, while the jar indexes are shared by the whole repository.
+     */
+    public class Libraries {
+        /**
+         * Jar type solvers opened by this thread by jar path, empty if the jar could not be read
+         */
+        private final Map<Path, Optional<TypeSolver>> jarTypeSolvers = new HashMap<>();
+
+        private final TypeSolver reflectionTypeSolver = new ReflectionTypeSolver();
+
+        /**
+         * Root of the jar type solvers, library types are resolved against every indexed jar
+         */
+        private final TypeSolver root = new LibraryRoot();
+
+        private Libraries() {
+        }
+
+        /**
+         * This method creates a type solver over the given jars
+         *
+         * @param jars the jars to resolve types from
+         * @return the type solver of the jars
+         */
+        public TypeSolver typeSolver(List<Path> jars) {
+            Map<Path, Set<String>> indexes = new LinkedHashMap<>();
+            for (Path jar : jars) {
+                jarIndexes.computeIfAbsent(jar, MavenRepository.this::indexJar).ifPresent(index -> indexes.put(jar, index));
+            }
+
+            return new LibraryTypeSolver(indexes);
+        }
+
+        private SymbolReference<ResolvedReferenceTypeDeclaration> solveFromJar(Path jar, String name) {
+            return jarTypeSolvers.computeIfAbsent(jar, this::openJar)
+                    .map(solver -> solver.tryToSolveType(name))
+                    .orElseGet(() -> SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class));
+        }
+
+        private Optional<TypeSolver> openJar(Path jar) {
+            try {
+                JarTypeSolver jarTypeSolver = new JarTypeSolver(jar);
+                jarTypeSolver.setParent(root);
+                return Optional.of(jarTypeSolver);
+            } catch (IOException | RuntimeException e) {
+                LoggerManager.warn(() -> "Failed to open jar " + jar);
+                return Optional.empty();
+            }
+        }
+
+        /**
+         * Resolves a type from the jar declaring it or else from the JDK
+         */
+        private class LibraryRoot implements TypeSolver {
+            @Override
+            public TypeSolver getParent() {
+                return null;
+            }
+
+            @Override
+            public void setParent(TypeSolver parent) {
+                throw new UnsupportedOperationException("The library root has no parent");
+            }
+
+            @Override
+            public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+                Path jar = classJars.get(name);
+                if (jar != null) {
+                    SymbolReference<ResolvedReferenceTypeDeclaration> reference = solveFromJar(jar, name);
+                    if (reference.isSolved()) {
+                        return reference;
+                    }
+                }
+
+                return reflectionTypeSolver.tryToSolveType(name);
+            }
+        }
+
+        /**
+         * View over a subset of the indexed jars, only the jars declaring a class are asked for it
+         */
+        private class LibraryTypeSolver implements TypeSolver {
+            private final Map<Path, Set<String>> indexes;
+            private TypeSolver parent;
+
+            private LibraryTypeSolver(Map<Path, Set<String>> indexes) {
+                this.indexes = indexes;
+            }
+
+            @Override
+            public TypeSolver getParent() {
+                return parent;
+            }
+
+            @Override
+            public void setParent(TypeSolver parent) {
+                this.parent = parent;
+            }
+
+            @Override
+            public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+                for (Map.Entry<Path, Set<String>> index : indexes.entrySet()) {
+                    if (index.getValue().contains(name)) {
+                        SymbolReference<ResolvedReferenceTypeDeclaration> reference = solveFromJar(index.getKey(), name);
+                        if (reference.isSolved()) {
+                            return reference;
+                        }
+                    }
+                }
+                return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package edu.university.ecs.lab.common.utils;
+
+import edu.university.ecs.lab.common.config.Config;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Selects the microservices to extract by their directory relative to the repository root,
+ * using the include and exclude glob patterns of the configuration. Patterns follow
+ * {@link FileSystem#getPathMatcher(String)} glob syntax, * does not cross directory
+ * boundaries while ** does.
+ */
+public class MicroserviceFilter {
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+
+    private MicroserviceFilter(List<String> includePatterns, List<String> excludePatterns) {
+        this.includes = toMatchers(includePatterns);
+        this.excludes = toMatchers(excludePatterns);
+    }
+
+    /**
+     * This method returns the filter configured in the config
+     *
+     * @param config the configuration object
+     * @return the filter of the configured patterns, accepting every microservice if none are configured
+     */
+    public static MicroserviceFilter fromConfig(Config config) {
+        return new MicroserviceFilter(config.getIncludePaths(), config.getExcludePaths());
+    }
+
+    /**
+     * @param directory the microservice directory relative to the repository root, with or without
+     *                  a leading separator, empty for the root itself
+     * @return true if the microservice is included and not excluded
+     */
+    public boolean accepts(String directory) {
+        Path path = Path.of(directory.startsWith(FileUtils.GIT_SEPARATOR) ? directory.substring(1) : directory);
+        return (includes.isEmpty() || includes.stream().anyMatch(matcher -> matcher.matches(path)))
+                && excludes.stream().noneMatch(matcher -> matcher.matches(path));
+    }
+
+    /**
+     * @return true if every microservice is accepted
+     */
+    public boolean acceptsAll() {
+        return includes.isEmpty() && excludes.isEmpty();
+    }
+
+    private static List<PathMatcher> toMatchers(List<String> patterns) {
+        FileSystem fileSystem = FileSystems.getDefault();
+        return patterns.stream().map(pattern -> fileSystem.getPathMatcher("glob:" + pattern)).collect(Collectors.toList());
+    }
+}
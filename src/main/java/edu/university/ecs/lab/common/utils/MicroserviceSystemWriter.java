@@ -0,0 +1,143 @@
+package edu.university.ecs.lab.common.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import edu.university.ecs.lab.common.error.Error;
+import edu.university.ecs.lab.common.models.ir.Microservice;
+import edu.university.ecs.lab.common.models.ir.MicroserviceSystem;
+import edu.university.ecs.lab.common.models.ir.ProjectFile;
+import edu.university.ecs.lab.common.models.serialization.JsonSerializable;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Optional;
+
+/**
+ * Streams a microservice system to a JSON file one microservice and one file at a time, in the
+ * same schema as {@link MicroserviceSystem#toJsonObject()}. Only the element being written is
+ * held as a JSON tree, so microservices can be written and released as they are extracted.
+ * <p>
+ * Microservices must be written before orphans, the system is complete once the writer is closed.
+ */
+public class MicroserviceSystemWriter implements AutoCloseable {
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+    private final JsonWriter jsonWriter;
+    private boolean orphansWritten = false;
+
+    /**
+     * Number of microservices written so far
+     */
+    @Getter
+    private int microserviceCount = 0;
+
+    /**
+     * Create a writer and write the system header
+     *
+     * @param filePath the file path where the JSON should be saved
+     * @param name the name of the system
+     * @param commitID the commit ID of the system
+     */
+    public MicroserviceSystemWriter(String filePath, String name, String commitID) {
+        JsonWriter writer = null;
+        try {
+            Path path = Paths.get(filePath);
+            Files.createDirectories(path.getParent());
+            writer = gson.newJsonWriter(Files.newBufferedWriter(path));
+
+            writer.beginObject();
+            writer.name("name").value(name);
+            writer.name("commitID").value(commitID);
+            writer.name("microservices").beginArray();
+        } catch (IOException e) {
+            Error.reportAndExit(Error.INVALID_JSON_WRITE, Optional.of(e));
+        }
+
+        this.jsonWriter = writer;
+    }
+
+    /**
+     * This method writes a microservice system to a JSON file at a specified path
+     *
+     * @param filePath the file path where the JSON should be saved
+     * @param microserviceSystem the system to write
+     */
+    public static void write(String filePath, MicroserviceSystem microserviceSystem) {
+        try (MicroserviceSystemWriter writer = new MicroserviceSystemWriter(filePath, microserviceSystem.getName(), microserviceSystem.getCommitID())) {
+            for (Microservice microservice : microserviceSystem.getMicroservices()) {
+                writer.writeMicroservice(microservice);
+            }
+            writer.writeOrphans(microserviceSystem.getOrphans());
+        }
+    }
+
+    /**
+     * This method writes a single microservice of the system
+     *
+     * @param microservice the microservice to write
+     */
+    public void writeMicroservice(Microservice microservice) {
+        if (orphansWritten) {
+            throw new IllegalStateException("Microservices must be written before orphans");
+        }
+
+        try {
+            jsonWriter.beginObject();
+            jsonWriter.name("name").value(microservice.getName());
+            jsonWriter.name("path").value(microservice.getPath());
+            writeArray("controllers", microservice.getControllers());
+            writeArray("entities", microservice.getEntities());
+            writeArray("feignClients", microservice.getFeignClients());
+            writeArray("services", microservice.getServices());
+            writeArray("repositories", microservice.getRepositories());
+            writeArray("files", microservice.getFiles());
+            jsonWriter.endObject();
+            microserviceCount++;
+        } catch (IOException e) {
+            Error.reportAndExit(Error.INVALID_JSON_WRITE, Optional.of(e));
+        }
+    }
+
+    /**
+     * This method writes the orphans of the system, ending the list of microservices
+     *
+     * @param orphans the files without a microservice
+     */
+    public void writeOrphans(Iterable<ProjectFile> orphans) {
+        try {
+            jsonWriter.endArray();
+            writeArray("orphans", orphans);
+            orphansWritten = true;
+        } catch (IOException e) {
+            Error.reportAndExit(Error.INVALID_JSON_WRITE, Optional.of(e));
+        }
+    }
+
+    /**
+     * This method completes the system, writing an empty list of orphans if none were written
+     */
+    @Override
+    public void close() {
+        try {
+            if (!orphansWritten) {
+                writeOrphans(Collections.emptyList());
+            }
+            jsonWriter.endObject();
+            jsonWriter.close();
+        } catch (IOException e) {
+            Error.reportAndExit(Error.INVALID_JSON_WRITE, Optional.of(e));
+        }
+    }
+
+    private void writeArray(String name, Iterable<? extends JsonSerializable> items) throws IOException {
+        jsonWriter.name(name).beginArray();
+        for (JsonSerializable item : items) {
+            gson.toJson(item.toJsonObject(), jsonWriter);
+        }
+        jsonWriter.endArray();
+    }
+}
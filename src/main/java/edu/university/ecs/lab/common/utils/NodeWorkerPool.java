@@ -0,0 +1,321 @@
+package edu.university.ecs.lab.common.utils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import edu.university.ecs.lab.common.error.Error;
+import edu.university.ecs.lab.common.services.LoggerManager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Pool of long-lived Node.js workers extracting the REST calls of JavaScript files. Starting
+ * Node dominates the cost of parsing a single file, so each worker is started once and takes
+ * batches of files as line-delimited JSON requests over its stdin, answering each with one
+ * JSON line on its stdout, see scripts/worker.js for the protocol.
+ * <p>
+ * A worker idle for longer than the health check interval is pinged before it is handed a
+ * batch. A worker that died, timed out or answered garbage is restarted and the batch retried,
+ * a batch failing twice is retried file by file so a single bad file only loses itself.
+ */
+public class NodeWorkerPool implements AutoCloseable {
+    public static final List<String> WORKER_COMMAND = List.of("node", "scripts/worker.js");
+    private static final int BATCH_SIZE = 32;
+    private static final int MAX_ATTEMPTS = 2;
+    private static final long HEALTH_CHECK_MILLIS = 10_000;
+    private static final long POLL_MILLIS = 100;
+
+    private final List<String> command;
+
+    /**
+     * Time to wait for the answer to a request in milliseconds
+     */
+    private final long timeoutMillis;
+
+    private final BlockingQueue<Worker> idleWorkers;
+
+    private final ExecutorService dispatcher;
+
+    private final AtomicLong nextRequestId = new AtomicLong();
+
+    private final AtomicInteger restarts = new AtomicInteger();
+
+    /**
+     * Create a pool of workers running scripts/worker.js
+     *
+     * @param workers the number of Node.js processes
+     */
+    public NodeWorkerPool(int workers) {
+        this(WORKER_COMMAND, workers, 60_000);
+    }
+
+    /**
+     * Create a pool of workers running the given command
+     *
+     * @param command the command starting a worker
+     * @param workers the number of worker processes
+     * @param timeoutMillis the time to wait for the answer to a request in milliseconds
+     */
+    public NodeWorkerPool(List<String> command, int workers, long timeoutMillis) {
+        this.command = command;
+        this.timeoutMillis = timeoutMillis;
+        this.idleWorkers = new ArrayBlockingQueue<>(workers);
+        this.dispatcher = Executors.newFixedThreadPool(workers);
+
+        for (int i = 0; i < workers; i++) {
+            idleWorkers.add(startWorker());
+        }
+
+        LoggerManager.info(() -> "Started " + workers + " Node.js workers");
+    }
+
+    /**
+     * This method extracts the REST calls of JavaScript files, the files are split into batches
+     * handed to the workers concurrently
+     *
+     * @param sources the content of each file by git path
+     * @return the REST call records of each file by git path in the order of the given files,
+     * files that could not be parsed are left out
+     */
+    public Map<String, JsonArray> parse(Map<String, String> sources) {
+        List<Future<JsonArray>> futures = new ArrayList<>();
+        JsonArray batch = new JsonArray();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            JsonObject file = new JsonObject();
+            file.addProperty("path", source.getKey());
+            file.addProperty("content", source.getValue());
+            batch.add(file);
+
+            if (batch.size() == BATCH_SIZE) {
+                JsonArray fullBatch = batch;
+                futures.add(dispatcher.submit(() -> parseBatch(fullBatch)));
+                batch = new JsonArray();
+            }
+        }
+        if (batch.size() > 0) {
+            JsonArray lastBatch = batch;
+            futures.add(dispatcher.submit(() -> parseBatch(lastBatch)));
+        }
+
+        Map<String, JsonArray> restCalls = new LinkedHashMap<>();
+        try {
+            for (Future<JsonArray> future : futures) {
+                for (JsonElement element : future.get()) {
+                    JsonObject file = element.getAsJsonObject();
+                    String path = file.get("path").getAsString();
+                    if (file.has("restCalls")) {
+                        restCalls.put(path, file.getAsJsonArray("restCalls"));
+                    } else {
+                        LoggerManager.warn(() -> "Failed to parse " + path + ": " + (file.has("error") ? file.get("error").getAsString() : "no answer"));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Error.reportAndExit(Error.JSPARSE_FAILED, Optional.of(e));
+        } catch (ExecutionException e) {
+            Error.reportAndExit(Error.JSPARSE_FAILED, Optional.of(e));
+        }
+
+        return restCalls;
+    }
+
+    /**
+     * This method sends a batch of files to an idle worker, retrying on a fresh worker and then
+     * file by file if the batch fails
+     *
+     * @param files the files of the batch
+     * @return the answer of each file, a file that could not be parsed has neither rest calls nor an error
+     */
+    private JsonArray parseBatch(JsonArray files) throws InterruptedException {
+        JsonObject request = new JsonObject();
+        request.addProperty("type", "parse");
+        request.add("files", files);
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            JsonObject response = lease(request);
+            if (response != null && response.has("files")) {
+                return response.getAsJsonArray("files");
+            }
+        }
+
+        JsonArray answers = new JsonArray();
+        for (JsonElement file : files) {
+            if (files.size() > 1) {
+                JsonArray single = new JsonArray();
+                single.add(file);
+                request.add("files", single);
+
+                JsonObject response = lease(request);
+                if (response != null && response.has("files")) {
+                    answers.addAll(response.getAsJsonArray("files"));
+                    continue;
+                }
+            }
+
+            JsonObject failed = new JsonObject();
+            failed.add("path", file.getAsJsonObject().get("path"));
+            answers.add(failed);
+        }
+
+        return answers;
+    }
+
+    /**
+     * This method sends a request to an idle worker, checking the health of the worker first
+     * if it has been idle for long, and restarts the worker if the request fails
+     *
+     * @param request the request to send
+     * @return the answer or null if the request failed
+     */
+    private JsonObject lease(JsonObject request) throws InterruptedException {
+        Worker worker = idleWorkers.take();
+        try {
+            if (!worker.isHealthy()) {
+                worker = restart(worker, "failed its health check");
+            }
+            return worker.request(request);
+        } catch (IOException | TimeoutException | RuntimeException e) {
+            worker = restart(worker, e.getMessage());
+            return null;
+        } finally {
+            idleWorkers.add(worker);
+        }
+    }
+
+    private Worker restart(Worker worker, String reason) {
+        LoggerManager.warn(() -> "Restarting Node.js worker, " + reason);
+        worker.destroy();
+        restarts.incrementAndGet();
+        return startWorker();
+    }
+
+    private Worker startWorker() {
+        try {
+            return new Worker();
+        } catch (IOException e) {
+            Error.reportAndExit(Error.JSPARSE_FAILED, Optional.of(e));
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the number of workers restarted since the pool started
+     */
+    public int getRestarts() {
+        return restarts.get();
+    }
+
+    /**
+     * This method stops the workers, closing their stdin ends them
+     */
+    @Override
+    public void close() {
+        dispatcher.shutdownNow();
+        for (Worker worker : idleWorkers) {
+            worker.destroy();
+        }
+        LoggerManager.debug(() -> "Closed Node.js worker pool, " + getRestarts() + " restarts");
+    }
+
+    /**
+     * A single Node.js process, its stdout is read by a daemon thread into a queue of lines
+     * so answers can be awaited with a timeout
+     */
+    private final class Worker {
+        private final Process process;
+        private final BufferedWriter writer;
+        private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        private long lastUsed = System.currentTimeMillis();
+
+        private Worker() throws IOException {
+            process = new ProcessBuilder(command).start();
+            writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            readLines(process.getInputStream(), lines::add);
+            readLines(process.getErrorStream(), line -> LoggerManager.debug(() -> "Node.js worker: " + line));
+        }
+
+        private void readLines(InputStream inputStream, Consumer<String> consumer) {
+            Thread thread = new Thread(() -> {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        consumer.accept(line);
+                    }
+                } catch (IOException ignored) {
+                    // The worker was destroyed
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private boolean isHealthy() {
+            if (!process.isAlive()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - lastUsed < HEALTH_CHECK_MILLIS) {
+                return true;
+            }
+
+            JsonObject ping = new JsonObject();
+            ping.addProperty("type", "ping");
+            try {
+                return request(ping).has("type");
+            } catch (IOException | TimeoutException | RuntimeException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        /**
+         * Send a request and wait for the answer with the same id, answers to earlier
+         * requests that timed out are skipped
+         */
+        private JsonObject request(JsonObject request) throws IOException, TimeoutException, InterruptedException {
+            long id = nextRequestId.incrementAndGet();
+            request.addProperty("id", id);
+            writer.write(request.toString());
+            writer.newLine();
+            writer.flush();
+
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (System.currentTimeMillis() < deadline) {
+                String line = lines.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (line == null) {
+                    if (!process.isAlive() && lines.isEmpty()) {
+                        throw new IOException("worker exited with code " + process.exitValue());
+                    }
+                    continue;
+                }
+
+                JsonObject response = JsonParser.parseString(line).getAsJsonObject();
+                if (response.has("id") && !response.get("id").isJsonNull() && response.get("id").getAsLong() == id) {
+                    lastUsed = System.currentTimeMillis();
+                    return response;
+                }
+            }
+
+            throw new TimeoutException("no answer within " + timeoutMillis + " ms");
+        }
+
+        private void destroy() {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+                // The worker already exited
+            }
+            process.destroy();
+        }
+    }
+}
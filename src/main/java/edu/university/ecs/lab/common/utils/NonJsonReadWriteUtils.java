@@ -10,6 +10,7 @@ import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.SafeConstructor;
 
 import java.io.*;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -34,11 +35,22 @@ public class NonJsonReadWriteUtils {
      * @return JsonObject YAML file structure as json object
      */
     public static ConfigFile readFromYaml(String path, Config config) {
+        byte[] content = readContent(path);
+        return content == null ? null : readFromYaml(FileUtils.localPathToGitPath(path, config.getRepoName()), content);
+    }
+
+    /**
+     * This method reads YAML from file content returning structure as JsonObject
+     * @param gitPath the git path of the YAML file
+     * @param content the content of the YAML file
+     * @return JsonObject YAML file structure as json object
+     */
+    public static ConfigFile readFromYaml(String gitPath, byte[] content) {
         JsonObject data = null;
         Yaml yaml = new Yaml(new SafeConstructor());
         Gson gson = new Gson();
 
-        try (FileInputStream fis = new FileInputStream(path)) {
+        try (InputStream fis = new ByteArrayInputStream(content)) {
             // Parse YAML file to Map
             Map<String, Object> yamlMap = yaml.load(fis);
 
@@ -55,13 +67,18 @@ public class NonJsonReadWriteUtils {
             return null;
         }
 
-        return new ConfigFile(FileUtils.localPathToGitPath(path, config.getRepoName()), new File(path).getName(), data, FileType.CONFIG);
+        return new ConfigFile(gitPath, new File(gitPath).getName(), data, FileType.CONFIG);
     }
 
     public static ConfigFile readFromDocker(String path, Config config) {
+        byte[] content = readContent(path);
+        return content == null ? null : readFromDocker(FileUtils.localPathToGitPath(path, config.getRepoName()), content);
+    }
+
+    public static ConfigFile readFromDocker(String gitPath, byte[] content) {
         List<String> instructions = new ArrayList<>();
         JsonObject jsonObject;
-        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
+        try (BufferedReader br = new BufferedReader(new StringReader(new String(content, Charset.defaultCharset())))) {
             String line;
             while ((line = br.readLine()) != null) {
                 instructions.add(line.trim());  // Add each line as an instruction
@@ -76,15 +93,20 @@ public class NonJsonReadWriteUtils {
         }
         jsonObject.add("instructions", jsonArray);
 
-        return new ConfigFile(FileUtils.localPathToGitPath(path, config.getRepoName()), new File(path).getName(), jsonObject, FileType.CONFIG);
+        return new ConfigFile(gitPath, new File(gitPath).getName(), jsonObject, FileType.CONFIG);
     }
 
     public static ConfigFile readFromPom(String path, Config config) {
+        byte[] content = readContent(path);
+        return content == null ? null : readFromPom(FileUtils.localPathToGitPath(path, config.getRepoName()), content);
+    }
+
+    public static ConfigFile readFromPom(String gitPath, byte[] content) {
         String xmlContent = null;
         JsonObject jsonObject;
         try {
             // Read the entire file content
-            xmlContent = new String(Files.readAllBytes(Paths.get(path)));
+            xmlContent = new String(content, Charset.defaultCharset());
 
             if (xmlContent.trim().isEmpty()) {
                 jsonObject = new JsonObject();
@@ -101,15 +123,20 @@ public class NonJsonReadWriteUtils {
         }
 
 
-        return new ConfigFile(FileUtils.localPathToGitPath(path, config.getRepoName()), new File(path).getName(), jsonObject, FileType.CONFIG);
+        return new ConfigFile(gitPath, new File(gitPath).getName(), jsonObject, FileType.CONFIG);
     }
 
     public static ConfigFile readFromGradle(String path, Config config) {
+        byte[] content = readContent(path);
+        return content == null ? null : readFromGradle(FileUtils.localPathToGitPath(path, config.getRepoName()), content);
+    }
+
+    public static ConfigFile readFromGradle(String gitPath, byte[] content) {
         JsonObject jsonObject = new JsonObject();
         Stack<JsonObject> jsonStack = new Stack<>();
         jsonStack.push(jsonObject);
 
-        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
+        try (BufferedReader br = new BufferedReader(new StringReader(new String(content, Charset.defaultCharset())))) {
             String line;
             String currentKey = null;
 
@@ -150,11 +177,25 @@ public class NonJsonReadWriteUtils {
         }
 
         return new ConfigFile(
-            FileUtils.localPathToGitPath(path, config.getRepoName()), 
-            new File(path).getName(), 
+            gitPath,
+            new File(gitPath).getName(),
             jsonObject, 
             FileType.CONFIG
         );
     }
-    
+
+    /**
+     * This method reads the content of a file
+     *
+     * @param path the path to the file
+     * @return the content of the file or null if it could not be read
+     */
+    private static byte[] readContent(String path) {
+        try {
+            return Files.readAllBytes(Paths.get(path));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
 }
@@ -0,0 +1,66 @@
+package edu.university.ecs.lab.common.utils;
+
+import java.util.function.Supplier;
+
+/**
+ * Cooperative time budget for parsing a single file. The deadline is held per thread so the
+ * workers of a parallel extraction each run against their own budget, long running steps
+ * such as type resolution call {@link #check()} and are abandoned once it has passed.
+ */
+public class ParseBudget {
+    /**
+     * Deadline of the work running on the current thread, null if it has no budget
+     */
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ParseBudget() {
+    }
+
+    /**
+     * This method runs work on the current thread within a time budget
+     *
+     * @param budgetNanos the budget in nanoseconds
+     * @param work the work to run
+     * @return the result of the work
+     * @throws ExceededException if the work checked the budget after it was exceeded
+     */
+    public static <T> T run(long budgetNanos, Supplier<T> work) {
+        Long previous = DEADLINE.get();
+        long deadline = System.nanoTime() + budgetNanos;
+        DEADLINE.set(previous == null ? deadline : Math.min(previous, deadline));
+
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                DEADLINE.remove();
+            } else {
+                DEADLINE.set(previous);
+            }
+        }
+    }
+
+    /**
+     * This method abandons the work running on the current thread if its budget is exceeded
+     *
+     * @throws ExceededException if the budget is exceeded
+     */
+    public static void check() {
+        Long deadline = DEADLINE.get();
+        if (deadline != null && System.nanoTime() - deadline > 0) {
+            throw new ExceededException();
+        }
+    }
+
+    /**
+     * Thrown from {@link #check()} once the budget of the current work is exceeded
+     */
+    public static class ExceededException extends RuntimeException {
+        private ExceededException() {
+            super("Parse time budget exceeded", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package edu.university.ecs.lab.common.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import edu.university.ecs.lab.common.config.Config;
+import edu.university.ecs.lab.common.models.ir.JClass;
+import edu.university.ecs.lab.common.models.ir.ProjectFile;
+import edu.university.ecs.lab.common.services.LoggerManager;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistent on disk cache of parsed files. Entries are addressed by the git blob id of the
+ * file content, the type resolution of the file and the extractor version, so unchanged files
+ * are only parsed once across commits and runs. The type resolution, see
+ * {@link ParseSession#getResolutionKey(String)}, keeps entries of a module from being reused in
+ * another module or after the library jars are configured. Files that were filtered during
+ * parsing are cached as well.
+ * <p>
+ * Entries are written to a temporary file and atomically moved in place so concurrent
+ * readers never see a partial entry. Once the cache grows beyond its size limit the least
+ * recently used entries are evicted.
+ * <p>
+ * Note that type resolution of a cached class reflects the repository state at the time
+ * the entry was written. Files parsed without type resolution because they exceeded their
+ * parse time budget are not cached, see {@link #skipCaching()}.
+ */
+public class ParseCache {
+    /**
+     * Version of the extraction output, must be increased whenever parsing changes the
+     * produced models so stale entries are no longer used
+     */
+    public static final int EXTRACTOR_VERSION = 4;
+
+    private static final String ENTRY_EXTENSION = ".json";
+    private static final String FILE_NAME = "fileName";
+    private static final String FILE = "file";
+
+    /**
+     * Open caches by directory, one instance is shared per directory
+     */
+    private static final Map<Path, ParseCache> CACHES = new ConcurrentHashMap<>();
+
+    private static final Gson gson = JsonReadWriteUtils.registerDeserializers();
+
+    /**
+     * Whether the file parsed on the current thread must not be cached
+     */
+    private static final ThreadLocal<Boolean> SKIP_CACHING = ThreadLocal.withInitial(() -> false);
+
+    private final Path directory;
+    private final long maxBytes;
+    private final AtomicLong currentBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private ParseCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        this.currentBytes = new AtomicLong(listEntries().stream().mapToLong(ParseCache::sizeOf).sum());
+    }
+
+    /**
+     * This method returns the parse cache configured in the config, if any
+     *
+     * @param config the configuration object
+     * @return the shared parse cache or null if caching is not configured
+     */
+    public static ParseCache fromConfig(Config config) {
+        if (Objects.isNull(config.getParseCacheDirectory()) || config.getParseCacheDirectory().isBlank()) {
+            return null;
+        }
+
+        Path directory = Path.of(config.getParseCacheDirectory()).toAbsolutePath().normalize();
+        long maxBytes = config.getParseCacheMegabytes() * 1024L * 1024L;
+        return CACHES.computeIfAbsent(directory, d -> new ParseCache(d, maxBytes));
+    }
+
+    /**
+     * This method computes the git blob id of the given content
+     *
+     * @param content the file content
+     * @return the blob id as a hex string
+     */
+    public static String blobId(byte[] content) {
+        try (ObjectInserter.Formatter formatter = new ObjectInserter.Formatter()) {
+            return formatter.idFor(Constants.OBJ_BLOB, content).name();
+        }
+    }
+
+    /**
+     * This method returns the cached parse of a file on disk, parsing and caching
+     * it on a miss
+     *
+     * @param file the file on disk
+     * @param path the git path of the file
+     * @param microserviceName the name of the microservice the file belongs to
+     * @param resolutionKey the type resolution of the file
+     * @param parser parses the file on a cache miss, may return null
+     * @return the parsed file or null if it was filtered
+     */
+    public ProjectFile getOrParse(File file, String path, String microserviceName, String resolutionKey, Supplier<ProjectFile> parser) {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            return parser.get();
+        }
+
+        return getOrParse(blobId(content), file.getName(), path, microserviceName, resolutionKey, parser);
+    }
+
+    /**
+     * This method returns the cached parse of a blob, parsing and caching it on a miss
+     *
+     * @param blobId the git blob id of the file content
+     * @param fileName the name of the file
+     * @param path the git path of the file
+     * @param microserviceName the name of the microservice the file belongs to
+     * @param resolutionKey the type resolution of the file
+     * @param parser parses the file on a cache miss, may return null
+     * @return the parsed file or null if it was filtered
+     */
+    public ProjectFile getOrParse(String blobId, String fileName, String path, String microserviceName, String resolutionKey, Supplier<ProjectFile> parser) {
+        Path entry = entryPath(blobId, resolutionKey);
+
+        JsonObject cached = read(entry);
+        if (cached != null && fileName.equals(cached.get(FILE_NAME).getAsString())) {
+            hits.incrementAndGet();
+            touch(entry);
+            return rebase(cached.get(FILE), path, microserviceName);
+        }
+
+        misses.incrementAndGet();
+        ProjectFile projectFile;
+        SKIP_CACHING.set(false);
+        try {
+            projectFile = parser.get();
+            if (SKIP_CACHING.get()) {
+                return projectFile;
+            }
+        } finally {
+            SKIP_CACHING.remove();
+        }
+
+        JsonObject value = new JsonObject();
+        value.addProperty(FILE_NAME, fileName);
+        value.add(FILE, projectFile == null ? JsonNull.INSTANCE : projectFile.toJsonObject());
+        write(entry, value);
+
+        return projectFile;
+    }
+
+    /**
+     * This method marks the file being parsed on the current thread as not to be cached. A parse
+     * degraded by the time budget depends on the load of the machine and the quarantine list of the
+     * run, caching it would keep later runs from ever parsing the file in full.
+     */
+    public static void skipCaching() {
+        SKIP_CACHING.set(true);
+    }
+
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that required parsing
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * This method deserializes a parsed file and moves it to the given path and microservice,
+     * files parsed once are shared by identical copies this way
+     *
+     * @param json the parsed file json
+     * @param path the git path of the file
+     * @param microserviceName the name of the microservice the file belongs to
+     * @return the cached file or null if the file was filtered
+     */
+    public static ProjectFile rebase(JsonElement json, String path, String microserviceName) {
+        if (json.isJsonNull()) {
+            return null;
+        }
+
+        ProjectFile projectFile = gson.fromJson(json, ProjectFile.class);
+        projectFile.setPath(path);
+        if (projectFile instanceof JClass) {
+            ((JClass) projectFile).updateMicroserviceName(microserviceName);
+        }
+
+        return projectFile;
+    }
+
+    private Path entryPath(String blobId, String resolutionKey) {
+        MessageDigest digest = Constants.newMessageDigest();
+        String resolution = ObjectId.fromRaw(digest.digest(resolutionKey.getBytes(StandardCharsets.UTF_8))).abbreviate(8).name();
+        return directory.resolve(blobId.substring(0, 2)).resolve(blobId + "-" + resolution + "-v" + EXTRACTOR_VERSION + ENTRY_EXTENSION);
+    }
+
+    private JsonObject read(Path entry) {
+        try {
+            return JsonParser.parseString(Files.readString(entry, StandardCharsets.UTF_8)).getAsJsonObject();
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (Exception e) {
+            LoggerManager.debug(() -> "Ignoring unreadable parse cache entry " + entry);
+            return null;
+        }
+    }
+
+    private void write(Path entry, JsonObject value) {
+        try {
+            Files.createDirectories(entry.getParent());
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+
+            // Write aside and move in place so readers only ever see complete entries
+            Path temp = Files.createTempFile(entry.getParent(), "entry", ".tmp");
+            Files.write(temp, bytes);
+            long previous = Files.exists(entry) ? sizeOf(entry) : 0;
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            if (currentBytes.addAndGet(bytes.length - previous) > maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            LoggerManager.debug(() -> "Failed to write parse cache entry " + entry);
+        }
+    }
+
+    private void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // Entry was evicted meanwhile, nothing to do
+        }
+    }
+
+    /**
+     * This method removes the least recently used entries until the cache
+     * is below 90% of its size limit
+     */
+    private synchronized void evict() {
+        if (currentBytes.get() <= maxBytes) {
+            return;
+        }
+
+        List<Path> entries = listEntries();
+        entries.sort(Comparator.comparing(ParseCache::lastModified));
+
+        long target = maxBytes * 9 / 10;
+        long evicted = 0;
+        for (Path entry : entries) {
+            if (currentBytes.get() <= target) {
+                break;
+            }
+            long size = sizeOf(entry);
+            try {
+                if (Files.deleteIfExists(entry)) {
+                    currentBytes.addAndGet(-size);
+                    evicted++;
+                }
+            } catch (IOException ignored) {
+                // Skip entries that cannot be removed
+            }
+        }
+
+        long finalEvicted = evicted;
+        LoggerManager.debug(() -> "Evicted " + finalEvicted + " parse cache entries from " + directory);
+    }
+
+    private List<Path> listEntries() {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            return stream.filter(p -> p.getFileName().toString().endsWith(ENTRY_EXTENSION)).collect(Collectors.toList());
+        } catch (IOException | UncheckedIOException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    private static long sizeOf(Path entry) {
+        try {
+            return Files.size(entry);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package edu.university.ecs.lab.common.utils;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import edu.university.ecs.lab.common.config.Config;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Holds the state needed while parsing a single source file. One instance is created
+ * per parsed file so that files can be parsed concurrently, see {@link SourceToObjectUtils}.
+ */
+@Getter
+@AllArgsConstructor
+public class ParseContext {
+    /**
+     * The parsed compilation unit of the file
+     */
+    private final CompilationUnit cu;
+
+    /**
+     * The declarations of the file collected in a single pass over the compilation unit
+     */
+    private final DeclarationCollector declarations;
+
+    /**
+     * The name of the microservice the file belongs to, may be empty
+     */
+    private final String microserviceName;
+
+    /**
+     * The git path of the file
+     */
+    private final String path;
+
+    /**
+     * The name of the class, the file name without extension
+     */
+    private final String className;
+
+    /**
+     * The package declared in the file or empty if none is declared
+     */
+    private final String packageName;
+
+    /**
+     * The package and class name joined as package.ClassName
+     */
+    private final String packageAndClassName;
+
+    /**
+     * The type solver used for resolving types within the file, shared by the parse session
+     */
+    private final TypeSolver typeSolver;
+
+    /**
+     * Configuration object
+     */
+    private final Config config;
+
+    /**
+     * Timings of the extraction run, shared by the parse session
+     */
+    private final ExtractionMetrics metrics;
+
+    /**
+     * Whether types are resolved with the symbol solver, false when parsing in degraded mode
+     */
+    private final boolean typeResolution;
+}
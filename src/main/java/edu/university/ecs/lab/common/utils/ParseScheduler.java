@@ -0,0 +1,171 @@
+package edu.university.ecs.lab.common.utils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import edu.university.ecs.lab.common.models.serialization.JsonSerializable;
+import edu.university.ecs.lab.common.services.LoggerManager;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Work-stealing scheduler for the file parse tasks of an extraction. Parse cost grows with file
+ * size and a few large files dominate on skewed repositories, so tasks are started largest file
+ * first and the small files fill the gaps left at the end, cutting the tail of the run.
+ * <p>
+ * The scheduler counts the tasks waiting to start and the busy time of each worker thread,
+ * the utilisation of a worker being its busy time over the time since the scheduler started.
+ */
+public class ParseScheduler implements AutoCloseable, JsonSerializable {
+    private final ForkJoinPool pool;
+
+    private final int threads;
+
+    /**
+     * Creation time of the scheduler in nanoseconds
+     */
+    private final long start = System.nanoTime();
+
+    /**
+     * Number of submitted tasks not yet started
+     */
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    /**
+     * Highest number of submitted tasks not yet started
+     */
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    /**
+     * Counters of each worker by thread name
+     */
+    private final Map<String, WorkerCounters> workers = new ConcurrentHashMap<>();
+
+    /**
+     * Create a scheduler with a fixed number of worker threads
+     *
+     * @param threads the number of worker threads
+     */
+    public ParseScheduler(int threads) {
+        this.threads = threads;
+        // Asynchronous mode takes submitted tasks first in first out
+        this.pool = new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    }
+
+    /**
+     * This method submits tasks largest first
+     *
+     * @param tasks the tasks to run
+     * @return the futures of the tasks in the order of the given tasks
+     */
+    public <T> List<Future<T>> submitLargestFirst(List<Task<T>> tasks) {
+        Integer[] order = new Integer[tasks.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // Stable, tasks of equal size keep their order
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> tasks.get(i).getSize()).reversed());
+
+        int depth = queueDepth.addAndGet(tasks.size());
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+
+        List<Future<T>> futures = new ArrayList<>(Collections.nCopies(tasks.size(), null));
+        for (int i : order) {
+            Callable<T> work = tasks.get(i).getWork();
+            futures.set(i, pool.submit(() -> run(work)));
+        }
+
+        return futures;
+    }
+
+    private <T> T run(Callable<T> work) throws Exception {
+        queueDepth.decrementAndGet();
+        WorkerCounters counters = workers.computeIfAbsent(Thread.currentThread().getName(), name -> new WorkerCounters());
+
+        long taskStart = System.nanoTime();
+        try {
+            return work.call();
+        } finally {
+            counters.busyNanos.add(System.nanoTime() - taskStart);
+            counters.tasks.increment();
+        }
+    }
+
+    /**
+     * @return the number of submitted tasks not yet started
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return the highest number of submitted tasks not yet started
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * @return the utilisation of each worker that ran a task by thread name, between 0 and 1
+     */
+    public Map<String, Double> getWorkerUtilisation() {
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        Map<String, Double> utilisation = new TreeMap<>();
+        workers.forEach((name, counters) -> utilisation.put(name, Math.min(1.0, (double) counters.busyNanos.sum() / elapsed)));
+        return utilisation;
+    }
+
+    @Override
+    public JsonObject toJsonObject() {
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.addProperty("threads", threads);
+        jsonObject.addProperty("maxQueueDepth", getMaxQueueDepth());
+
+        JsonArray workerArray = new JsonArray();
+        Map<String, Double> utilisation = getWorkerUtilisation();
+        for (Map.Entry<String, Double> worker : utilisation.entrySet()) {
+            WorkerCounters counters = workers.get(worker.getKey());
+            JsonObject workerObject = new JsonObject();
+            workerObject.addProperty("name", worker.getKey());
+            workerObject.addProperty("tasks", counters.tasks.sum());
+            workerObject.addProperty("busyMillis", counters.busyNanos.sum() / 1_000_000);
+            workerObject.addProperty("utilisation", worker.getValue());
+            workerArray.add(workerObject);
+        }
+        jsonObject.add("workers", workerArray);
+
+        return jsonObject;
+    }
+
+    /**
+     * This method stops the worker threads, tasks not yet started are cancelled
+     */
+    @Override
+    public void close() {
+        LoggerManager.debug(() -> "Closing parse scheduler, max queue depth " + getMaxQueueDepth() + ", worker utilisation " + getWorkerUtilisation().values());
+        pool.shutdownNow();
+    }
+
+    /**
+     * A parse task with the size of the file it parses
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Task<T> {
+        /**
+         * The size of the file in bytes
+         */
+        private final long size;
+
+        private final Callable<T> work;
+    }
+
+    private static class WorkerCounters {
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder tasks = new LongAdder();
+    }
+}
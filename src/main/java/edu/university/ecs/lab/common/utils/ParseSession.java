@@ -0,0 +1,387 @@
+package edu.university.ecs.lab.common.utils;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import edu.university.ecs.lab.common.config.Config;
+import edu.university.ecs.lab.common.services.LoggerManager;
+import lombok.Getter;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the state shared by all files parsed during a single extraction run of a repository
+ * at one commit. The type solver stacks are built once per session and worker thread, their
+ * caches are reused by every file the thread parses in the session, see {@link SourceToObjectUtils}.
+ * A stack is never shared between threads: resolved declarations wrap nodes of the source files
+ * parsed by the stack and resolution memoizes its results in those nodes, so resolving in parallel
+ * against the same stack would race. Only the jar indexes of the Maven repository are shared.
+ * <p>
+ * Types are resolved within the module a file belongs to, the module being the directory above
+ * a conventional source root such as src/main/java. Each module has its own type solver stack over
+ * its own source roots, so identically named classes of different microservices are not confused,
+ * and optionally over the jars of its dependencies found in a local Maven repository. Files outside
+ * of a conventional source root are resolved against the whole repository. Sessions over a commit
+ * look project types up in its {@link DeclarationIndex} instead of probing the source directories.
+ * <p>
+ * A session must be closed once the run is complete, it must not be reused after the
+ * local repository has been moved to another commit.
+ */
+public class ParseSession implements AutoCloseable {
+    /**
+     * Maximum number of resolved types held by the cache of each module
+     */
+    private static final int TYPE_CACHE_SIZE = 10000;
+
+    /**
+     * Maximum number of parsed source files held by each source type solver
+     */
+    private static final long PARSED_FILE_CACHE_SIZE = 2000;
+
+    /**
+     * Conventional source roots relative to a module directory
+     */
+    private static final List<String> SOURCE_ROOTS = List.of("src/main/java", "src/test/java");
+
+    /**
+     * Project types are looked up in the source directories or in the declaration index
+     */
+    private static final String SOURCE_PROJECT_TYPES = "sources";
+    private static final String INDEXED_PROJECT_TYPES = "index";
+
+    /**
+     * Configuration object
+     */
+    @Getter
+    private final Config config;
+
+    /**
+     * Where project types are looked up, the source directories or the declaration index
+     */
+    private final String projectTypes;
+
+    /**
+     * Creates the source type solver of a directory relative to the repository root,
+     * null if the directory does not exist
+     */
+    private final Function<String, TypeSolver> sourceTypeSolverFactory;
+
+    /**
+     * Reads a file relative to the repository root, null if the file does not exist
+     */
+    private final Function<String, byte[]> fileReader;
+
+    /**
+     * Local Maven repository resolving library types, null if not configured
+     */
+    private final MavenRepository mavenRepository;
+
+    /**
+     * Type solver stacks of each thread by module directory relative to the repository root,
+     * null for the stack resolving files outside of any conventional source root. The stacks
+     * of a thread are only ever used by that thread.
+     */
+    private final Map<Thread, Map<String, Scope>> scopes = new ConcurrentHashMap<>();
+
+    /**
+     * Library type solvers of each thread, shared by the stacks of the thread's modules
+     */
+    private final Map<Thread, MavenRepository.Libraries> libraries = new ConcurrentHashMap<>();
+
+    /**
+     * Number of files skipped without parsing by the {@link StereotypeFilter}
+     */
+    private final AtomicLong skippedFiles = new AtomicLong();
+
+    /**
+     * Number of files parsed without type resolution
+     */
+    private final AtomicLong degradedFiles = new AtomicLong();
+
+    /**
+     * Files parsed without type resolution from the start
+     */
+    @Getter
+    private final Quarantine quarantine;
+
+    /**
+     * Timings of the extraction run the session belongs to
+     */
+    @Getter
+    private final ExtractionMetrics metrics;
+
+    /**
+     * Create a new session over the local repository of the configuration
+     *
+     * @param config the configuration object
+     */
+    public ParseSession(Config config) {
+        this(config, new ExtractionMetrics(config.getSlowFileCount()));
+    }
+
+    /**
+     * Create a new session over the local repository of the configuration
+     *
+     * @param config the configuration object
+     * @param metrics the timings of the extraction run
+     */
+    public ParseSession(Config config, ExtractionMetrics metrics) {
+        this(config, SOURCE_PROJECT_TYPES, workingTreeSolverFactory(config), workingTreeReader(config), metrics);
+    }
+
+    /**
+     * Create a new session over the local repository of the configuration checked out at
+     * the commit of the declaration index, project types are looked up in the index
+     *
+     * @param config the configuration object
+     * @param declarationIndex the declarations of the checked out commit
+     * @param blobReader reads the content of a blob
+     * @param metrics the timings of the extraction run
+     */
+    public ParseSession(Config config, DeclarationIndex declarationIndex, Function<ObjectId, byte[]> blobReader, ExtractionMetrics metrics) {
+        this(config, Path.of(FileUtils.getRepositoryPath(config.getRepoName())), declarationIndex, blobReader, metrics);
+    }
+
+    /**
+     * Create a new session over a checkout of the repository of the configuration at the commit
+     * of the declaration index, such as a leased worktree, project types are looked up in the index
+     *
+     * @param config the configuration object
+     * @param workingTree the directory of the checkout
+     * @param declarationIndex the declarations of the checked out commit
+     * @param blobReader reads the content of a blob
+     * @param metrics the timings of the extraction run
+     */
+    public ParseSession(Config config, Path workingTree, DeclarationIndex declarationIndex, Function<ObjectId, byte[]> blobReader, ExtractionMetrics metrics) {
+        this(config, INDEXED_PROJECT_TYPES, root -> new GitTreeTypeSolver(declarationIndex, root, blobReader, PARSED_FILE_CACHE_SIZE), workingTreeReader(workingTree), metrics);
+    }
+
+    /**
+     * Create a new session over the files of a commit's tree read from the object database,
+     * the working tree of the local repository is not used
+     *
+     * @param config the configuration object
+     * @param treeFiles the files of the tree by path relative to the repository root
+     * @param declarationIndex the declarations of the tree
+     * @param blobReader reads the content of a blob
+     * @param metrics the timings of the extraction run
+     */
+    public ParseSession(Config config, Map<String, ObjectId> treeFiles, DeclarationIndex declarationIndex, Function<ObjectId, byte[]> blobReader, ExtractionMetrics metrics) {
+        this(config, INDEXED_PROJECT_TYPES, root -> new GitTreeTypeSolver(declarationIndex, root, blobReader, PARSED_FILE_CACHE_SIZE), path -> {
+            ObjectId blobId = treeFiles.get(path);
+            return blobId == null ? null : blobReader.apply(blobId);
+        }, metrics);
+    }
+
+    /**
+     * Create a new session resolving project types with source type solvers from the given factory
+     *
+     * @param config the configuration object
+     * @param projectTypes where project types are looked up
+     * @param sourceTypeSolverFactory creates the source type solver of a directory relative to the repository root
+     * @param fileReader reads a file relative to the repository root
+     * @param metrics the timings of the extraction run
+     */
+    private ParseSession(Config config, String projectTypes, Function<String, TypeSolver> sourceTypeSolverFactory, Function<String, byte[]> fileReader, ExtractionMetrics metrics) {
+        this.config = config;
+        this.projectTypes = projectTypes;
+        this.metrics = metrics;
+        this.sourceTypeSolverFactory = sourceTypeSolverFactory;
+        this.fileReader = fileReader;
+        this.mavenRepository = MavenRepository.fromConfig(config);
+        this.quarantine = Quarantine.fromConfig(config);
+    }
+
+    /**
+     * @param path the git path of the file being parsed
+     * @return the type solver resolving types of the file's module
+     */
+    public TypeSolver getTypeSolver(String path) {
+        return scopeOf(path).typeSolver;
+    }
+
+    /**
+     * @param path the git path of the file being parsed
+     * @return the symbol resolver resolving types of the file's module
+     */
+    public JavaSymbolSolver getSymbolSolver(String path) {
+        return scopeOf(path).symbolSolver;
+    }
+
+    /**
+     * This method describes how the types of a file are resolved. Files of the same content
+     * parsed under the same key resolve their types against the same kind of solvers, the
+     * same library jars and the same module.
+     *
+     * @param path the git path of the file
+     * @return the key of the type resolution of the file
+     */
+    public String getResolutionKey(String path) {
+        return projectTypes + ";maven=" + (mavenRepository == null ? "" : mavenRepository.getDirectory()) + ";module=" + getModule(path);
+    }
+
+    /**
+     * This method records a file skipped without parsing
+     */
+    public void recordSkippedFile() {
+        skippedFiles.incrementAndGet();
+    }
+
+    /**
+     * @return the number of files skipped without parsing
+     */
+    public long getSkippedFiles() {
+        return skippedFiles.get();
+    }
+
+    /**
+     * This method records a file parsed without type resolution
+     */
+    public void recordDegradedFile() {
+        degradedFiles.incrementAndGet();
+    }
+
+    /**
+     * @return the number of files parsed without type resolution
+     */
+    public long getDegradedFiles() {
+        return degradedFiles.get();
+    }
+
+    /**
+     * This method releases the cached types of the session
+     */
+    @Override
+    public void close() {
+        List<Scope> allScopes = scopes.values().stream().flatMap(threadScopes -> threadScopes.values().stream()).collect(Collectors.toList());
+
+        LoggerManager.debug(() -> "Closing parse session for " + config.getRepoName() + ", " + allScopes.size() + " type solver stacks on " + scopes.size() + " threads, type cache hits "
+                + allScopes.stream().mapToLong(scope -> scope.typeSolver.getHits()).sum() + " misses "
+                + allScopes.stream().mapToLong(scope -> scope.typeSolver.getMisses()).sum() + ", skipped files " + skippedFiles.get() + ", degraded files " + degradedFiles.get());
+        allScopes.forEach(scope -> scope.typeSolver.clear());
+        scopes.clear();
+        libraries.clear();
+    }
+
+    /**
+     * This method finds the type solver stack of the current thread for the module a file belongs to
+     *
+     * @param path the git path of the file
+     * @return the stack of the file's module or of the repository if it is outside a source root
+     */
+    private Scope scopeOf(String path) {
+        // Only the current thread reads and writes its own stacks
+        Map<String, Scope> threadScopes = scopes.computeIfAbsent(Thread.currentThread(), thread -> new HashMap<>());
+        return threadScopes.computeIfAbsent(getModule(path), this::createScope);
+    }
+
+    /**
+     * This method finds the module a file belongs to, types of files of the same module are
+     * resolved against the same source roots
+     *
+     * @param path the git path of the file
+     * @return the module directory relative to the repository root, empty for the root itself,
+     * or null if the file is outside a source root
+     */
+    public static String getModule(String path) {
+        String relativePath = path.startsWith(FileUtils.GIT_SEPARATOR) ? path.substring(1) : path;
+        String searchPath = FileUtils.GIT_SEPARATOR + relativePath;
+
+        for (String sourceRoot : SOURCE_ROOTS) {
+            int index = searchPath.indexOf(FileUtils.GIT_SEPARATOR + sourceRoot + FileUtils.GIT_SEPARATOR);
+            if (index >= 0) {
+                return index == 0 ? "" : relativePath.substring(0, index - 1);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * This method builds the type solver stack of a module over its source roots and,
+     * if configured, the jars of its dependencies
+     *
+     * @param module the module directory relative to the repository root, empty for the root itself,
+     *               or null for the stack of the whole repository
+     * @return the stack of the module
+     */
+    private Scope createScope(String module) {
+        if (module == null) {
+            // Without a checkout of the repository only the reflection solver is left
+            TypeSolver repositoryTypeSolver = sourceTypeSolverFactory.apply("");
+            return new Scope(repositoryTypeSolver == null ? List.of() : List.of(repositoryTypeSolver));
+        }
+
+        String prefix = module.isEmpty() ? "" : module + FileUtils.GIT_SEPARATOR;
+
+        List<TypeSolver> typeSolvers = new ArrayList<>();
+        for (String sourceRoot : SOURCE_ROOTS) {
+            TypeSolver sourceTypeSolver = sourceTypeSolverFactory.apply(prefix + sourceRoot);
+            if (sourceTypeSolver != null) {
+                typeSolvers.add(sourceTypeSolver);
+            }
+        }
+
+        if (mavenRepository != null) {
+            byte[] pom = fileReader.apply(prefix + "pom.xml");
+            if (pom != null) {
+                List<Path> jars = mavenRepository.resolveJars(pom);
+                typeSolvers.add(libraries.computeIfAbsent(Thread.currentThread(), thread -> mavenRepository.openLibraries()).typeSolver(jars));
+                LoggerManager.debug(() -> "Resolving library types of module " + module + " from " + jars.size() + " jars");
+            }
+        }
+
+        return new Scope(typeSolvers);
+    }
+
+    private static Function<String, TypeSolver> workingTreeSolverFactory(Config config) {
+        Path repositoryPath = Path.of(FileUtils.getRepositoryPath(config.getRepoName()));
+        return root -> Files.isDirectory(repositoryPath.resolve(root)) ? new JavaParserTypeSolver(repositoryPath.resolve(root), new ParserConfiguration(), PARSED_FILE_CACHE_SIZE) : null;
+    }
+
+    private static Function<String, byte[]> workingTreeReader(Config config) {
+        return workingTreeReader(Path.of(FileUtils.getRepositoryPath(config.getRepoName())));
+    }
+
+    private static Function<String, byte[]> workingTreeReader(Path repositoryPath) {
+        return path -> {
+            try {
+                Path file = repositoryPath.resolve(path);
+                return Files.isRegularFile(file) ? Files.readAllBytes(file) : null;
+            } catch (IOException e) {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Type solver stack of a module with its cache and symbol resolver
+     */
+    private static class Scope {
+        private final CachingTypeSolver typeSolver;
+        private final JavaSymbolSolver symbolSolver;
+
+        private Scope(List<TypeSolver> typeSolvers) {
+            CombinedTypeSolver combinedTypeSolver = new CombinedTypeSolver();
+            combinedTypeSolver.add(new ReflectionTypeSolver());
+            typeSolvers.forEach(combinedTypeSolver::add);
+
+            this.typeSolver = new CachingTypeSolver(combinedTypeSolver, TYPE_CACHE_SIZE);
+            this.symbolSolver = new JavaSymbolSolver(typeSolver);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package edu.university.ecs.lab.common.utils;
+
+import java.util.*;
+
+/**
+ * Trie of paths answering nesting and containment queries in time proportional to the length
+ * of the queried path. Paths are split into segments on both '/' and '\', so git paths and
+ * local paths of any platform are supported, empty segments are ignored.
+ *
+ * @param <T> the type of value stored for each path
+ */
+public class PathTrie<T> {
+    /**
+     * Root node, representing the empty path
+     */
+    private final Node<T> root = new Node<>();
+
+    /**
+     * This method stores a value for a path, replacing any value previously stored for it
+     *
+     * @param path the path to store
+     * @param value the value to store for the path
+     */
+    public void put(String path, T value) {
+        List<Node<T>> nodes = new ArrayList<>();
+        Node<T> node = root;
+        nodes.add(node);
+        for (String segment : split(path)) {
+            node = node.children.computeIfAbsent(segment, s -> new Node<>());
+            nodes.add(node);
+        }
+
+        if (!node.present) {
+            nodes.forEach(n -> n.size++);
+        }
+        node.present = true;
+        node.value = value;
+    }
+
+    /**
+     * This method removes the value stored for a path
+     *
+     * @param path the path to remove
+     * @return the value removed or null if the path was not stored
+     */
+    public T remove(String path) {
+        Deque<Node<T>> nodes = new ArrayDeque<>();
+        Node<T> node = root;
+        nodes.push(node);
+        for (String segment : split(path)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return null;
+            }
+            nodes.push(node);
+        }
+
+        if (!node.present) {
+            return null;
+        }
+
+        T value = node.value;
+        node.present = false;
+        node.value = null;
+        nodes.forEach(n -> n.size--);
+
+        // Prune nodes no longer leading to any path
+        List<String> segments = split(path);
+        Node<T> child = nodes.pop();
+        for (int i = segments.size() - 1; i >= 0 && child.size == 0; i--) {
+            Node<T> parent = nodes.pop();
+            parent.children.remove(segments.get(i));
+            child = parent;
+        }
+
+        return value;
+    }
+
+    /**
+     * This method checks whether a path is stored
+     *
+     * @param path the path to check
+     * @return true if the path is stored
+     */
+    public boolean contains(String path) {
+        Node<T> node = find(path);
+        return node != null && node.present;
+    }
+
+    /**
+     * This method checks whether any stored path is nested strictly below the given path
+     *
+     * @param path the path to check
+     * @return true if a more specific path is stored
+     */
+    public boolean hasDescendant(String path) {
+        Node<T> node = find(path);
+        return node != null && node.size > (node.present ? 1 : 0);
+    }
+
+    /**
+     * This method finds the value of the most specific stored path the given path is
+     * nested strictly below
+     *
+     * @param path the path to check
+     * @return the value of the closest less specific path or null if there is none
+     */
+    public T findAncestor(String path) {
+        T ancestor = null;
+        Node<T> node = root;
+        for (String segment : split(path)) {
+            if (node.present) {
+                ancestor = node.value;
+            }
+            node = node.children.get(segment);
+            if (node == null) {
+                break;
+            }
+        }
+
+        return ancestor;
+    }
+
+    /**
+     * This method filters a list of paths to those that have no other path of the
+     * list nested below them, keeping their order
+     *
+     * @param paths the paths to filter
+     * @return the most specific paths
+     */
+    public static List<String> mostSpecific(List<String> paths) {
+        PathTrie<String> trie = new PathTrie<>();
+        paths.forEach(path -> trie.put(path, path));
+
+        List<String> mostSpecific = new ArrayList<>();
+        for (String path : paths) {
+            if (!trie.hasDescendant(path)) {
+                mostSpecific.add(path);
+            }
+        }
+
+        return mostSpecific;
+    }
+
+    private Node<T> find(String path) {
+        Node<T> node = root;
+        for (String segment : split(path)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+
+        return node;
+    }
+
+    private static List<String> split(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if (i == path.length() || path.charAt(i) == '/' || path.charAt(i) == '\\') {
+                if (i > start) {
+                    segments.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+
+        return segments;
+    }
+
+    /**
+     * A single path segment
+     */
+    private static class Node<T> {
+        private final Map<String, Node<T>> children = new HashMap<>();
+
+        /**
+         * Whether a path ends at this node
+         */
+        private boolean present;
+
+        private T value;
+
+        /**
+         * Number of stored paths ending at or below this node
+         */
+        private int size;
+    }
+}
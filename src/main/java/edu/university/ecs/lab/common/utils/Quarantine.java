@@ -0,0 +1,108 @@
+package edu.university.ecs.lab.common.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import edu.university.ecs.lab.common.config.Config;
+import edu.university.ecs.lab.common.services.LoggerManager;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * List of files that exceeded the parse time budget, by git path. Quarantined files are parsed
+ * without type resolution from the start. The list is persisted to the configured file as soon
+ * as a file is added so later runs skip the full parse even if this run does not complete.
+ */
+public class Quarantine {
+    /**
+     * Open quarantine lists by file, one instance is shared per file
+     */
+    private static final Map<Path, Quarantine> QUARANTINES = new ConcurrentHashMap<>();
+
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    /**
+     * The file the list is persisted to, null if it is only kept for the run
+     */
+    private final Path file;
+
+    private final Set<String> paths = ConcurrentHashMap.newKeySet();
+
+    private Quarantine(Path file) {
+        this.file = file;
+
+        if (file != null && Files.isRegularFile(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                List<String> persisted = gson.fromJson(reader, new TypeToken<List<String>>() {}.getType());
+                if (persisted != null) {
+                    paths.addAll(persisted);
+                }
+            } catch (IOException | JsonParseException e) {
+                LoggerManager.warn(() -> "Failed to read quarantine list " + file);
+            }
+        }
+    }
+
+    /**
+     * This method returns the quarantine list configured in the config
+     *
+     * @param config the configuration object
+     * @return the shared list of the configured file or a new list kept for the run if none is configured
+     */
+    public static Quarantine fromConfig(Config config) {
+        if (Objects.isNull(config.getQuarantineFile()) || config.getQuarantineFile().isBlank()) {
+            return new Quarantine(null);
+        }
+
+        Path file = Path.of(config.getQuarantineFile()).toAbsolutePath().normalize();
+        return QUARANTINES.computeIfAbsent(file, Quarantine::new);
+    }
+
+    /**
+     * @param path the git path of a file
+     * @return true if the file is quarantined
+     */
+    public boolean contains(String path) {
+        return paths.contains(path);
+    }
+
+    /**
+     * This method quarantines a file and persists the list
+     *
+     * @param path the git path of the file
+     */
+    public void add(String path) {
+        if (paths.add(path) && file != null) {
+            persist();
+        }
+    }
+
+    /**
+     * @return the number of quarantined files
+     */
+    public int size() {
+        return paths.size();
+    }
+
+    private synchronized void persist() {
+        List<String> sorted = new ArrayList<>(paths);
+        Collections.sort(sorted);
+
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary)) {
+                gson.toJson(sorted, writer);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LoggerManager.warn(() -> "Failed to write quarantine list " + file);
+        }
+    }
+}
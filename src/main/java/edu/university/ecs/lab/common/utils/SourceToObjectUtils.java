@@ -1,21 +1,20 @@
 package edu.university.ecs.lab.common.utils;
 
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.PackageDeclaration;
 import com.github.javaparser.ast.body.*;
 import com.github.javaparser.ast.body.Parameter;
 import com.github.javaparser.ast.expr.*;
-import com.github.javaparser.ast.nodeTypes.NodeWithSimpleName;
 import com.github.javaparser.resolution.UnsolvedSymbolException;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
-import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
 import com.github.javaparser.symbolsolver.model.typesystem.ReferenceTypeImpl;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import edu.university.ecs.lab.common.config.Config;
 import edu.university.ecs.lab.common.error.Error;
 import edu.university.ecs.lab.common.models.enums.ClassRole;
@@ -25,102 +24,191 @@ import edu.university.ecs.lab.common.models.enums.RestCallTemplate;
 import edu.university.ecs.lab.common.models.ir.*;
 import edu.university.ecs.lab.common.services.LoggerManager;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * Static utility class for parsing a file and returning associated models from code structure.
  */
 public class SourceToObjectUtils {
-    private static CompilationUnit cu;
-    private static String microserviceName = "";
-    private static String path;
-    private static String className;
-    private static String packageName;
-    private static String packageAndClassName;
-    private static CombinedTypeSolver combinedTypeSolver;
-    private static Config config;
-
-
-    private static void generateStaticValues(File sourceFile, Config config1) {
-        // Parse the highest level node being compilation unit
-        config = config1;
+
+    /**
+     * This method parses a source file and sets up the per file parse state
+     *
+     * @param path the git path of the file
+     * @param content the content of the file
+     * @param microserviceName the name of the microservice the file belongs to
+     * @param session the parse session shared by the extraction run
+     * @param typeResolution whether types are resolved with the symbol solver
+     * @return the parse context of the file or null if the file could not be parsed
+     */
+    private static ParseContext generateParseContext(String path, byte[] content, String microserviceName, ParseSession session, boolean typeResolution) {
+        Config config = session.getConfig();
+
+        // Parse the highest level node being compilation unit, a parser instance per file keeps this thread safe
+        CompilationUnit cu;
         try {
-            cu = StaticJavaParser.parse(sourceFile);
+            ParserConfiguration parserConfiguration = new ParserConfiguration();
+            if (typeResolution) {
+                parserConfiguration.setSymbolResolver(session.getSymbolSolver(path));
+            }
+            JavaParser javaParser = new JavaParser(parserConfiguration);
+            ParseResult<CompilationUnit> parseResult = javaParser.parse(new ByteArrayInputStream(content));
+            if (!parseResult.isSuccessful()) {
+                throw new ParseProblemException(parseResult.getProblems());
+            }
+            cu = parseResult.getResult().orElseThrow();
         } catch (Exception e) {
-            LoggerManager.warn(() -> "Failed to parse  " + sourceFile.getPath());
-            microserviceName = "";
-            return;
-//            Error.reportAndExit(Error.JPARSE_FAILED, Optional.of(e));
-        }
-        if (!cu.findAll(PackageDeclaration.class).isEmpty()) {
-            packageName = cu.findAll(PackageDeclaration.class).get(0).getNameAsString();
-            packageAndClassName = packageName + "." + sourceFile.getName().replace(".java", "");
+            LoggerManager.warn(() -> "Failed to parse  " + path);
+            return null;
         }
-        path = FileUtils.localPathToGitPath(sourceFile.getPath(), config.getRepoName());
 
-        TypeSolver reflectionTypeSolver = new ReflectionTypeSolver();
-        TypeSolver javaParserTypeSolver = new JavaParserTypeSolver(FileUtils.getRepositoryPath(config.getRepoName()));
+        String className = new File(path).getName().replace(".java", "");
+        String packageName = cu.getPackageDeclaration().map(PackageDeclaration::getNameAsString).orElse("");
+        String packageAndClassName = packageName.isEmpty() ? className : packageName + "." + className;
 
-        combinedTypeSolver = new CombinedTypeSolver();
-        combinedTypeSolver.add(reflectionTypeSolver);
-        combinedTypeSolver.add(javaParserTypeSolver);
-
-        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(combinedTypeSolver);
-        StaticJavaParser.getConfiguration().setSymbolResolver(symbolSolver);
-        className = sourceFile.getName().replace(".java", "");
+        return new ParseContext(cu, DeclarationCollector.collect(cu), microserviceName, path, className, packageName, packageAndClassName, session.getTypeSolver(path), config, session.getMetrics(), typeResolution);
+    }
 
+    /**
+     * This method parses a Java class file and return a JClass object. A new parse
+     * session is created for the single file, prefer
+     * {@link #parseClass(File, String, ParseSession)} when parsing many files.
+     *
+     * @param sourceFile the file to parse
+     * @return the JClass object representing the file
+     */
+    public static JClass parseClass(File sourceFile, Config config, String microserviceName) {
+        try (ParseSession session = new ParseSession(config)) {
+            return parseClass(sourceFile, microserviceName, session);
+        }
     }
 
     /**
      * This method parses a Java class file and return a JClass object.
      *
      * @param sourceFile the file to parse
+     * @param microserviceName the name of the microservice the file belongs to
+     * @param session the parse session shared by the extraction run
      * @return the JClass object representing the file
      */
-    public static JClass parseClass(File sourceFile, Config config, String microserviceName) {
+    public static JClass parseClass(File sourceFile, String microserviceName, ParseSession session) {
         // Guard condition
         if(Objects.isNull(sourceFile) || FileUtils.isConfigurationFile(sourceFile.getPath())) {
             LoggerManager.warn(() -> "JClass filtered  " + sourceFile.getPath() + " is config or null");
             return null;
         }
 
-        generateStaticValues(sourceFile, config);
-        if (!microserviceName.isEmpty()) {
-            SourceToObjectUtils.microserviceName = microserviceName;
+        byte[] content;
+        try {
+            content = Files.readAllBytes(sourceFile.toPath());
+        } catch (IOException e) {
+            LoggerManager.warn(() -> "Failed to parse  " + sourceFile.getPath());
+            return null;
+        }
+
+        return parseClass(FileUtils.localPathToGitPath(sourceFile.getPath(), session.getConfig().getRepoName()), content, microserviceName, session);
+    }
+
+    /**
+     * This method parses the content of a Java class file and return a JClass object.
+     * If a file time budget is configured and the file exceeds it, the file is quarantined
+     * and parsed again without type resolution. Such a degraded parse is not cached.
+     *
+     * @param path the git path of the file
+     * @param content the content of the file
+     * @param microserviceName the name of the microservice the file belongs to
+     * @param session the parse session shared by the extraction run
+     * @return the JClass object representing the file
+     */
+    public static JClass parseClass(String path, byte[] content, String microserviceName, ParseSession session) {
+        // Guard condition
+        if(FileUtils.isConfigurationFile(path)) {
+            LoggerManager.warn(() -> "JClass filtered  " + path + " is config");
+            return null;
+        }
+
+        // Skip parsing files that cannot declare a class role
+        if (!StereotypeFilter.mayDeclareStereotype(content)) {
+            session.recordSkippedFile();
+            LoggerManager.debug(() -> "JClass filtered  " + path + " no stereotype annotation");
+            return null;
+        }
+
+        // Files that exceeded their budget before are not given another chance
+        if (session.getQuarantine().contains(path)) {
+            session.recordDegradedFile();
+            ParseCache.skipCaching();
+            LoggerManager.debug(() -> "JClass " + path + " is quarantined, parsing without type resolution");
+            return parseClass(path, content, microserviceName, session, false);
+        }
+
+        int budgetSeconds = session.getConfig().getFileTimeBudgetSeconds();
+        if (budgetSeconds <= 0) {
+            return parseClass(path, content, microserviceName, session, true);
+        }
+
+        try {
+            return ParseBudget.run(TimeUnit.SECONDS.toNanos(budgetSeconds), () -> parseClass(path, content, microserviceName, session, true));
+        } catch (ParseBudget.ExceededException e) {
+            LoggerManager.warn(() -> "JClass " + path + " exceeded the parse time budget, quarantined and parsing without type resolution");
+            session.getQuarantine().add(path);
+            session.recordDegradedFile();
+            ParseCache.skipCaching();
+            return parseClass(path, content, microserviceName, session, false);
+        }
+    }
+
+    /**
+     * This method parses the content of a Java class file that may declare a class role
+     *
+     * @param path the git path of the file
+     * @param content the content of the file
+     * @param microserviceName the name of the microservice the file belongs to
+     * @param session the parse session shared by the extraction run
+     * @param typeResolution whether types are resolved with the symbol solver
+     * @return the JClass object representing the file
+     */
+    private static JClass parseClass(String path, byte[] content, String microserviceName, ParseSession session, boolean typeResolution) {
+        ParseContext ctx = generateParseContext(path, content, microserviceName, session, typeResolution);
+        if (ctx == null) {
+            return null;
         }
+        DeclarationCollector declarations = ctx.getDeclarations();
 
         // Calculate early to determine classrole based on annotation, filter for class based annotations only
-        Set<AnnotationExpr> classAnnotations = filterClassAnnotations();
+        Set<AnnotationExpr> classAnnotations = new HashSet<>(declarations.getClassAnnotations());
         AnnotationExpr requestMapping = classAnnotations.stream().filter(ae -> ae.getNameAsString().equals("RequestMapping")).findFirst().orElse(null);
 
         ClassRole classRole = parseClassRole(classAnnotations);
 
         // Return unknown classRoles where annotation not found
         if (classRole.equals(ClassRole.UNKNOWN)) {
-            LoggerManager.warn(() -> "JClass filtered  " + sourceFile.getPath() + " class role unknown");
+            LoggerManager.warn(() -> "JClass filtered  " + path + " class role unknown");
             return null;
         }
 
         JClass jClass = null;
         if(classRole == ClassRole.FEIGN_CLIENT) {
-            jClass = handleFeignClient(requestMapping, classAnnotations);
+            jClass = handleFeignClient(ctx, requestMapping, classAnnotations);
         } else if(classRole == ClassRole.REP_REST_RSC) {
-            jClass = handleRepositoryRestResource(requestMapping, classAnnotations);
+            jClass = handleRepositoryRestResource(ctx, requestMapping, classAnnotations);
         } else {
             jClass = new JClass(
-                    className,
-                    path,
-                    packageName,
+                    ctx.getClassName(),
+                    ctx.getPath(),
+                    ctx.getPackageName(),
                     classRole,
-                    parseMethods(cu.findAll(MethodDeclaration.class), requestMapping),
-                    parseFields(cu.findAll(FieldDeclaration.class)),
-                    parseAnnotations(classAnnotations),
-                    parseMethodCalls(cu.findAll(MethodDeclaration.class)),
-                    cu.findAll(ClassOrInterfaceDeclaration.class).get(0).getImplementedTypes().stream().map(NodeWithSimpleName::getNameAsString).collect(Collectors.toSet()));
+                    parseMethods(ctx, declarations.getMethods(), requestMapping),
+                    parseFields(ctx, declarations.getFields()),
+                    parseAnnotations(ctx, classAnnotations),
+                    parseMethodCalls(ctx, declarations.getMethods()),
+                    declarations.getImplementedTypes(ctx.getClassName()));
         }
 
         // Build the JClass
@@ -132,27 +220,28 @@ public class SourceToObjectUtils {
     /**
      * This method parses methodDeclarations list and returns a Set of Method models
      *
+     * @param ctx the parse context of the file
      * @param methodDeclarations the list of methodDeclarations to be parsed
      * @return a set of Method models representing the MethodDeclarations
      */
-    public static Set<Method> parseMethods(List<MethodDeclaration> methodDeclarations, AnnotationExpr requestMapping) {
+    public static Set<Method> parseMethods(ParseContext ctx, List<MethodDeclaration> methodDeclarations, AnnotationExpr requestMapping) {
         // Get params and returnType
         Set<Method> methods = new HashSet<>();
 
         for (MethodDeclaration methodDeclaration : methodDeclarations) {
             Set<edu.university.ecs.lab.common.models.ir.Parameter> parameters = new HashSet<>();
             for (Parameter parameter : methodDeclaration.getParameters()) {
-                parameters.add(new edu.university.ecs.lab.common.models.ir.Parameter(parameter, packageAndClassName));
+                parameters.add(new edu.university.ecs.lab.common.models.ir.Parameter(parameter, ctx.getPackageAndClassName()));
             }
 
             Method method = new Method(
                     methodDeclaration.getNameAsString(),
-                    packageAndClassName,
+                    ctx.getPackageAndClassName(),
                     parameters,
                     methodDeclaration.getTypeAsString(),
-                    parseAnnotations(methodDeclaration.getAnnotations()),
-                    microserviceName,
-                    className);
+                    parseAnnotations(ctx, methodDeclaration.getAnnotations()),
+                    ctx.getMicroserviceName(),
+                    ctx.getClassName());
 
             method = convertValidEndpoints(methodDeclaration, method, requestMapping);
 
@@ -190,27 +279,29 @@ public class SourceToObjectUtils {
     /**
      * This method parses methodDeclarations list and returns a Set of MethodCall models
      *
+     * @param ctx the parse context of the file
      * @param methodDeclarations the list of methodDeclarations to be parsed
      * @return a set of MethodCall models representing MethodCallExpressions found in the MethodDeclarations
      */
-    public static List<MethodCall> parseMethodCalls(List<MethodDeclaration> methodDeclarations) {
+    public static List<MethodCall> parseMethodCalls(ParseContext ctx, List<MethodDeclaration> methodDeclarations) {
         List<MethodCall> methodCalls = new ArrayList<>();
 
         // loop through method calls
         for (MethodDeclaration methodDeclaration : methodDeclarations) {
-            for (MethodCallExpr mce : methodDeclaration.findAll(MethodCallExpr.class)) {
+            ParseBudget.check();
+            for (MethodCallExpr mce : ctx.getDeclarations().getMethodCalls(methodDeclaration)) {
                 String methodName = mce.getNameAsString();
 
                 String calledServiceName = getCallingObjectName(mce);
-                String calledServiceType = getCallingObjectType(mce);
+                String calledServiceType = getCallingObjectType(ctx, mce);
 
                 String parameterContents = mce.getArguments().stream().map(Objects::toString).collect(Collectors.joining(","));
 
                 if (Objects.nonNull(calledServiceName)) {
-                    MethodCall methodCall = new MethodCall(methodName, packageAndClassName, calledServiceType, calledServiceName,
-                            methodDeclaration.getNameAsString(), parameterContents, microserviceName, className);
+                    MethodCall methodCall = new MethodCall(methodName, ctx.getPackageAndClassName(), calledServiceType, calledServiceName,
+                            methodDeclaration.getNameAsString(), parameterContents, ctx.getMicroserviceName(), ctx.getClassName());
 
-                    methodCall = convertValidRestCalls(mce, methodCall);
+                    methodCall = convertValidRestCalls(ctx, mce, methodCall);
 
                     methodCalls.add(methodCall);
                 }
@@ -223,16 +314,18 @@ public class SourceToObjectUtils {
     /**
      * This method converts a valid MethodCall to an RestCall
      *
+     * @param ctx            the parse context of the file
      * @param methodCallExpr the MethodDeclaration associated with Method
      * @param methodCall     the MethodCall to be converted
      * @return returns methodCall if it is invalid, otherwise a new RestCall
      */
-    public static MethodCall convertValidRestCalls(MethodCallExpr methodCallExpr, MethodCall methodCall) {
+    public static MethodCall convertValidRestCalls(ParseContext ctx, MethodCallExpr methodCallExpr, MethodCall methodCall) {
         if ((!RestCallTemplate.REST_OBJECTS.contains(methodCall.getObjectType()) || !RestCallTemplate.REST_METHODS.contains(methodCallExpr.getNameAsString()))) {
             return methodCall;
         }
 
-        RestCallTemplate restCallTemplate = new RestCallTemplate(methodCallExpr,methodCall, cu);
+        RestCallTemplate restCallTemplate = ctx.getMetrics().time(ExtractionMetrics.Stage.REST_TEMPLATE,
+                () -> new RestCallTemplate(methodCallExpr, methodCall, ctx.getCu(), ctx.getDeclarations().getFields()));
 
         if (restCallTemplate.getUrl().isEmpty()) {
             return methodCall;
@@ -244,16 +337,17 @@ public class SourceToObjectUtils {
     /**
      * This method converts a list of FieldDeclarations to a set of Field models
      *
+     * @param ctx the parse context of the file
      * @param fieldDeclarations the field declarations to parse
      * @return the set of Field models
      */
-    private static Set<Field> parseFields(List<FieldDeclaration> fieldDeclarations) {
+    private static Set<Field> parseFields(ParseContext ctx, List<FieldDeclaration> fieldDeclarations) {
         Set<Field> javaFields = new HashSet<>();
 
         // loop through class declarations
         for (FieldDeclaration fd : fieldDeclarations) {
             for (VariableDeclarator variable : fd.getVariables()) {
-                javaFields.add(new Field(variable.getNameAsString(), packageAndClassName, variable.getTypeAsString()));
+                javaFields.add(new Field(variable.getNameAsString(), ctx.getPackageAndClassName(), variable.getTypeAsString()));
             }
 
         }
@@ -281,7 +375,7 @@ public class SourceToObjectUtils {
 
     }
 
-    private static String getCallingObjectType(MethodCallExpr mce) {
+    private static String getCallingObjectType(ParseContext ctx, MethodCallExpr mce) {
 
         Expression scope = mce.getScope().orElse(null);
 
@@ -289,20 +383,37 @@ public class SourceToObjectUtils {
             return "";
         }
 
+        // Answer scopes declared right there in the file without the symbol solver
+        Optional<String> lexicalType = LexicalTypeResolver.resolve(scope);
+        ctx.getMetrics().recordTypeInference(lexicalType.isPresent());
+        if (lexicalType.isPresent()) {
+            return lexicalType.get();
+        }
+
+        if (!ctx.isTypeResolution()) {
+            return "";
+        }
+
+        ParseBudget.check();
+        long start = System.nanoTime();
         try {
             // Resolve the type of the object
-            var resolvedType = JavaParserFacade.get(combinedTypeSolver).getType(scope);
+            var resolvedType = JavaParserFacade.get(ctx.getTypeSolver()).getType(scope);
             List<String> parts = List.of(((ReferenceTypeImpl) resolvedType).getQualifiedName().split("\\."));
             if(parts.isEmpty()) {
                 return "";
             }
 
             return parts.get(parts.size() - 1);
+        } catch (ParseBudget.ExceededException e) {
+            throw e;
         } catch (Exception e) {
             if(e instanceof UnsolvedSymbolException && ((UnsolvedSymbolException) e).getName() != null) {
                 return ((UnsolvedSymbolException) e).getName();
             }
             return "";
+        } finally {
+            ctx.getMetrics().record(ExtractionMetrics.Stage.SYMBOL_RESOLUTION, System.nanoTime() - start);
         }
     }
 
@@ -310,21 +421,23 @@ public class SourceToObjectUtils {
     /**
      * This method parses a list of annotation expressions and returns a set of Annotation models
      *
+     * @param ctx the parse context of the file
      * @param annotationExprs the annotation expressions to parse
      * @return the Set of Annotation models
      */
-    private static Set<Annotation> parseAnnotations(Iterable<AnnotationExpr> annotationExprs) {
+    private static Set<Annotation> parseAnnotations(ParseContext ctx, Iterable<AnnotationExpr> annotationExprs) {
         Set<Annotation> annotations = new HashSet<>();
 
         for (AnnotationExpr ae : annotationExprs) {
-            annotations.add(new Annotation(ae, packageAndClassName));
+            annotations.add(new Annotation(ae, ctx.getPackageAndClassName()));
         }
 
         return annotations;
     }
 
     /**
-     * This method searches a list of Annotation expressions and returns a ClassRole found
+     * This method searches a list of Annotation expressions and returns a ClassRole found,
+     * annotations added here must also be added to {@link StereotypeFilter}
      *
      * @param annotations the list of annotations to search
      * @return the ClassRole determined
@@ -371,10 +484,12 @@ public class SourceToObjectUtils {
      * @param classAnnotations
      * @return
      */
-    private static JClass handleFeignClient(AnnotationExpr requestMapping, Set<AnnotationExpr> classAnnotations) {
+    private static JClass handleFeignClient(ParseContext ctx, AnnotationExpr requestMapping, Set<AnnotationExpr> classAnnotations) {
+        DeclarationCollector declarations = ctx.getDeclarations();
+        String packageAndClassName = ctx.getPackageAndClassName();
 
         // Parse the methods
-        Set<Method> methods = parseMethods(cu.findAll(MethodDeclaration.class), requestMapping);
+        Set<Method> methods = parseMethods(ctx, declarations.getMethods(), requestMapping);
 
         // New methods for conversion
         Set<Method> newMethods = new HashSet<>();
@@ -418,15 +533,15 @@ public class SourceToObjectUtils {
 
         // Build the JClass
         return new JClass(
-                className,
-                path,
-                packageName,
+                ctx.getClassName(),
+                ctx.getPath(),
+                ctx.getPackageName(),
                 ClassRole.FEIGN_CLIENT,
                 newMethods,
-                parseFields(cu.findAll(FieldDeclaration.class)),
-                parseAnnotations(classAnnotations),
+                parseFields(ctx, declarations.getFields()),
+                parseAnnotations(ctx, classAnnotations),
                 newRestCalls,
-                cu.findAll(ClassOrInterfaceDeclaration.class).get(0).getImplementedTypes().stream().map(NodeWithSimpleName::getNameAsString).collect(Collectors.toSet()));
+                declarations.getImplementedTypes(ctx.getClassName()));
     }
 
     public static ConfigFile parseConfigurationFile(File file, Config config) {
@@ -443,17 +558,26 @@ public class SourceToObjectUtils {
         }
     }
 
-    private static Set<AnnotationExpr> filterClassAnnotations() {
-        Set<AnnotationExpr> classAnnotations = new HashSet<>();
-        for (AnnotationExpr ae : cu.findAll(AnnotationExpr.class)) {
-            if (ae.getParentNode().isPresent()) {
-                Node n = ae.getParentNode().get();
-                if (n instanceof ClassOrInterfaceDeclaration) {
-                    classAnnotations.add(ae);
-                }
-            }
+    /**
+     * This method parses the content of a configuration file
+     *
+     * @param path the git path of the file
+     * @param content the content of the file
+     * @return the ConfigFile object representing the file or null if it is not a configuration file
+     */
+    public static ConfigFile parseConfigurationFile(String path, byte[] content) {
+        String fileName = new File(path).getName();
+        if(fileName.endsWith(".yml")) {
+            return NonJsonReadWriteUtils.readFromYaml(path, content);
+        } else if(fileName.equals("DockerFile")) {
+            return NonJsonReadWriteUtils.readFromDocker(path, content);
+        } else if(fileName.equals("pom.xml")) {
+            return NonJsonReadWriteUtils.readFromPom(path, content);
+        } else if (fileName.equals("build.gradle")){
+            return NonJsonReadWriteUtils.readFromGradle(path, content);
+        } else {
+            return null;
         }
-        return classAnnotations;
     }
 
     /**
@@ -465,10 +589,11 @@ public class SourceToObjectUtils {
      * @param classAnnotations
      * @return
      */
-    private static JClass handleRepositoryRestResource(AnnotationExpr requestMapping, Set<AnnotationExpr> classAnnotations) {
+    private static JClass handleRepositoryRestResource(ParseContext ctx, AnnotationExpr requestMapping, Set<AnnotationExpr> classAnnotations) {
+        DeclarationCollector declarations = ctx.getDeclarations();
 
         // Parse the methods
-        Set<Method> methods = parseMethods(cu.findAll(MethodDeclaration.class), requestMapping);
+        Set<Method> methods = parseMethods(ctx, declarations.getMethods(), requestMapping);
 
         // New methods for conversion
         Set<Method> newEndpoints = new HashSet<>();
@@ -476,7 +601,7 @@ public class SourceToObjectUtils {
         List<MethodCall> newRestCalls = new ArrayList<>();
 
         // Arbitrary preURL naming scheme if not defined in the annotation
-        String preURL = "/" + className.toLowerCase().replace("repository", "") + "s";
+        String preURL = "/" + ctx.getClassName().toLowerCase().replace("repository", "") + "s";
 
         for(AnnotationExpr annotation : classAnnotations) {
             if(annotation.getNameAsString().equals("RepositoryRestResource")) {
@@ -534,42 +659,51 @@ public class SourceToObjectUtils {
 
         // Build the JClass
         return new JClass(
-                className,
-                path,
-                packageName,
+                ctx.getClassName(),
+                ctx.getPath(),
+                ctx.getPackageName(),
                 ClassRole.REP_REST_RSC,
                 newEndpoints,
-                parseFields(cu.findAll(FieldDeclaration.class)),
-                parseAnnotations(classAnnotations),
+                parseFields(ctx, declarations.getFields()),
+                parseAnnotations(ctx, classAnnotations),
                 newRestCalls,
-                cu.findAll(ClassOrInterfaceDeclaration.class).get(0).getImplementedTypes().stream().map(NodeWithSimpleName::getNameAsString).collect(Collectors.toSet()));
+                declarations.getImplementedTypes(ctx.getClassName()));
     }
 
-    private static JClass handleJS(String filePath) {
-        JClass jClass = new JClass(filePath, filePath, "", ClassRole.FEIGN_CLIENT, new HashSet<>(), new HashSet<>(), new HashSet<>(), new ArrayList<>(), new HashSet<>());
-        try {
-            Set<RestCall> restCalls = new HashSet<>();
-            // Command to run Node.js script
-            ProcessBuilder processBuilder = new ProcessBuilder("node", "scripts/parser.js");
-            Process process = processBuilder.start();
-
-            // Capture the output
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] split = line.split(";");
-                restCalls.add(new RestCall(split[0], split[1], split[2], split[3], split[4], split[5], split[6], split[7]));
-                System.out.println("Node.js Output: " + line);
-            }
+    /**
+     * This method converts the REST calls a Node.js worker extracted from a JavaScript file
+     * into a JClass, the file is modeled as a client of the endpoints it calls
+     *
+     * @param path the git path of the file
+     * @param restCalls the REST call records of the file, see scripts/worker.js
+     * @param microserviceName the name of the microservice the file belongs to
+     * @return the JClass of the file or null if it makes no REST calls
+     */
+    public static JClass parseJavaScript(String path, JsonArray restCalls, String microserviceName) {
+        if (restCalls == null || restCalls.size() == 0) {
+            return null;
+        }
 
-            // Wait for the Node.js process to complete
-            int exitCode = process.waitFor();
-            System.out.println("Node.js process exited with code: " + exitCode);
-        } catch (Exception e) {
-            System.err.println(e);
-            System.exit(1);
+        String fileName = new File(path).getName();
+        String className = fileName.substring(0, fileName.length() - ".js".length());
+
+        List<MethodCall> methodCalls = new ArrayList<>();
+        for (JsonElement element : restCalls) {
+            JsonObject restCall = element.getAsJsonObject();
+            MethodCall methodCall = new MethodCall(restCall.get("name").getAsString(), className,
+                    restCall.get("objectType").getAsString(), restCall.get("objectName").getAsString(),
+                    restCall.get("calledFrom").getAsString(), restCall.get("parameterContents").getAsString(), microserviceName, className);
+            methodCalls.add(new RestCall(methodCall, restCall.get("url").getAsString(), parseHttpMethod(restCall.get("httpMethod").getAsString())));
         }
 
-        return jClass;
+        return new JClass(className, path, "", ClassRole.FEIGN_CLIENT, new HashSet<>(), new HashSet<>(), new HashSet<>(), methodCalls, new HashSet<>());
+    }
+
+    private static HttpMethod parseHttpMethod(String httpMethod) {
+        try {
+            return HttpMethod.valueOf(httpMethod);
+        } catch (IllegalArgumentException e) {
+            return HttpMethod.NONE;
+        }
     }
 }
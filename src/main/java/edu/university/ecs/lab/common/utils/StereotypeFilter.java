@@ -0,0 +1,89 @@
+package edu.university.ecs.lab.common.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Lexical pre-filter deciding from the raw bytes of a Java source file whether it can declare
+ * a class with one of the stereotype annotations recognized by {@link SourceToObjectUtils},
+ * so files that would be filtered anyway are not fully parsed.
+ * <p>
+ * The filter is conservative, a file is only rejected if none of the annotation names appear
+ * anywhere in it, including comments and strings. Files containing unicode escapes are always
+ * accepted since an escaped name cannot be found lexically.
+ */
+public class StereotypeFilter {
+    /**
+     * Names searched for, each covering the class role annotations containing it. These must
+     * be kept in line with the annotations recognized when determining the class role.
+     * <ul>
+     *     <li>Controller - RestController, Controller</li>
+     *     <li>Service - Service</li>
+     *     <li>Repository - Repository, RepositoryRestResource</li>
+     *     <li>Entity - Entity</li>
+     *     <li>Embeddable - Embeddable</li>
+     *     <li>FeignClient - FeignClient</li>
+     * </ul>
+     */
+    private static final List<byte[]> STEREOTYPE_NAMES = List.of(
+            "Controller".getBytes(StandardCharsets.US_ASCII),
+            "Service".getBytes(StandardCharsets.US_ASCII),
+            "Repository".getBytes(StandardCharsets.US_ASCII),
+            "Entity".getBytes(StandardCharsets.US_ASCII),
+            "Embeddable".getBytes(StandardCharsets.US_ASCII),
+            "FeignClient".getBytes(StandardCharsets.US_ASCII));
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private StereotypeFilter() {
+    }
+
+    /**
+     * This method scans the content of a source file for stereotype annotation names
+     *
+     * @param content the raw content of the source file
+     * @return false if the file certainly declares no stereotype class, true otherwise
+     */
+    public static boolean mayDeclareStereotype(byte[] content) {
+        for (int i = 0; i < content.length; i++) {
+            switch (content[i]) {
+                case '\\':
+                    // Unicode escapes may hide a name, never reject these files
+                    if (i + 1 < content.length && content[i + 1] == 'u') {
+                        return true;
+                    }
+                    break;
+                case 'C':
+                case 'S':
+                case 'R':
+                case 'E':
+                case 'F':
+                    for (byte[] name : STEREOTYPE_NAMES) {
+                        if (name[0] == content[i] && regionMatches(content, i, name)) {
+                            return true;
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean regionMatches(byte[] content, int offset, byte[] name) {
+        if (offset + name.length > content.length) {
+            return false;
+        }
+
+        for (int j = 1; j < name.length; j++) {
+            if (content[offset + j] != name[j]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
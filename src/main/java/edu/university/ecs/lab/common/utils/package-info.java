@@ -7,6 +7,24 @@
  * The main classes include:
  *     - {@link edu.university.ecs.lab.common.utils.FileUtils} - Manages file paths and conversions.
  *     - {@link edu.university.ecs.lab.common.utils.JsonReadWriteUtils} - Handles JSON serialization and deserialization.
+ *     - {@link edu.university.ecs.lab.common.utils.MicroserviceSystemWriter} - Streams a microservice system to JSON.
  *     - {@link edu.university.ecs.lab.common.utils.SourceToObjectUtils} - Parses Java source files into data models.
+ *     - {@link edu.university.ecs.lab.common.utils.ParseContext} - Holds the parse state of a single source file.
+ *     - {@link edu.university.ecs.lab.common.utils.DeclarationCollector} - Collects the declarations of a source file in one pass.
+ *     - {@link edu.university.ecs.lab.common.utils.LexicalTypeResolver} - Infers calling object types from visible declarations.
+ *     - {@link edu.university.ecs.lab.common.utils.ParseSession} - Holds the type solver shared by an extraction run.
+ *     - {@link edu.university.ecs.lab.common.utils.DeclarationIndex} - Indexes the type declarations of a commit by name.
+ *     - {@link edu.university.ecs.lab.common.utils.GitTreeTypeSolver} - Resolves types from a commit tree in the object database.
+ *     - {@link edu.university.ecs.lab.common.utils.MavenRepository} - Resolves library types from a local Maven repository.
+ *     - {@link edu.university.ecs.lab.common.utils.ParseCache} - Caches parsed files on disk by content.
+ *     - {@link edu.university.ecs.lab.common.utils.ExtractionMetrics} - Records the timings of an extraction run.
+ *     - {@link edu.university.ecs.lab.common.utils.StereotypeFilter} - Skips source files that declare no stereotype class.
+ *     - {@link edu.university.ecs.lab.common.utils.ParseScheduler} - Runs file parse tasks largest file first on a work-stealing pool.
+ *     - {@link edu.university.ecs.lab.common.utils.ParseBudget} - Bounds the time spent parsing a single file.
+ *     - {@link edu.university.ecs.lab.common.utils.Quarantine} - Persists the files that exceeded their parse budget.
+ *     - {@link edu.university.ecs.lab.common.utils.MicroserviceFilter} - Selects microservices by include and exclude globs.
+ *     - {@link edu.university.ecs.lab.common.utils.PathTrie} - Answers path nesting queries.
+ *     - {@link edu.university.ecs.lab.common.utils.NodeWorkerPool} - Extracts JavaScript REST calls on long-lived Node.js workers.
+ *     - {@link edu.university.ecs.lab.common.utils.JavaTokenizer} - Splits Java source into significant tokens and hashes them.
  */
 package edu.university.ecs.lab.common.utils;
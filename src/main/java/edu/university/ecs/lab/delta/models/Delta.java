@@ -17,7 +17,8 @@ import lombok.Data;
  * This class represents a single Delta change between two commits.
  * In the case of ChangeType.DELETE @see {@link ChangeType} the
  * classChange will respectively be null as the instance of this class
- * is no longer locally present for parsing at the new commit
+ * is no longer locally present for parsing at the new commit. In the
+ * case of ChangeType.RENAME only the path changes, so the data is empty
  */
 @Data
 @AllArgsConstructor
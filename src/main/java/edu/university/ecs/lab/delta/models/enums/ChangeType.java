@@ -8,7 +8,11 @@ import org.eclipse.jgit.diff.DiffEntry;
 public enum ChangeType {
     ADD,
     MODIFY,
-    DELETE;
+    DELETE,
+    /**
+     * A file moved to a new path with its content and file name unchanged, the file is not parsed again
+     */
+    RENAME;
 
     public static ChangeType fromDiffEntry(DiffEntry entry) {
         switch (entry.getChangeType()) {
@@ -18,8 +22,16 @@ public enum ChangeType {
                 return MODIFY;
             case DELETE:
                 return DELETE;
+            case RENAME:
+                // A renamed file with changed content is parsed again like a modified one, as is a file
+                // whose name changed since the class name is taken from the file name
+                return entry.getOldId().equals(entry.getNewId()) && getFileName(entry.getOldPath()).equals(getFileName(entry.getNewPath())) ? RENAME : MODIFY;
             default:
                 throw new IllegalArgumentException("Unknown change type: " + entry.getChangeType());
         }
     }
+
+    private static String getFileName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
 }
@@ -1,22 +1,47 @@
 package edu.university.ecs.lab.delta.services;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import edu.university.ecs.lab.common.config.Config;
 import edu.university.ecs.lab.common.config.ConfigUtil;
+import edu.university.ecs.lab.common.error.Error;
 import edu.university.ecs.lab.common.models.ir.ConfigFile;
 import edu.university.ecs.lab.common.models.ir.JClass;
 import edu.university.ecs.lab.common.services.GitService;
 import edu.university.ecs.lab.common.services.LoggerManager;
+import edu.university.ecs.lab.common.utils.DeclarationIndex;
+import edu.university.ecs.lab.common.utils.ExtractionMetrics;
 import edu.university.ecs.lab.common.utils.FileUtils;
 import edu.university.ecs.lab.common.utils.JsonReadWriteUtils;
+import edu.university.ecs.lab.common.utils.NodeWorkerPool;
+import edu.university.ecs.lab.common.utils.ParseCache;
+import edu.university.ecs.lab.common.utils.ParseScheduler;
+import edu.university.ecs.lab.common.utils.ParseSession;
 import edu.university.ecs.lab.common.utils.SourceToObjectUtils;
 import edu.university.ecs.lab.delta.models.Delta;
 import edu.university.ecs.lab.delta.models.SystemChange;
 import edu.university.ecs.lab.delta.models.enums.ChangeType;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * Service for extracting the differences between two commits of a repository.
@@ -60,6 +85,11 @@ public class DeltaExtractionService {
      */
     private String outputPath;
 
+    /**
+     * Persistent cache of parsed files, null if caching is not configured
+     */
+    private final ParseCache parseCache;
+
 
     /**
      * Constructor for the DeltaExtractionService
@@ -75,6 +105,7 @@ public class DeltaExtractionService {
         this.commitOld = commitOld;
         this.commitNew = commitNew;
         this.outputPath = outputPath.isEmpty() ? "./Delta.json" : outputPath;
+        this.parseCache = ParseCache.fromConfig(config);
     }
 
     /**
@@ -83,8 +114,21 @@ public class DeltaExtractionService {
     public void generateDelta() {
         List<DiffEntry> differences = null;
 
-        // Ensure we start at commitOld
-        gitService.resetLocal(commitOld);
+        // With worktrees configured the delta is parsed in a leased checkout of commitNew,
+        // the shared working tree is left alone so other deltas can be extracted at once
+        if (config.getWorktrees() > 0) {
+            differences = gitService.getDifferences(commitOld, commitNew);
+            try (GitService.Worktree worktree = gitService.leaseWorktree(commitNew)) {
+                processDelta(differences, worktree.getPath());
+            }
+            return;
+        }
+
+        // Ensure we start at commitOld, a sparse working tree is moved straight to commitNew
+        // as only the changed files it holds are written
+        if (!config.isSparseCheckout()) {
+            gitService.resetLocal(commitOld);
+        }
 
         // Get the differences between commits
         differences = gitService.getDifferences(commitOld, commitNew);
@@ -98,73 +142,216 @@ public class DeltaExtractionService {
     }
 
     /**
-     * Process differences between commits
+     * Process differences between commits, the changed files are parsed on the parse
+     * scheduler largest file first and the deltas are added in the order of the differences
      * 
      * @param diffEntries list of differences
      */
     public void processDelta(List<DiffEntry> diffEntries) {
+        processDelta(diffEntries, Paths.get(FileUtils.getRepositoryPath(config.getRepoName())));
+    }
+
+    /**
+     * Process differences between commits reading the changed files from a checkout of commitNew
+     *
+     * @param diffEntries list of differences
+     * @param workingTree the directory of the checkout
+     */
+    private void processDelta(List<DiffEntry> diffEntries, Path workingTree) {
         // Set up a new SystemChangeObject
         systemChange = new SystemChange();
         systemChange.setOldCommit(commitOld);
         systemChange.setNewCommit(commitNew);
-        JsonObject data = null;
-
 
-        // process each difference
-        for (DiffEntry entry : diffEntries) {
-            // Git path
-            String path = entry.getChangeType().equals(DiffEntry.ChangeType.ADD) ? entry.getNewPath() : entry.getOldPath();
-
-            // Special case for root pom
-            if(path.equals("pom.xml")) {
-                continue;
+        // Index the declarations of the new commit, updated from the index of the old commit when possible
+        DeclarationIndex declarationIndex = DeclarationIndex.forCommit(gitService, config.getRepoName(), commitOld, commitNew);
+
+        // One parse session for all changed files of the new commit
+        try (ParseSession session = new ParseSession(config, workingTree, declarationIndex, gitService::readBlob, new ExtractionMetrics(config.getSlowFileCount()));
+             ParseScheduler scheduler = new ParseScheduler(config.getExtractionThreads())) {
+
+            List<Delta> deltas = new ArrayList<>();
+            List<ParseScheduler.Task<JsonObject>> tasks = new ArrayList<>();
+            Map<String, ObjectId> javaScriptSources = new LinkedHashMap<>();
+            Map<String, JsonArray> javaScriptRestCalls = new HashMap<>();
+            Map<String, String> javaScriptMicroservices = new HashMap<>();
+
+            // process each difference
+            for (DiffEntry entry : diffEntries) {
+                for (Delta delta : toDeltas(entry)) {
+                    // Git path
+                    String path = (delta.getChangeType() == ChangeType.ADD ? delta.getNewPath() : delta.getOldPath()).substring(1);
+
+                    // Special case for root pom
+                    if(path.equals("pom.xml")) {
+                        continue;
+                    }
+
+                    // JavaScript files are extracted with the IR when Node.js workers are configured, so their changes are too
+                    boolean javaScript = isJavaScriptFile(path);
+
+                    // Guard condition, skip invalid files
+                    if(!javaScript && !FileUtils.isValidFile(path)) {
+                       continue;
+                    }
+
+                    changeType = delta.getChangeType();
+
+                    // The REST calls of JavaScript files are read from the new blob, a sparse checkout does not hold them
+                    if (javaScript) {
+                        deltas.add(delta);
+                        String newPath = delta.getNewPath();
+                        if (changeType == ChangeType.DELETE) {
+                            tasks.add(new ParseScheduler.Task<>(0, this::delete));
+                        } else {
+                            javaScriptSources.put(newPath, entry.getNewId().toObjectId());
+                            tasks.add(new ParseScheduler.Task<>(0, () -> addJavaScript(newPath, javaScriptRestCalls.get(newPath), javaScriptMicroservices.get(newPath))));
+                        }
+                        continue;
+                    }
+
+                    // The data is filled in once the file is parsed
+                    deltas.add(delta);
+                    // A renamed file keeps its parsed content, only its path changes
+                    String parsedPath = changeType == ChangeType.DELETE || changeType == ChangeType.RENAME ? null : delta.getNewPath();
+                    File file = parsedPath == null ? null : workingTree.resolve(parsedPath.substring(1)).toFile();
+                    long size = file == null ? 0 : file.length();
+                    tasks.add(new ParseScheduler.Task<>(size, () -> file == null ? delete() : add(parsedPath, file, session)));
+                }
             }
 
-            // Guard condition, skip invalid files
-            if(!FileUtils.isValidFile(path)) {
-               continue;
+            javaScriptRestCalls.putAll(extractJavaScript(javaScriptSources));
+            javaScriptMicroservices.putAll(findMicroserviceNames(javaScriptSources.keySet()));
+            List<Future<JsonObject>> futures = scheduler.submitLargestFirst(tasks);
+            for (int i = 0; i < deltas.size(); i++) {
+                deltas.get(i).setData(futures.get(i).get());
+                systemChange.getChanges().add(deltas.get(i));
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Error.reportAndExit(Error.UNKNOWN_ERROR, Optional.of(e));
+        } catch (ExecutionException e) {
+            Error.reportAndExit(Error.UNKNOWN_ERROR, Optional.of(e));
+        } finally {
+            // The parse threads are done, release the blob readers they opened
+            gitService.close();
+        }
 
-            // Setup oldPath, newPath for Delta
-            String oldPath = "";
-            String newPath = "";
+        // Output the system changes
+        JsonReadWriteUtils.writeToJSON(outputPath, systemChange);
 
-            if (DiffEntry.ChangeType.DELETE.equals(entry.getChangeType())) {
-                oldPath = FileUtils.GIT_SEPARATOR + entry.getOldPath();
-                newPath = DEV_NULL;
+        // Report
+        LoggerManager.info(() -> "Delta changes extracted between " + commitOld + " -> " + commitNew);
 
-            } else if (DiffEntry.ChangeType.ADD.equals(entry.getChangeType())) {
-                oldPath = DEV_NULL;
-                newPath = FileUtils.GIT_SEPARATOR + entry.getNewPath();
+    }
 
-            } else {
-                oldPath = FileUtils.GIT_SEPARATOR + entry.getOldPath();
-                newPath = FileUtils.GIT_SEPARATOR + entry.getNewPath();
+    /**
+     * This method converts a difference into the deltas of its files, without data. Only Java
+     * files moved within their module under the same file name are renamed in place, the renames
+     * and copies of other files are split into a deletion and an addition as configuration files
+     * are cheap to parse again and a moved build file changes the microservices of the system.
+     *
+     * @param entry the difference
+     * @return the deltas of the difference
+     */
+    private static List<Delta> toDeltas(DiffEntry entry) {
+        String oldPath = FileUtils.GIT_SEPARATOR + entry.getOldPath();
+        String newPath = FileUtils.GIT_SEPARATOR + entry.getNewPath();
+
+        switch (entry.getChangeType()) {
+            case ADD:
+            case COPY:
+                return List.of(new Delta(DEV_NULL, newPath, ChangeType.ADD, null));
+            case DELETE:
+                return List.of(new Delta(oldPath, DEV_NULL, ChangeType.DELETE, null));
+            case RENAME:
+                if (!isJavaFile(entry.getOldPath()) || !isJavaFile(entry.getNewPath())) {
+                    return List.of(new Delta(oldPath, DEV_NULL, ChangeType.DELETE, null), new Delta(DEV_NULL, newPath, ChangeType.ADD, null));
+                }
+
+                // A class moved to another module resolves its types against that module, so it is parsed again
+                if (!Objects.equals(ParseSession.getModule(entry.getOldPath()), ParseSession.getModule(entry.getNewPath()))) {
+                    return List.of(new Delta(oldPath, newPath, ChangeType.MODIFY, null));
+                }
+                break;
+            default:
+                break;
+        }
 
-            }
+        return List.of(new Delta(oldPath, newPath, ChangeType.fromDiffEntry(entry), null));
+    }
 
-            changeType = ChangeType.fromDiffEntry(entry);
+    private static boolean isJavaFile(String path) {
+        return FileUtils.isValidFile(path) && !FileUtils.isConfigurationFile(path);
+    }
 
-            switch(changeType) {
-                case ADD:
-                    data = add(newPath);
-                    break;
-                case MODIFY:
-                    data = add(oldPath);
-                    break;
-                case DELETE:
-                    data = delete();
-            }
+    private boolean isJavaScriptFile(String path) {
+        return config.getJavaScriptWorkers() > 0 && FileUtils.isJavaScriptFile(path, config.getPruneDirectories());
+    }
 
-            systemChange.getChanges().add(new Delta(oldPath, newPath, changeType, data));
+    /**
+     * This method extracts the REST calls of the changed JavaScript files with a pool of Node.js
+     * workers, started only if a JavaScript file changed
+     *
+     * @param sources the blob of each changed JavaScript file by git path
+     * @return the REST call records of each extracted file by git path
+     */
+    private Map<String, JsonArray> extractJavaScript(Map<String, ObjectId> sources) {
+        if (sources.isEmpty()) {
+            return Collections.emptyMap();
         }
 
-        // Output the system changes
-        JsonReadWriteUtils.writeToJSON(outputPath, systemChange);
+        Map<String, String> contents = new LinkedHashMap<>();
+        sources.forEach((path, blobId) -> contents.put(path, new String(gitService.readBlob(blobId), StandardCharsets.UTF_8)));
 
-        // Report
-        LoggerManager.info(() -> "Delta changes extracted between " + commitOld + " -> " + commitNew);
+        try (NodeWorkerPool pool = new NodeWorkerPool(config.getJavaScriptWorkers())) {
+            return pool.parse(contents);
+        }
+    }
+
+    /**
+     * This method finds the microservice each changed JavaScript file belongs to in the new
+     * commit, the innermost directory above the file holding a pom.xml or build.gradle file
+     *
+     * @param paths the git paths of the changed files
+     * @return the name of the microservice of each file by git path, empty if the file is
+     * outside any microservice
+     */
+    private Map<String, String> findMicroserviceNames(Collection<String> paths) {
+        if (paths.isEmpty()) {
+            return Collections.emptyMap();
+        }
 
+        Map<String, ObjectId> treeFiles = gitService.getTreeFiles(commitNew);
+        Map<String, String> microserviceNames = new HashMap<>();
+        for (String path : paths) {
+            String directory = path.substring(1);
+            String microserviceName = "";
+            while (directory.contains(FileUtils.GIT_SEPARATOR)) {
+                directory = directory.substring(0, directory.lastIndexOf(FileUtils.GIT_SEPARATOR));
+                if (treeFiles.containsKey(directory + FileUtils.GIT_SEPARATOR + "pom.xml") || treeFiles.containsKey(directory + FileUtils.GIT_SEPARATOR + "build.gradle")) {
+                    microserviceName = directory.substring(directory.lastIndexOf(FileUtils.GIT_SEPARATOR) + 1);
+                    break;
+                }
+            }
+            microserviceNames.put(path, microserviceName);
+        }
+
+        return microserviceNames;
+    }
+
+    /**
+     * This method converts the REST calls of a changed JavaScript file into the data of its
+     * change, a file making no REST calls is not part of the IR and has no data
+     *
+     * @param newPath git path of the new file
+     * @param restCalls the REST call records of the file
+     * @param microserviceName the name of the microservice the file belongs to
+     * @return JsonObject of data of the new file
+     */
+    private JsonObject addJavaScript(String newPath, JsonArray restCalls, String microserviceName) {
+        JClass jClass = SourceToObjectUtils.parseJavaScript(newPath, restCalls, microserviceName);
+        return jClass == null ? new JsonObject() : jClass.toJsonObject();
     }
 
     /**
@@ -173,12 +360,15 @@ public class DeltaExtractionService {
      * parsing fails (returns null).
      *
      * @param newPath git path of new file
+     * @param file the new file in the checkout of the new commit
+     * @param session the parse session of the new commit
      * @return JsonObject of data of the new file
      */
-    private JsonObject add(String newPath) {
+    private JsonObject add(String newPath, File file, ParseSession session) {
         // Check if it is a configuration file
         if(FileUtils.isConfigurationFile(newPath)) {
-            ConfigFile configFile = SourceToObjectUtils.parseConfigurationFile(new File(FileUtils.gitPathToLocalPath(newPath, config.getRepoName())), config);
+            byte[] content = readFile(file);
+            ConfigFile configFile = content == null ? null : SourceToObjectUtils.parseConfigurationFile(newPath, content);
             if(configFile == null || configFile.getData() == null) {
                 return new JsonObject();
             } else {
@@ -187,7 +377,11 @@ public class DeltaExtractionService {
 
         // Else it is a Java file
         } else {
-            JClass jClass = SourceToObjectUtils.parseClass(new File(FileUtils.gitPathToLocalPath(newPath, config.getRepoName())), config, "");
+            Supplier<JClass> parser = () -> {
+                byte[] content = readFile(file);
+                return content == null ? null : SourceToObjectUtils.parseClass(newPath, content, "", session);
+            };
+            JClass jClass = parseCache == null ? parser.get() : (JClass) parseCache.getOrParse(file, newPath, "", session.getResolutionKey(newPath), parser::get);
             if(jClass == null) {
                 return new JsonObject();
             } else {
@@ -197,6 +391,21 @@ public class DeltaExtractionService {
 
     }
 
+    /**
+     * This method reads a file of the checkout
+     *
+     * @param file the file to read
+     * @return the content of the file or null if it cannot be read
+     */
+    private static byte[] readFile(File file) {
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            LoggerManager.warn(() -> "Failed to read " + file.getPath());
+            return null;
+        }
+    }
+
     /**
      * This method returns a blank JsonObject() as there is no data to parse
      *
@@ -7,6 +7,7 @@ import edu.university.ecs.lab.common.models.ir.MicroserviceSystem;
 import edu.university.ecs.lab.common.models.sdg.MethodDependencyGraph;
 import edu.university.ecs.lab.common.models.sdg.ServiceDependencyGraph;
 import edu.university.ecs.lab.common.services.GitService;
+import edu.university.ecs.lab.common.services.LoggerManager;
 import edu.university.ecs.lab.common.utils.FileUtils;
 import edu.university.ecs.lab.common.utils.JsonReadWriteUtils;
 import edu.university.ecs.lab.delta.models.SystemChange;
@@ -26,6 +27,7 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -97,14 +99,46 @@ public class DetectionService {
      */
     public void runDetection() {
 
-        // Get list of commits
-        Iterable<RevCommit> iterable = gitService.getLog();
-        List<RevCommit> commits = iterableToList(iterable);
+        // Stream the commits changing valid files, oldest first
+        try (RevWalk commits = gitService.walkCommits(config.getFromCommit(), config.getToCommit(), config.isFirstParent())) {
+            Iterator<RevCommit> iterator = commits.iterator();
+
+            // Start at the configured commit, otherwise at the first commit changing a valid file
+            String commitIdOld = Objects.nonNull(config.getFromCommit()) ? gitService.resolveCommit(config.getFromCommit())
+                    : iterator.hasNext() ? iterator.next().getName() : null;
+            if (Objects.isNull(commitIdOld)) {
+                LoggerManager.warn(() -> "No commits of repository " + config.getRepoName() + " change a valid file");
+                return;
+            }
+
+            detectHistory(commitIdOld, iterator);
+        }
+
+        // At the end we write the workbook to file
+        try (FileOutputStream fileOut = new FileOutputStream(String.format("./output/%s/output-%s.xlsx",config.getRepoName(), config.getSystemName()))) {
+            workbook.write(fileOut);
+//            System.out.printf("Excel file created: AntiPatterns_%s.xlsx%n", config.getSystemName());
+            workbook.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+
+        }
+
+    }
+
+    /**
+     * Method to detect antipatterns and metrics of each commit of the history, the IR of each
+     * commit is merged from the IR of the commit before and the delta between them
+     *
+     * @param firstCommit commit id of the first commit
+     * @param commits the following commits, oldest first
+     */
+    private void detectHistory(String firstCommit, Iterator<RevCommit> commits) {
 
         // Generate the initial IR
-        irExtractionService = new IRExtractionService(configPath, Optional.of(commits.get(0).toString().split(" ")[1]));
-        String firstCommit = commits.get(0).getName().substring(0, 4);
-        irExtractionService.generateIR(BASE_IR_PATH + "1_" + firstCommit + ".json");
+        irExtractionService = new IRExtractionService(configPath, Optional.of(firstCommit));
+        irExtractionService.generateIR(BASE_IR_PATH + "1_" + firstCommit.substring(0, 4) + ".json");
 
         // Setup sheet and headers
         sheet = workbook.createSheet(config.getSystemName());
@@ -113,18 +147,20 @@ public class DetectionService {
         // Write the initial row as empty
         writeEmptyRow(1);
 
-        // Starting at the first commit until commits - 1
-        for (int i = 0; i < commits.size(); i++) {
+        // Starting at the first commit until the last one
+        String commitIdNew = firstCommit;
+        for (int i = 0; Objects.nonNull(commitIdNew); i++) {
             MicroserviceSystem newSystem = null;
             SystemChange systemChange = null;
 
             // Old commit = curr, new commit = next
-            String commitIdOld = commits.get(i).toString().split(" ")[1];
+            String commitIdOld = commitIdNew;
+            commitIdNew = commits.hasNext() ? commits.next().getName() : null;
 
             int currIndex = i + 1, nextIndex = i + 2;
 
             // Fill the next row as empty for future use
-            if(i < commits.size() - 1) {
+            if(Objects.nonNull(commitIdNew)) {
                 writeEmptyRow(nextIndex);
             }
 
@@ -140,8 +176,7 @@ public class DetectionService {
             MicroserviceSystem oldSystem = JsonReadWriteUtils.readFromJSON(oldIRPath, MicroserviceSystem.class);
 
             // Extract changes from one commit to the other
-            if(i < commits.size() - 1) {
-                String commitIdNew = commits.get(i + 1).toString().split(" ")[1];
+            if(Objects.nonNull(commitIdNew)) {
                 String newIRPath = BASE_IR_PATH + (i+2) + "_" + commitIdNew.substring(0, 4) +".json";
                 String deltaPath = BASE_DELTA_PATH + (i+1) + "_" + commitIdOld.substring(0, 4) + "_" + commitIdNew.substring(0, 4) + ".json";
 
@@ -172,7 +207,7 @@ public class DetectionService {
             }
 
             // For simplicity we will skip rules on the last iteration since there is no newSystem
-//            if(i < commits.size() - 1) {
+//            if(Objects.nonNull(commitIdNew)) {
 //                arDetectionService = new ARDetectionService(systemChange, oldSystem, newSystem);
 //                rules = arDetectionService.scanUseCases();
 //
@@ -188,17 +223,6 @@ public class DetectionService {
             // }
         }
 
-        // At the end we write the workbook to file
-        try (FileOutputStream fileOut = new FileOutputStream(String.format("./output/%s/output-%s.xlsx",config.getRepoName(), config.getSystemName()))) {
-            workbook.write(fileOut);
-//            System.out.printf("Excel file created: AntiPatterns_%s.xlsx%n", config.getSystemName());
-            workbook.close();
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.exit(1);
-
-        }
-
     }
 
     /**
@@ -224,23 +248,6 @@ public class DetectionService {
         }
     }
 
-    /**
-     * Convert iterable to a list
-     * 
-     * @param iterable iterable object to convert
-     * @return iterable object converted to a list
-     */
-    private List<RevCommit> iterableToList(Iterable<RevCommit> iterable) {
-        Iterator<RevCommit> iterator = iterable.iterator();
-        List<RevCommit> list = new LinkedList<>();
-        while (iterator.hasNext()) {
-            list.add(iterator.next());
-        }
-        Collections.reverse(list);
-
-        return list;
-    }
-
     /**
      * Detect antipatterns in the given microservice
      * 
@@ -7,22 +7,47 @@ import edu.university.ecs.lab.common.models.ir.ConfigFile;
 import edu.university.ecs.lab.common.models.ir.JClass;
 import edu.university.ecs.lab.common.models.ir.Microservice;
 import edu.university.ecs.lab.common.models.ir.MicroserviceSystem;
+import edu.university.ecs.lab.common.models.ir.ProjectFile;
 import edu.university.ecs.lab.common.services.GitService;
 import edu.university.ecs.lab.common.services.LoggerManager;
+import edu.university.ecs.lab.common.utils.DeclarationIndex;
+import edu.university.ecs.lab.common.utils.ExtractionMetrics;
 import edu.university.ecs.lab.common.utils.FileUtils;
 import edu.university.ecs.lab.common.utils.JsonReadWriteUtils;
+import edu.university.ecs.lab.common.utils.MicroserviceFilter;
+import edu.university.ecs.lab.common.utils.MicroserviceSystemWriter;
+import edu.university.ecs.lab.common.utils.NodeWorkerPool;
+import edu.university.ecs.lab.common.utils.ParseCache;
+import edu.university.ecs.lab.common.utils.ParseScheduler;
+import edu.university.ecs.lab.common.utils.ParseSession;
+import edu.university.ecs.lab.common.utils.PathTrie;
 import edu.university.ecs.lab.common.utils.SourceToObjectUtils;
+import com.google.gson.JsonArray;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import lombok.extern.java.Log;
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
 
 
 /**
@@ -45,6 +70,27 @@ public class IRExtractionService {
      */
     private final String commitID;
 
+    /**
+     * Persistent cache of parsed files, null if caching is not configured
+     */
+    private final ParseCache parseCache;
+
+    /**
+     * Timings of the extraction run
+     */
+    private final ExtractionMetrics metrics;
+
+    /**
+     * Selects the microservices to extract
+     */
+    private final MicroserviceFilter microserviceFilter;
+
+    /**
+     * Microservices carried over from a baseline IR by path, extracted microservices at these
+     * paths are taken from the baseline instead of being parsed again
+     */
+    private Map<String, Microservice> unchangedMicroservices = Collections.emptyMap();
+
     /**
      * This constructor initializes a new IRExtractionService and instantiates a
      * GitService object for repository manipulation
@@ -54,16 +100,23 @@ public class IRExtractionService {
      * @see GitService
      */
     public IRExtractionService(String configPath, Optional<String> commitID) {
+        config = ConfigUtil.readConfig(configPath);
         gitService = new GitService(configPath);
 
         if(commitID.isPresent()) {
             this.commitID = commitID.get();
-            gitService.resetLocal(this.commitID);
+
+            // The working tree is left untouched when reading from the object database
+            if (!config.isReadFromObjectDatabase()) {
+                gitService.resetLocal(this.commitID);
+            }
         } else {
             this.commitID = gitService.getHeadCommit();
         }
 
-        config = ConfigUtil.readConfig(configPath);
+        parseCache = ParseCache.fromConfig(config);
+        metrics = new ExtractionMetrics(config.getSlowFileCount());
+        microserviceFilter = MicroserviceFilter.fromConfig(config);
     }
 
     /**
@@ -72,16 +125,73 @@ public class IRExtractionService {
      * @param fileName name of output file for IR extraction
      */
     public void generateIR(String fileName) {
-        // Clone remote repositories and scan through each cloned repo to extract endpoints
-        Set<Microservice> microservices = cloneAndScanServices();
+        long start = System.nanoTime();
+
+        //  Write each service and endpoints to IR as soon as it is extracted
+        try (MicroserviceSystemWriter writer = new MicroserviceSystemWriter(fileName, config.getSystemName(), commitID)) {
+            // Clone remote repositories and scan through each cloned repo to extract endpoints
+            cloneAndScanServices(microservice -> metrics.time(ExtractionMetrics.Stage.WRITE, () -> writer.writeMicroservice(microservice)));
+
+            if (writer.getMicroserviceCount() == 0) {
+                LoggerManager.info(() -> "No microservices were found during IR Extraction!");
+            }
+        } finally {
+            // The parse threads are done, release the blob readers they opened
+            gitService.close();
+        }
+
+        metrics.record(ExtractionMetrics.Stage.TOTAL, System.nanoTime() - start);
+        LoggerManager.info(() -> String.format("Inferred %.1f%% of calling object types without the symbol solver", metrics.getLexicalHitRate() * 100));
+        LoggerManager.info(() -> "Successfully extracted IR at " + commitID + " in " + metrics.getStageNanos(ExtractionMetrics.Stage.TOTAL) / 1_000_000 + " ms");
+
+        if (config.isExtractionMetrics()) {
+            JsonReadWriteUtils.writeToJSON(ExtractionMetrics.sidecarPath(fileName), metrics.toJsonObject());
+        }
+    }
+
+    /**
+     * Generates IR by extracting only the microservices changed since a baseline IR. The
+     * microservices whose directories have no differences between the commit of the baseline
+     * and the commit of this extraction are carried over from the baseline unchanged, new and
+     * changed microservices are extracted.
+     * <p>
+     * A carried over microservice is not parsed again, so it does not pick up changes to the
+     * types it resolves from other modules, such as a shared DTO whose fields changed outside
+     * its directory. Extract the full IR when such types change.
+     *
+     * @param fileName name of output file for IR extraction
+     * @param baselineFileName name of the baseline IR file
+     */
+    public void generateIR(String fileName, String baselineFileName) {
+        MicroserviceSystem baseline = JsonReadWriteUtils.readFromJSON(baselineFileName, MicroserviceSystem.class);
+        List<DiffEntry> differences = gitService.getDifferences(baseline.getCommitID(), commitID);
+
+        // Git paths of every changed file, before and after the change
+        PathTrie<Boolean> changedFiles = new PathTrie<>();
+        for (DiffEntry entry : differences) {
+            for (String path : List.of(entry.getOldPath(), entry.getNewPath())) {
+                if (!path.equals(DiffEntry.DEV_NULL)) {
+                    changedFiles.put(path, true);
+                }
+            }
+        }
 
-        if (microservices.isEmpty()) {
-            LoggerManager.info(() -> "No microservices were found during IR Extraction!");
+        unchangedMicroservices = new HashMap<>();
+        for (Microservice microservice : baseline.getMicroservices()) {
+            String directory = microservice.getPath().startsWith(FileUtils.GIT_SEPARATOR) ? microservice.getPath().substring(1) : microservice.getPath();
+            if (!changedFiles.hasDescendant(directory)) {
+                unchangedMicroservices.put(microservice.getPath(), microservice);
+            }
         }
 
-        //  Write each service and endpoints to IR
-        writeToFile(microservices, fileName);
+        LoggerManager.info(() -> "Carrying over " + unchangedMicroservices.size() + " of " + baseline.getMicroservices().size()
+                + " microservices unchanged since " + baseline.getCommitID() + ", " + differences.size() + " files changed");
 
+        try {
+            generateIR(fileName);
+        } finally {
+            unchangedMicroservices = Collections.emptyMap();
+        }
     }
 
     /**
@@ -91,109 +201,461 @@ public class IRExtractionService {
      */
     public Set<Microservice> cloneAndScanServices() {
         Set<Microservice> microservices = new HashSet<>();
+        cloneAndScanServices(microservices::add);
+        return microservices;
+    }
 
+    /**
+     * Clone remote repositories and scan through each local repo, handing each microservice
+     * to the sink as soon as all of its files are extracted
+     *
+     * @param sink consumer of the extracted microservices
+     */
+    private void cloneAndScanServices(Consumer<Microservice> sink) {
         // Clone the repository present in the configuration file
-        gitService.cloneRemote();
+        metrics.time(ExtractionMetrics.Stage.CLONE, gitService::cloneRemote);
+
+        if (config.isReadFromObjectDatabase()) {
+            scanCommitTree(sink);
+            return;
+        }
 
         // Start scanning from the root directory
-        List<String> rootDirectories = findRootDirectories(FileUtils.getRepositoryPath(config.getRepoName()));
-        List<String> rootDirectoriesCopy = List.copyOf(rootDirectories);
+        // Filter more/less specific, only the most specific roots are kept
+        List<String> rootDirectories = metrics.time(ExtractionMetrics.Stage.ROOT_DISCOVERY,
+                () -> PathTrie.mostSpecific(findRootDirectories(FileUtils.getRepositoryPath(config.getRepoName()))));
+        rootDirectories = selectMicroservices(rootDirectories, rootDirectory -> FileUtils.localPathToGitPath(rootDirectory, config.getRepoName()));
+
+        // Index the declarations of the checked out commit for type lookups
+        DeclarationIndex declarationIndex = metrics.time(ExtractionMetrics.Stage.DECLARATION_INDEX,
+                () -> DeclarationIndex.forCommit(gitService, config.getRepoName(), commitID));
+
+        // One parse session for the whole run so the type solver caches are shared by all files of each thread
+        try (ParseSession session = new ParseSession(config, declarationIndex, gitService::readBlob, metrics)) {
+
+            // Scan each root directory for microservices, in parallel if configured
+            scanServices(rootDirectories, session, sink);
+
+            LoggerManager.info(() -> "Skipped parsing " + session.getSkippedFiles() + " files without stereotype annotations");
+            if (session.getDegradedFiles() > 0) {
+                LoggerManager.warn(() -> "Parsed " + session.getDegradedFiles() + " files without type resolution, " + session.getQuarantine().size() + " files are quarantined");
+            }
+        }
+    }
 
-        // Filter more/less specific
-        for(String s1 : rootDirectoriesCopy) {
-            for(String s2 : rootDirectoriesCopy) {
-                if(s1.equals(s2)) {
+    /**
+     * Scan the root directories using a pool of worker threads. Each file of each microservice
+     * is parsed as its own task, results are then added in the same order as the serial scan
+     * so that the extracted IR is identical to the serial one. Files are identified by the blob
+     * id of the checked out commit so identical copies are parsed once.
+     *
+     * @param rootDirectories the microservice root directories to scan
+     * @param session the parse session of the run
+     * @param sink consumer of the extracted microservices
+     */
+    private void scanServices(List<String> rootDirectories, ParseSession session, Consumer<Microservice> sink) {
+        Map<String, ObjectId> treeFiles = gitService.getTreeFiles(commitID);
+
+        // JavaScript files are extracted together by the Node.js workers before the parse tasks run
+        Map<String, Supplier<byte[]>> javaScriptSources = new LinkedHashMap<>();
+        Map<String, JsonArray> javaScriptRestCalls = new HashMap<>();
+
+        List<Microservice> models = new ArrayList<>();
+        List<List<FileTask>> modelTasks = new ArrayList<>();
+        for (String rootDirectory : rootDirectories) {
+            Microservice model = createMicroservice(rootDirectory);
+
+            // Microservices carried over from a baseline are not parsed
+            Microservice unchanged = unchangedMicroservices.get(model.getPath());
+            if (unchanged != null) {
+                models.add(unchanged);
+                modelTasks.add(new ArrayList<>());
+                continue;
+            }
+
+            List<File> files = new ArrayList<>();
+            collectFiles(new File(rootDirectory), files, config.getJavaScriptWorkers() > 0);
+
+            List<FileTask> tasks = new ArrayList<>();
+            for (File file : files) {
+                String gitPath = FileUtils.localPathToGitPath(file.getPath(), config.getRepoName());
+                if (isJavaScriptFile(gitPath)) {
+                    javaScriptSources.put(gitPath, () -> readFile(file));
+                    tasks.add(new FileTask(gitPath, treeFiles.get(gitPath.substring(1)), "",
+                            new ParseScheduler.Task<>(file.length(), () -> SourceToObjectUtils.parseJavaScript(gitPath, javaScriptRestCalls.get(gitPath), model.getName()))));
                     continue;
-                } else if(s1.matches(s2.replace(FileUtils.SYS_SEPARATOR, FileUtils.SPECIAL_SEPARATOR) + FileUtils.SPECIAL_SEPARATOR + ".*")) {
-                    rootDirectories.remove(s2);
-                } else if(s2.matches(s1.replace(FileUtils.SYS_SEPARATOR, FileUtils.SPECIAL_SEPARATOR) + FileUtils.SPECIAL_SEPARATOR + ".*")) {
-                    rootDirectories.remove(s1);
                 }
+
+                tasks.add(new FileTask(gitPath, treeFiles.get(gitPath.substring(1)), resolutionKey(gitPath, session),
+                        new ParseScheduler.Task<>(file.length(), () -> parseFile(file, model.getName(), session))));
             }
+            models.add(model);
+            modelTasks.add(tasks);
         }
 
-        // Scan each root directory for microservices
+        javaScriptRestCalls.putAll(extractJavaScript(javaScriptSources));
+        scanMicroservices(models, modelTasks, session, sink);
+    }
+
+    /**
+     * Scan the microservices of the commit straight from the git object database. The working
+     * tree is not read, so several commits of the same repository may be extracted at once.
+     *
+     * @param sink consumer of the extracted microservices
+     */
+    private void scanCommitTree(Consumer<Microservice> sink) {
+        Map<String, ObjectId> treeFiles = gitService.getTreeFiles(commitID);
+
+        // Filter more/less specific, only the most specific roots are kept
+        List<String> rootDirectories = metrics.time(ExtractionMetrics.Stage.ROOT_DISCOVERY,
+                () -> PathTrie.mostSpecific(findRootDirectories(treeFiles)));
+        rootDirectories = selectMicroservices(rootDirectories, rootDirectory -> rootDirectory);
+
+        List<Microservice> models = new ArrayList<>();
+        List<List<FileTask>> modelTasks = new ArrayList<>();
+        List<Boolean> unchanged = new ArrayList<>();
+        PathTrie<Integer> rootIndex = new PathTrie<>();
         for (String rootDirectory : rootDirectories) {
-            Microservice microservice = recursivelyScanFiles(rootDirectory);
-            if (microservice != null) {
-                microservices.add(microservice);
+            String gitPath = rootDirectory.isEmpty() ? "" : FileUtils.GIT_SEPARATOR + rootDirectory;
+            String localPath = FileUtils.gitPathToLocalPath(gitPath, config.getRepoName());
+
+            // Microservices carried over from a baseline are not parsed
+            rootIndex.put(rootDirectory, models.size());
+            unchanged.add(unchangedMicroservices.containsKey(gitPath));
+            models.add(unchangedMicroservices.getOrDefault(gitPath, new Microservice(FileUtils.getMicroserviceNameFromPath(localPath), gitPath)));
+            modelTasks.add(new ArrayList<>());
+        }
+
+        DeclarationIndex declarationIndex = metrics.time(ExtractionMetrics.Stage.DECLARATION_INDEX,
+                () -> DeclarationIndex.forCommit(gitService, config.getRepoName(), commitID));
+
+        // JavaScript files are extracted together by the Node.js workers before the parse tasks run
+        Map<String, Supplier<byte[]>> javaScriptSources = new LinkedHashMap<>();
+        Map<String, JsonArray> javaScriptRestCalls = new HashMap<>();
+
+        // One parse session for the whole run, types are resolved from the same tree
+        try (ParseSession session = new ParseSession(config, treeFiles, declarationIndex, gitService::readBlob, metrics)) {
+            for (Map.Entry<String, ObjectId> treeFile : treeFiles.entrySet()) {
+                String gitPath = FileUtils.GIT_SEPARATOR + treeFile.getKey();
+                Integer index = rootIndex.findAncestor(treeFile.getKey());
+                boolean javaScript = isJavaScriptFile(gitPath);
+                if (index == null || unchanged.get(index) || !(javaScript || FileUtils.isValidFile(gitPath))) {
+                    continue;
+                }
+
+                String microserviceName = models.get(index).getName();
+                if (javaScript) {
+                    javaScriptSources.put(gitPath, () -> gitService.readBlob(treeFile.getValue()));
+                    modelTasks.get(index).add(new FileTask(gitPath, treeFile.getValue(), "", new ParseScheduler.Task<>(gitService.getBlobSize(treeFile.getValue()),
+                            () -> SourceToObjectUtils.parseJavaScript(gitPath, javaScriptRestCalls.get(gitPath), microserviceName))));
+                    continue;
+                }
+
+                modelTasks.get(index).add(new FileTask(gitPath, treeFile.getValue(), resolutionKey(gitPath, session), new ParseScheduler.Task<>(gitService.getBlobSize(treeFile.getValue()),
+                        () -> parseBlob(gitPath, treeFile.getValue(), microserviceName, session))));
+            }
+
+            javaScriptRestCalls.putAll(extractJavaScript(javaScriptSources));
+            scanMicroservices(models, modelTasks, session, sink);
+            LoggerManager.info(() -> "Skipped parsing " + session.getSkippedFiles() + " files without stereotype annotations");
+            if (session.getDegradedFiles() > 0) {
+                LoggerManager.warn(() -> "Parsed " + session.getDegradedFiles() + " files without type resolution, " + session.getQuarantine().size() + " files are quarantined");
             }
         }
+    }
 
-        return microservices;
+    /**
+     * Run the parse tasks of each microservice on the parse scheduler, largest file first across
+     * all microservices, and add the results in task order so the extracted IR does not depend
+     * on the number of threads.
+     * <p>
+     * Files with identical name and content, typically DTOs, entities and clients copied into
+     * several microservices, are parsed once per type resolution key, so copies in modules
+     * resolving their types differently are parsed on their own. The first copy in task order is
+     * parsed and the others are derived from it by moving it to their path and microservice.
+     * Copies of a file parsed without type resolution, because it is quarantined or went over
+     * its parse time budget, are not derived from it but parsed on their own.
+     *
+     * @param models the microservices to add parsed files to
+     * @param modelTasks the parse tasks of each microservice
+     * @param session the parse session the tasks parse files with
+     * @param sink consumer of the extracted microservices
+     */
+    private void scanMicroservices(List<Microservice> models, List<List<FileTask>> modelTasks, ParseSession session, Consumer<Microservice> sink) {
+        LoggerManager.info(() -> "Scanning " + models.size() + " directories with " + config.getExtractionThreads() + " threads");
+
+        // Only the first copy of each content is parsed, copies refer to its task
+        Map<String, Integer> firstCopies = new HashMap<>();
+        List<ParseScheduler.Task<ProjectFile>> uniqueTasks = new ArrayList<>();
+        List<String> uniquePaths = new ArrayList<>();
+        List<List<Integer>> modelSources = new ArrayList<>();
+        List<Integer> pendingReads = new ArrayList<>();
+        for (List<FileTask> tasks : modelTasks) {
+            List<Integer> sources = new ArrayList<>();
+            for (FileTask fileTask : tasks) {
+                // Quarantined files are parsed without type resolution, their copies are not shared
+                String contentKey = session.getQuarantine().contains(fileTask.path) ? null : fileTask.contentKey();
+                Integer source = contentKey == null ? null : firstCopies.putIfAbsent(contentKey, uniqueTasks.size());
+                if (source == null) {
+                    source = uniqueTasks.size();
+                    uniqueTasks.add(fileTask.task);
+                    uniquePaths.add(fileTask.path);
+                    pendingReads.add(0);
+                }
+                pendingReads.set(source, pendingReads.get(source) + 1);
+                sources.add(source);
+            }
+            modelSources.add(sources);
+        }
+
+        int copies = modelSources.stream().mapToInt(List::size).sum() - uniqueTasks.size();
+        if (copies > 0) {
+            LoggerManager.info(() -> "Deriving " + copies + " identical file copies from " + uniqueTasks.size() + " parsed files");
+        }
+
+        try (ParseScheduler scheduler = new ParseScheduler(config.getExtractionThreads())) {
+            // Submit every file of every microservice before waiting on any of them
+            List<Future<ProjectFile>> futures = scheduler.submitLargestFirst(uniqueTasks);
+
+            // Assemble each microservice in the serial order
+            Set<Integer> parsed = new HashSet<>();
+            for (int i = 0; i < models.size(); i++) {
+                Microservice model = models.get(i);
+                List<Integer> sources = modelSources.get(i);
+                for (int j = 0; j < sources.size(); j++) {
+                    int source = sources.get(j);
+                    FileTask fileTask = modelTasks.get(i).get(j);
+                    ProjectFile projectFile = futures.get(source).get();
+                    if (!parsed.add(source) && projectFile != null) {
+                        if (session.getQuarantine().contains(uniquePaths.get(source))) {
+                            // The first copy went over its budget, the copy gets its own chance
+                            projectFile = scheduler.submitLargestFirst(List.of(fileTask.task)).get(0).get();
+                        } else {
+                            projectFile = ParseCache.rebase(projectFile.toJsonObject(), fileTask.path, model.getName());
+                        }
+                    }
+                    addProjectFile(model, projectFile);
+
+                    // Release the parsed file once all of its copies are added
+                    pendingReads.set(source, pendingReads.get(source) - 1);
+                    if (pendingReads.get(source) == 0) {
+                        futures.set(source, null);
+                    }
+                }
+
+                LoggerManager.info(() -> "Done scanning directory  " + model.getPath());
+                sink.accept(model);
+
+                // Release the microservice once handed over, the sink may have written it out
+                models.set(i, null);
+                modelTasks.set(i, null);
+            }
+
+            metrics.recordScheduler(scheduler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Error.reportAndExit(Error.UNKNOWN_ERROR, Optional.of(e));
+        } catch (ExecutionException e) {
+            Error.reportAndExit(Error.UNKNOWN_ERROR, Optional.of(e));
+        }
+    }
+
+    /**
+     * Find the key of the type resolution a file is parsed with, configuration files do not
+     * resolve types and share the same key
+     *
+     * @param gitPath the git path of the file
+     * @param session the parse session the file is parsed with
+     * @return the key of the type resolution of the file
+     */
+    private static String resolutionKey(String gitPath, ParseSession session) {
+        return FileUtils.isConfigurationFile(gitPath) ? "" : session.getResolutionKey(gitPath);
+    }
+
+    /**
+     * Keep the microservice root directories accepted by the configured include and exclude patterns
+     *
+     * @param rootDirectories the discovered root directories
+     * @param toGitPath converts a root directory to its path relative to the repository root
+     * @return the accepted root directories in discovery order
+     */
+    private List<String> selectMicroservices(List<String> rootDirectories, Function<String, String> toGitPath) {
+        if (microserviceFilter.acceptsAll()) {
+            return rootDirectories;
+        }
+
+        List<String> selected = rootDirectories.stream()
+                .filter(rootDirectory -> microserviceFilter.accepts(toGitPath.apply(rootDirectory)))
+                .collect(Collectors.toList());
+        LoggerManager.info(() -> "Selected " + selected.size() + " of " + rootDirectories.size() + " microservice directories");
+        return selected;
     }
 
     /**
-     * Recursively search for directories containing a microservice (pom.xml file)
+     * Recursively search for directories containing a microservice (pom.xml file without modules
+     * or build.gradle file). Directories named in the configured prune list are not descended into.
      *
      * @param directory the directory to start the search from
      * @return a list of directory paths containing pom.xml
      */
     private List<String> findRootDirectories(String directory) {
         List<String> rootDirectories = new ArrayList<>();
-        File root = new File(directory);
-        if (root.exists() && root.isDirectory()) {
-            // Check if the current directory contains a Dockerfile
-            File[] files = root.listFiles();
-            boolean containsPom = false;
-            boolean containsGradle = false;
-            if (files != null) {
-                for (File file : files) {
-                    if (file.isFile() && file.getName().equals("pom.xml")) {
-                        try {
-
-                            // Create a DocumentBuilder
-                            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-
-                            // Parse the XML file
-                            Document document = builder.parse(file);
-
-                            // Normalize the XML Structure
-                            document.getDocumentElement().normalize();
-
-                            // Get all elements with the specific tag name
-                            NodeList nodeList = document.getElementsByTagName("modules");
-                            // Check if the tag is present
-                            if (nodeList.getLength() == 0) {
-                                containsPom = true;
-                            }
-                        } catch (Exception e) {
-                            throw new RuntimeException("Error parsing pom.xml");
-                        }
-                    } else if(file.isFile() && file.getName().equals("build.gradle")) {
-                        containsGradle = true;
-                    } else if (file.isDirectory()) {
-                        rootDirectories.addAll(findRootDirectories(file.getPath()));
+        Path root = Path.of(directory);
+        if (!Files.isDirectory(root)) {
+            return rootDirectories;
+        }
+
+        Set<String> pruneDirectories = new HashSet<>(config.getPruneDirectories());
+        long start = System.nanoTime();
+
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                // Whether each directory on the current path is a microservice root, with its start time
+                private final Deque<Boolean> isRoot = new ArrayDeque<>();
+                private final Deque<Long> startTimes = new ArrayDeque<>();
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(root) && pruneDirectories.contains(dir.getFileName().toString())) {
+                        LoggerManager.debug(() -> "Pruned directory " + dir);
+                        return FileVisitResult.SKIP_SUBTREE;
                     }
+
+                    isRoot.push(false);
+                    startTimes.push(System.nanoTime());
+                    return FileVisitResult.CONTINUE;
                 }
-            }
-            if (containsPom) {
-                rootDirectories.add(root.getPath());
-                return rootDirectories;
-            } else if (containsGradle){
-                rootDirectories.add(root.getPath());
-                return rootDirectories;
-            }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String fileName = file.getFileName().toString();
+                    if ((fileName.equals("pom.xml") && !containsModules(file)) || fileName.equals("build.gradle")) {
+                        isRoot.pop();
+                        isRoot.push(true);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    LoggerManager.warn(() -> "Failed to visit " + file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                    // Roots are added after any roots nested below them
+                    if (isRoot.pop()) {
+                        rootDirectories.add(dir.toString());
+                    }
+
+                    long elapsed = (System.nanoTime() - startTimes.pop()) / 1_000_000;
+                    LoggerManager.debug(() -> "Scanned directory " + dir + " in " + elapsed + " ms");
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            Error.reportAndExit(Error.INVALID_REPO_PATHS, Optional.of(e));
         }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        LoggerManager.info(() -> "Found " + rootDirectories.size() + " microservice directories in " + elapsed + " ms");
         return rootDirectories;
     }
 
+    /**
+     * Search the files of a commit's tree for directories containing a microservice (pom.xml
+     * file without modules or build.gradle file), skipping directories in the configured prune list
+     *
+     * @param treeFiles the files of the tree by path relative to the repository root
+     * @return a list of directory paths relative to the repository root, empty for the root itself
+     */
+    private List<String> findRootDirectories(Map<String, ObjectId> treeFiles) {
+        Set<String> pruneDirectories = new HashSet<>(config.getPruneDirectories());
+        Set<String> rootDirectories = new LinkedHashSet<>();
+        long start = System.nanoTime();
+
+        for (Map.Entry<String, ObjectId> treeFile : treeFiles.entrySet()) {
+            String path = treeFile.getKey();
+            int lastSeparator = path.lastIndexOf(FileUtils.GIT_SEPARATOR);
+            String directory = lastSeparator < 0 ? "" : path.substring(0, lastSeparator);
+            String fileName = path.substring(lastSeparator + 1);
+
+            if (!fileName.equals("pom.xml") && !fileName.equals("build.gradle")) {
+                continue;
+            }
+
+            if (Arrays.stream(directory.split(FileUtils.GIT_SEPARATOR)).anyMatch(pruneDirectories::contains)) {
+                continue;
+            }
+
+            if (fileName.equals("pom.xml") && containsModules(path, gitService.readBlob(treeFile.getValue()))) {
+                continue;
+            }
+
+            rootDirectories.add(directory);
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        LoggerManager.info(() -> "Found " + rootDirectories.size() + " microservice directories in " + elapsed + " ms");
+        return new ArrayList<>(rootDirectories);
+    }
 
     /**
-     * Write each service and endpoints to intermediate representation
+     * Check whether a pom.xml file declares modules, reading only until the first modules element
      *
-     * @param microservices a list of microservices extracted from repository
-     * @param fileName the name of the output file for IR
+     * @param pomFile the pom.xml file to check
+     * @return true if the pom declares a modules element
      */
-    private void writeToFile(Set<Microservice> microservices, String fileName) {
+    private static boolean containsModules(Path pomFile) {
+        try (InputStream inputStream = Files.newInputStream(pomFile)) {
+            return containsModules(inputStream);
+        } catch (IOException | XMLStreamException e) {
+            throw new RuntimeException("Error parsing pom.xml");
+        }
+    }
 
-        MicroserviceSystem microserviceSystem = new MicroserviceSystem(config.getSystemName(), commitID, microservices, new HashSet<>());
+    /**
+     * Check whether the content of a pom.xml file declares modules
+     *
+     * @param path the path of the pom.xml file
+     * @param content the content of the pom.xml file
+     * @return true if the pom declares a modules element
+     */
+    private static boolean containsModules(String path, byte[] content) {
+        try {
+            return containsModules(new ByteArrayInputStream(content));
+        } catch (XMLStreamException e) {
+            throw new RuntimeException("Error parsing pom.xml " + path);
+        }
+    }
 
-        JsonReadWriteUtils.writeToJSON(fileName, microserviceSystem.toJsonObject());
+    /**
+     * Check whether a pom.xml stream declares modules, reading only until the first modules element
+     *
+     * @param inputStream the pom.xml content
+     * @return true if the pom declares a modules element
+     */
+    private static boolean containsModules(InputStream inputStream) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        XMLStreamReader reader = factory.createXMLStreamReader(inputStream);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("modules")) {
+                    return true;
+                }
+            }
+        } finally {
+            reader.close();
+        }
 
-        LoggerManager.info(() -> "Successfully extracted IR at " + commitID);
+        return false;
     }
 
+
     /**
      * Recursively scan the files in the given repository path and extract the endpoints and
      * dependencies for a single microservice.
@@ -201,19 +663,42 @@ public class IRExtractionService {
      * @return model of a single service containing the extracted endpoints and dependencies
      */
     public Microservice recursivelyScanFiles(String rootMicroservicePath) {
+        try (ParseSession session = new ParseSession(config)) {
+            return recursivelyScanFiles(rootMicroservicePath, session);
+        }
+    }
+
+    /**
+     * Recursively scan the files in the given repository path and extract the endpoints and
+     * dependencies for a single microservice.
+     *
+     * @param rootMicroservicePath the root directory of the microservice
+     * @param session the parse session of the run
+     * @return model of a single service containing the extracted endpoints and dependencies
+     */
+    private Microservice recursivelyScanFiles(String rootMicroservicePath, ParseSession session) {
+        Microservice model = createMicroservice(rootMicroservicePath);
+        scanDirectory(new File(rootMicroservicePath), model, session);
+
+        LoggerManager.info(() -> "Done scanning directory  " + rootMicroservicePath);
+        return model;
+    }
+
+    /**
+     * Create an empty microservice model for the given root directory
+     *
+     * @param rootMicroservicePath the root directory of the microservice
+     * @return an empty microservice model
+     */
+    private Microservice createMicroservice(String rootMicroservicePath) {
         // Validate path exists and is a directory
         File localDir = new File(rootMicroservicePath);
         if (!localDir.exists() || !localDir.isDirectory()) {
             Error.reportAndExit(Error.INVALID_REPO_PATHS, Optional.empty());
         }
 
-
-        Microservice model = new Microservice(FileUtils.getMicroserviceNameFromPath(rootMicroservicePath),
+        return new Microservice(FileUtils.getMicroserviceNameFromPath(rootMicroservicePath),
                 FileUtils.localPathToGitPath(rootMicroservicePath, config.getRepoName()));
-        scanDirectory(localDir, model);
-
-        LoggerManager.info(() -> "Done scanning directory  " + rootMicroservicePath);
-        return model;
     }
 
     /**
@@ -224,32 +709,240 @@ public class IRExtractionService {
     public void scanDirectory(
             File directory,
             Microservice microservice) {
+        try (ParseSession session = new ParseSession(config)) {
+            scanDirectory(directory, microservice, session);
+        }
+    }
+
+    /**
+     * Recursively scan the given directory for files and extract the endpoints and dependencies.
+     *
+     * @param directory the directory to scan
+     * @param microservice the microservice to add parsed files to
+     * @param session the parse session of the run
+     */
+    private void scanDirectory(File directory, Microservice microservice, ParseSession session) {
+        List<File> files = new ArrayList<>();
+        collectFiles(directory, files);
+
+        for (File file : files) {
+            addProjectFile(microservice, parseFile(file, microservice.getName(), session));
+        }
+    }
+
+    /**
+     * Recursively collect the valid files of the given directory in scanning order
+     *
+     * @param directory the directory to collect from
+     * @param validFiles the list to add valid files to
+     */
+    private void collectFiles(File directory, List<File> validFiles) {
+        collectFiles(directory, validFiles, false);
+    }
+
+    /**
+     * Recursively collect the valid files of the given directory in scanning order
+     *
+     * @param directory the directory to collect from
+     * @param validFiles the list to add valid files to
+     * @param javaScript whether JavaScript files are collected as well
+     */
+    private void collectFiles(File directory, List<File> validFiles, boolean javaScript) {
         File[] files = directory.listFiles();
 
         if (files != null) {
             for (File file : files) {
                 if (file.isDirectory()) {
-                    scanDirectory(file, microservice);
-                } else if (FileUtils.isValidFile(file.getPath())) {
+                    collectFiles(file, validFiles, javaScript);
+                } else if (FileUtils.isValidFile(file.getPath())
+                        || (javaScript && isJavaScriptFile(FileUtils.localPathToGitPath(file.getPath(), config.getRepoName())))) {
+                    validFiles.add(file);
+                }
+            }
+        }
+    }
 
-                    if(FileUtils.isConfigurationFile(file.getPath())) {
-                        ConfigFile configFile = SourceToObjectUtils.parseConfigurationFile(file, config);
-                        if(configFile != null) {
-                            microservice.getFiles().add(configFile);
-                        }
+    /**
+     * Check whether a file is a JavaScript file extracted by the Node.js workers
+     *
+     * @param gitPath the git path of the file
+     * @return true if JavaScript extraction is configured and the file is a JavaScript source file
+     */
+    private boolean isJavaScriptFile(String gitPath) {
+        return config.getJavaScriptWorkers() > 0 && FileUtils.isJavaScriptFile(gitPath, config.getPruneDirectories());
+    }
 
-                    } else {
-                        JClass jClass = SourceToObjectUtils.parseClass(file, config, microservice.getName());
-                        if (jClass != null) {
-                            microservice.addJClass(jClass);
-                        }
-                    }
+    /**
+     * Extract the REST calls of JavaScript files on a pool of Node.js workers, started once for all files
+     *
+     * @param sources the content of each JavaScript file by git path
+     * @return the REST call records of each file by git path, files that could not be parsed are left out
+     */
+    private Map<String, JsonArray> extractJavaScript(Map<String, Supplier<byte[]>> sources) {
+        if (sources.isEmpty()) {
+            return Collections.emptyMap();
+        }
 
+        Map<String, String> contents = new LinkedHashMap<>();
+        sources.forEach((path, source) -> contents.put(path, new String(source.get(), StandardCharsets.UTF_8)));
 
-                }
+        try (NodeWorkerPool pool = new NodeWorkerPool(config.getJavaScriptWorkers())) {
+            Map<String, JsonArray> restCalls = metrics.time(ExtractionMetrics.Stage.JAVASCRIPT, () -> pool.parse(contents));
+            LoggerManager.info(() -> "Extracted " + restCalls.size() + " of " + contents.size() + " JavaScript files with "
+                    + config.getJavaScriptWorkers() + " Node.js workers, " + pool.getRestarts() + " restarts");
+            return restCalls;
+        }
+    }
+
+    /**
+     * Read the content of a file of the working tree
+     *
+     * @param file the file to read
+     * @return the content of the file
+     */
+    private static byte[] readFile(File file) {
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            Error.reportAndExit(Error.INVALID_REPO_PATHS, Optional.of(e));
+        }
+
+        return null;
+    }
+
+    /**
+     * Parse a single valid file into either a configuration file or a JClass,
+     * consulting the parse cache first if one is configured
+     *
+     * @param file the file to parse
+     * @param microserviceName the name of the microservice the file belongs to
+     * @param session the parse session of the run
+     * @return the parsed project file or null if it was filtered
+     */
+    private ProjectFile parseFile(File file, String microserviceName, ParseSession session) {
+        if (parseCache != null) {
+            String path = FileUtils.localPathToGitPath(file.getPath(), config.getRepoName());
+            return parseCache.getOrParse(file, path, microserviceName, session.getResolutionKey(path),
+                    () -> parseUncached(file, microserviceName, session));
+        }
+
+        return parseUncached(file, microserviceName, session);
+    }
+
+    /**
+     * Parse a single valid file into either a configuration file or a JClass
+     *
+     * @param file the file to parse
+     * @param microserviceName the name of the microservice the file belongs to
+     * @param session the parse session of the run
+     * @return the parsed project file or null if it was filtered
+     */
+    private ProjectFile parseUncached(File file, String microserviceName, ParseSession session) {
+        return timeParse(file.getPath(), file.length(), () -> {
+            if(FileUtils.isConfigurationFile(file.getPath())) {
+                return SourceToObjectUtils.parseConfigurationFile(file, config);
             }
+
+            return SourceToObjectUtils.parseClass(file, microserviceName, session);
+        });
+    }
+
+    /**
+     * Parse a single valid file of the commit's tree, consulting the parse cache first
+     * if one is configured
+     *
+     * @param path the git path of the file
+     * @param blobId the id of the blob holding the file content
+     * @param microserviceName the name of the microservice the file belongs to
+     * @param session the parse session of the run
+     * @return the parsed project file or null if it was filtered
+     */
+    private ProjectFile parseBlob(String path, ObjectId blobId, String microserviceName, ParseSession session) {
+        Supplier<ProjectFile> parser = () -> {
+            byte[] content = gitService.readBlob(blobId);
+            return timeParse(path, content.length, () -> {
+                if (FileUtils.isConfigurationFile(path)) {
+                    return SourceToObjectUtils.parseConfigurationFile(path, content);
+                }
+                return SourceToObjectUtils.parseClass(path, content, microserviceName, session);
+            });
+        };
+
+        if (parseCache != null) {
+            return parseCache.getOrParse(blobId.name(), new File(path).getName(), path, microserviceName, session.getResolutionKey(path), parser);
+        }
+
+        return parser.get();
+    }
+
+    /**
+     * Parse a single file, recording its latency in the extraction timings
+     *
+     * @param path the path of the file
+     * @param size the size of the file in bytes
+     * @param parser parses the file
+     * @return the parsed project file or null if it was filtered
+     */
+    private ProjectFile timeParse(String path, long size, Supplier<ProjectFile> parser) {
+        long start = System.nanoTime();
+        try {
+            return parser.get();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            metrics.record(ExtractionMetrics.Stage.PARSE, elapsed);
+            metrics.recordFile(path, size, elapsed);
+        }
+    }
+
+    /**
+     * Add a parsed project file to the microservice, null files are skipped
+     *
+     * @param microservice the microservice to add to
+     * @param projectFile the parsed file
+     */
+    private void addProjectFile(Microservice microservice, ProjectFile projectFile) {
+        if (projectFile instanceof ConfigFile) {
+            microservice.getFiles().add((ConfigFile) projectFile);
+        } else if (projectFile instanceof JClass) {
+            microservice.addJClass((JClass) projectFile);
         }
     }
 
+    /**
+     * A parse task of a single file with the blob id identifying its content and the key of
+     * the type resolution it is parsed with
+     */
+    private static class FileTask {
+        /**
+         * The git path of the file
+         */
+        private final String path;
+
+        /**
+         * The blob id of the file content, null if it is unknown
+         */
+        private final ObjectId blobId;
+
+        /**
+         * The key of the type resolution of the file, see {@link ParseSession#getResolutionKey(String)}
+         */
+        private final String resolutionKey;
+
+        private final ParseScheduler.Task<ProjectFile> task;
+
+        private FileTask(String path, ObjectId blobId, String resolutionKey, ParseScheduler.Task<ProjectFile> task) {
+            this.path = path;
+            this.blobId = blobId;
+            this.resolutionKey = resolutionKey;
+            this.task = task;
+        }
 
+        /**
+         * @return the key shared by files of the same name and content resolving their types the
+         * same way, null if the content is unknown
+         */
+        private String contentKey() {
+            return blobId == null ? null : blobId.name() + FileUtils.GIT_SEPARATOR + new File(path).getName() + ";" + resolutionKey;
+        }
+    }
 }
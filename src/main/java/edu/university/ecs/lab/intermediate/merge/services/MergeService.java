@@ -6,6 +6,8 @@ import edu.university.ecs.lab.common.models.ir.*;
 import edu.university.ecs.lab.common.services.LoggerManager;
 import edu.university.ecs.lab.common.utils.FileUtils;
 import edu.university.ecs.lab.common.utils.JsonReadWriteUtils;
+import edu.university.ecs.lab.common.utils.MicroserviceSystemWriter;
+import edu.university.ecs.lab.common.utils.PathTrie;
 import edu.university.ecs.lab.delta.models.Delta;
 import edu.university.ecs.lab.delta.models.SystemChange;
 import edu.university.ecs.lab.delta.models.enums.ChangeType;
@@ -45,7 +47,7 @@ public class MergeService {
         // If no changes are present we will write back out same IR
         if (Objects.isNull(systemChange.getChanges())) {
             LoggerManager.debug(() -> "No changes found at " + systemChange.getOldCommit() + " -> " + systemChange.getNewCommit());
-            JsonReadWriteUtils.writeToJSON(outputPath, microserviceSystem);
+            MicroserviceSystemWriter.write(outputPath, microserviceSystem);
             return;
         }
 
@@ -66,13 +68,16 @@ public class MergeService {
                 case DELETE:
                     removeFile(d);
                     break;
+                case RENAME:
+                    renameFile(d);
+                    break;
             }
         }
 
         microserviceSystem.setCommitID(systemChange.getNewCommit());
 
         LoggerManager.info(() -> "Merged to new IR at " + systemChange.getNewCommit());
-        JsonReadWriteUtils.writeToJSON(outputPath, microserviceSystem);
+        MicroserviceSystemWriter.write(outputPath, microserviceSystem);
     }
 
 
@@ -88,29 +93,59 @@ public class MergeService {
             return;
         }
 
-        Microservice ms = microserviceSystem.findMicroserviceByPath(delta.getNewPath());
+        addProjectFile(delta.getConfigChange() != null ? delta.getConfigChange() : delta.getClassChange());
+    }
+
+    /**
+     * This method moves a file to the new path of a Delta change in place, the file
+     * is not parsed again but moved to the microservice of its new path. Only files
+     * keeping their content and file name are renamed, see {@link ChangeType#fromDiffEntry}
+     *
+     * @param delta the delta change for renaming
+     */
+    public void renameFile(Delta delta) {
+        ProjectFile file = microserviceSystem.findFile(delta.getOldPath());
+
+        // A file filtered when it was parsed is not in the system, nor is its renamed copy
+        if (Objects.isNull(file)) {
+            LoggerManager.debug(() -> "[File not found] " + delta.getOldPath() + " to rename at " + systemChange.getOldCommit() + " -> " + systemChange.getNewCommit());
+            return;
+        }
+
+        removeFile(delta);
+        file.setPath(delta.getNewPath());
+        addProjectFile(file);
+    }
+
+    /**
+     * This method adds a file to the microservice of its path, or to the orphans
+     * if no microservice holds the path
+     *
+     * @param file the file to add
+     */
+    private void addProjectFile(ProjectFile file) {
+        Microservice ms = microserviceSystem.findMicroserviceByPath(file.getPath());
 
         // If no ms is found, it will be held in orphans
         if (Objects.isNull(ms)) {
-            if(delta.getClassChange() != null) {
-                microserviceSystem.getOrphans().add(delta.getClassChange());
-            } else if(delta.getConfigChange() != null) {
-                microserviceSystem.getOrphans().add(delta.getConfigChange());
+            if(file instanceof JClass) {
+                ((JClass) file).updateMicroserviceName("");
             }
+            microserviceSystem.getOrphans().add(file);
 
-            LoggerManager.debug(() -> "[File added] " + delta.getNewPath() + " to orphans at " + systemChange.getOldCommit() + " -> " + systemChange.getNewCommit());
+            LoggerManager.debug(() -> "[File added] " + file.getPath() + " to orphans at " + systemChange.getOldCommit() + " -> " + systemChange.getNewCommit());
             return;
         }
 
         // If we found it's ms
-        if(delta.getConfigChange() != null) {
-            ms.getFiles().add(delta.getConfigChange());
+        if(file instanceof ConfigFile) {
+            ms.getFiles().add((ConfigFile) file);
         } else {
             // Add the JClass, the microservice name is updated see addJClass()
-            ms.addJClass(delta.getClassChange());
+            ms.addJClass((JClass) file);
         }
 
-        LoggerManager.debug(() -> "[File added] " + delta.getNewPath() + " to microservice " + ms.getPath() + " at " + systemChange.getOldCommit() + " -> " + systemChange.getNewCommit());
+        LoggerManager.debug(() -> "[File added] " + file.getPath() + " to microservice " + ms.getPath() + " at " + systemChange.getOldCommit() + " -> " + systemChange.getNewCommit());
 
 
     }
@@ -165,6 +200,12 @@ public class MergeService {
             return;
         }
 
+        // Index the active microservices by path for more/less specific lookups
+        PathTrie<Microservice> microserviceTrie = new PathTrie<>();
+        for (Microservice activeMicroservice : microserviceSystem.getMicroservices()) {
+            microserviceTrie.put(activeMicroservice.getPath(), activeMicroservice);
+        }
+
         // Loop through changes to pom.xml files
         for (Delta delta : buildDeltas) {
 
@@ -183,30 +224,28 @@ public class MergeService {
             match: {
                 switch (delta.getChangeType()) {
                     case ADD:
+                        String microservicePath = delta.getNewPath().replace("/pom.xml", "").replace("/build.gradle", "");
 
-                        // If a delta is more/less specific than an active microservice
-                        Microservice removeMicroservice = null;
-                        for (Microservice compareMicroservice : microserviceSystem.getMicroservices()) {
-                            // If delta is more specific than compareMicroservice, we remove this one
-                            if (delta.getNewPath().replace("/pom.xml", "").replace("/build.gradle", "").matches(compareMicroservice.getPath() + "/.*")) {
-                                removeMicroservice = compareMicroservice;
-
-                            // If a microservice already exists that is more specific, skip the addition
-                            } else if (compareMicroservice.getPath().matches(delta.getNewPath().replace("/pom.xml", "").replace("/build.gradle", "") + "/.*")) {
-                                break match;
-                            }
+                        // If a microservice already exists that is more specific, skip the addition
+                        if (microserviceTrie.hasDescendant(microservicePath)) {
+                            break match;
                         }
 
+                        // If delta is more specific than an active microservice, we remove that one
+                        Microservice removeMicroservice = microserviceTrie.findAncestor(microservicePath);
+
                         // If a match was found, orphanize and remove. They will be adopted below
                         if (Objects.nonNull(removeMicroservice)) {
                             microserviceSystem.getMicroservices().remove(removeMicroservice);
+                            microserviceTrie.remove(removeMicroservice.getPath());
                             microserviceSystem.orphanize(removeMicroservice);
                         }
 
-                        microservice = new Microservice(tokens[tokens.length - 2], delta.getNewPath().replace("/pom.xml", "").replace("/build.gradle", ""));
+                        microservice = new Microservice(tokens[tokens.length - 2], microservicePath);
                         // Here we must check if any orphans are waiting on this creation
                         microserviceSystem.adopt(microservice);
                         microserviceSystem.getMicroservices().add(microservice);
+                        microserviceTrie.put(microservice.getPath(), microservice);
                         LoggerManager.debug(() -> "[Microservice added]  " + microservice.getName() + " " + microservice.getPath() + " at " + systemChange.getOldCommit() + " -> " + systemChange.getNewCommit());
                         break;
 
@@ -221,6 +260,9 @@ public class MergeService {
 
                         // Here we must orphan all the classes of this microservice
                         microserviceSystem.getMicroservices().remove(microservice);
+                        if (microservice != null) {
+                            microserviceTrie.remove(microservice.getPath());
+                        }
                         microserviceSystem.orphanize(microservice);
                         LoggerManager.debug(() -> "[Microservice removed]  " + microservice.getName() + " " + microservice.getPath() + " at " + systemChange.getOldCommit() + " -> " + systemChange.getNewCommit());
                         break;
@@ -259,34 +301,26 @@ public class MergeService {
         // If a delta is more specific than another in same SystemChange,
         // we need to remove the more general option in case of add
         List<Delta> addDeltas = filteredDeltas.stream().filter(d -> d.getChangeType().equals(ChangeType.ADD)).collect(Collectors.toList());
-        boolean deletedFirst = false;
-        for(Delta delta1 : addDeltas) {
-            for(Delta delta2 : addDeltas) {
-                // If they are equal or they aren't both additions
-                if(delta1.equals(delta2) || !delta1.getChangeType().equals(ChangeType.ADD) || !delta2.getChangeType().equals(ChangeType.ADD)) {
-                    continue;
-                }
-                String delta1Path = delta1.getNewPath().replace("/pom.xml", "").replace("/build.gradle", "");
-                String delta2Path = delta2.getNewPath().replace("/pom.xml", "").replace("/build.gradle", "");
-                if(delta1Path.equals(delta2Path) && !deletedFirst) {
-                    LoggerManager.debug(() -> "[Filtered] Duplicates deltas detected for " + delta1.getNewPath() + " and " + delta2.getNewPath());
-                    filteredDeltas.remove(delta1);
-                    deletedFirst = true;
-                    continue;
-                }
+        PathTrie<Delta> addTrie = new PathTrie<>();
+        for(Delta delta : addDeltas) {
+            String deltaPath = delta.getNewPath().replace("/pom.xml", "").replace("/build.gradle", "");
+            if(addTrie.contains(deltaPath)) {
+                LoggerManager.debug(() -> "[Filtered] Duplicates deltas detected for " + delta.getNewPath());
+            }
+            addTrie.put(deltaPath, delta);
+        }
 
-                // Check if paths are more/less specific
-                if(delta1Path.matches(delta2Path + "/.*")) {
-                    LoggerManager.debug(() -> "[Filtered] Delta " + delta1.getNewPath() + " more specific than " + delta2.getNewPath());
-                    filteredDeltasCopy.remove(delta2);
-                } else if(delta2Path.matches(delta1Path + "/.*")) {
-                    LoggerManager.debug(() -> "[Filtered] Delta " + delta2.getNewPath() + " more specific than " + delta1.getNewPath());
-                    filteredDeltasCopy.remove(delta1);
-                }
+        for(Delta delta : addDeltas) {
+            String deltaPath = delta.getNewPath().replace("/pom.xml", "").replace("/build.gradle", "");
+
+            // Check if a more specific path is added
+            if(addTrie.hasDescendant(deltaPath)) {
+                LoggerManager.debug(() -> "[Filtered] Delta " + delta.getNewPath() + " less specific than another addition");
+                filteredDeltasCopy.remove(delta);
             }
         }
 
-        deletedFirst = false;
+        boolean deletedFirst = false;
         // Remove duplicate deletes (pom.xml and build.gradle) of the same microservice
         List<Delta> deleteDeltas = filteredDeltas.stream().filter(d -> d.getChangeType().equals(ChangeType.DELETE)).collect(Collectors.toList());
         for(Delta delta1 : deleteDeltas) {
@@ -0,0 +1,55 @@
+package unit.extraction;
+
+import edu.university.ecs.lab.common.models.ir.JClass;
+import edu.university.ecs.lab.common.models.ir.Method;
+import edu.university.ecs.lab.common.models.ir.Microservice;
+import edu.university.ecs.lab.common.models.ir.MicroserviceSystem;
+import edu.university.ecs.lab.common.utils.MicroserviceSystemWriter;
+import edu.university.ecs.lab.intermediate.create.services.IRExtractionService;
+import org.junit.jupiter.api.Test;
+import unit.git.FixtureRepository;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BaselineExtractionTest extends FixtureExtractionTest {
+    private static final String ITEM_SERVICE = "order-service/src/main/java/com/demo/order/service/ItemService.java";
+
+    @Test
+    public void testOnlyChangedMicroservicesAreExtracted() throws Exception {
+        Map<String, String> files = FixtureRepository.system(List.of("order-service", "user-service"));
+        String first = repository.commit(files);
+        String second = repository.commit(Map.of(ITEM_SERVICE, files.get(ITEM_SERVICE)
+                .replace("    public void save", "    public int count() { return 0; }\n    public void save")));
+
+        // The baseline is marked so that a carried over microservice can be told from an extracted one
+        Path baselinePath = extract("baseline", Map.of(), Optional.of(first));
+        MicroserviceSystem baseline = read(baselinePath);
+        baseline.findMicroserviceByPath("/user-service").getRepositories().clear();
+        baseline.findMicroserviceByPath("/order-service").getRepositories().clear();
+        MicroserviceSystemWriter.write(baselinePath.toString(), baseline);
+
+        MicroserviceSystem full = read(extract("full", Map.of(), Optional.of(second)));
+        Path incrementalPath = directory.resolve("incremental-IR.json");
+        new IRExtractionService(writeConfig("incremental", Map.of()), Optional.of(second)).generateIR(incrementalPath.toString(), baselinePath.toString());
+        MicroserviceSystem incremental = read(incrementalPath);
+        assertEquals(second, incremental.getCommitID());
+
+        // The untouched microservice is taken from the baseline as is
+        Microservice userService = incremental.findMicroserviceByPath("/user-service");
+        assertEquals(baseline.findMicroserviceByPath("/user-service"), userService);
+        assertTrue(userService.getRepositories().isEmpty());
+
+        // The touched microservice is extracted again at the new commit
+        Microservice orderService = incremental.findMicroserviceByPath("/order-service");
+        assertEquals(full.findMicroserviceByPath("/order-service"), orderService);
+        assertEquals(1, orderService.getRepositories().size());
+        JClass itemService = incremental.findClass("/" + ITEM_SERVICE);
+        assertTrue(itemService.getMethods().stream().map(Method::getName).collect(Collectors.toSet()).contains("count"));
+    }
+}
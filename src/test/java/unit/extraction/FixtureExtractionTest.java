@@ -0,0 +1,76 @@
+package unit.extraction;
+
+import edu.university.ecs.lab.common.models.ir.MicroserviceSystem;
+import edu.university.ecs.lab.common.utils.JsonReadWriteUtils;
+import edu.university.ecs.lab.intermediate.create.services.IRExtractionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import unit.git.FixtureRepository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Base of the tests extracting the IR of a fixture repository. Each test starts with an empty
+ * repository named after its class, the commits are made by the test.
+ */
+public abstract class FixtureExtractionTest {
+
+    @TempDir
+    protected Path directory;
+
+    protected FixtureRepository repository;
+
+    @BeforeEach
+    public void createRepository() throws Exception {
+        repository = new FixtureRepository(directory, getClass().getSimpleName());
+    }
+
+    @AfterEach
+    public void closeRepository() throws Exception {
+        repository.close();
+    }
+
+    /**
+     * Write a config of the repository
+     *
+     * @param name the name of the config file without extension
+     * @param options additional options of the config
+     * @return the path of the config file
+     */
+    protected String writeConfig(String name, Map<String, Object> options) throws IOException {
+        return repository.writeConfig(directory, name + ".json", options);
+    }
+
+    /**
+     * Extract the IR of the head commit of the repository
+     *
+     * @param name the name of the config and IR files
+     * @param options additional options of the config
+     * @return the path of the IR file
+     */
+    protected Path extract(String name, Map<String, Object> options) throws IOException {
+        return extract(name, options, Optional.empty());
+    }
+
+    /**
+     * Extract the IR of a commit of the repository
+     *
+     * @param name the name of the config and IR files
+     * @param options additional options of the config
+     * @param commitID the commit to extract, the head commit if empty
+     * @return the path of the IR file
+     */
+    protected Path extract(String name, Map<String, Object> options, Optional<String> commitID) throws IOException {
+        Path output = directory.resolve(name + "-IR.json");
+        new IRExtractionService(writeConfig(name, options), commitID).generateIR(output.toString());
+        return output;
+    }
+
+    protected static MicroserviceSystem read(Path path) {
+        return JsonReadWriteUtils.readFromJSON(path.toString(), MicroserviceSystem.class);
+    }
+}
@@ -0,0 +1,44 @@
+package unit.extraction;
+
+import edu.university.ecs.lab.common.models.ir.MicroserviceSystem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import unit.git.FixtureRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelExtractionTest extends FixtureExtractionTest {
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        repository.commit(FixtureRepository.system(List.of("order-service", "user-service", "pay-service", "audit-service")));
+    }
+
+    @Test
+    public void testParallelExtractionMatchesSerial() throws Exception {
+        Path serial = extract("serial", Map.of("extractionThreads", 1));
+        MicroserviceSystem microserviceSystem = read(serial);
+        assertEquals(4, microserviceSystem.getMicroservices().size());
+        assertEquals(3, microserviceSystem.findMicroserviceByPath("/order-service").getRestCalls().size());
+
+        // Each worker resolves types with its own solvers, the output does not depend on the threads
+        for (int run = 0; run < 3; run++) {
+            assertArrayEquals(Files.readAllBytes(serial), Files.readAllBytes(extract("parallel" + run, Map.of("extractionThreads", 4))));
+        }
+    }
+
+    @Test
+    public void testObjectDatabaseMatchesWorkingTree() throws Exception {
+        Path workingTree = extract("working-tree", Map.of("extractionThreads", 1));
+        Path objectDatabase = extract("object-database", Map.of("extractionThreads", 4, "readFromObjectDatabase", true));
+
+        // Blobs read straight from the object database are parsed as their checked out files,
+        // only the order of the microservices and classes follows the tree instead of the directories
+        assertEquals(read(workingTree), read(objectDatabase));
+    }
+}
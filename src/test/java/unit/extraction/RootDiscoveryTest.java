@@ -0,0 +1,49 @@
+package unit.extraction;
+
+import edu.university.ecs.lab.common.models.ir.Microservice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RootDiscoveryTest extends FixtureExtractionTest {
+    // Malformed after the modules element, so the pom can only be classified by stopping there
+    private static final String PARENT_POM = "<project><modules><module>order-service</module><module>platform</module></modules><broken></project>";
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("pom.xml", PARENT_POM);
+        files.put("order-service/pom.xml", "<project><artifactId>order-service</artifactId></project>");
+        files.put("order-service/src/main/java/com/demo/order/Order.java", "package com.demo.order;\npublic class Order {}\n");
+        files.put("platform/pom.xml", "<project><modules><module>user-service</module></modules></project>");
+        files.put("platform/user-service/pom.xml", "<project><artifactId>user-service</artifactId></project>");
+        files.put("platform/user-service/src/main/java/com/demo/user/User.java", "package com.demo.user;\npublic class User {}\n");
+        files.put("gradle-service/build.gradle", "plugins { id 'java' }");
+        files.put("gradle-service/src/main/java/com/demo/gradle/Gradle.java", "package com.demo.gradle;\npublic class Gradle {}\n");
+        files.put("web/node_modules/bundled/pom.xml", "<project><artifactId>bundled</artifactId></project>");
+        files.put("web/node_modules/bundled/src/main/java/com/demo/bundled/Bundled.java", "package com.demo.bundled;\npublic class Bundled {}\n");
+        repository.commit(files);
+    }
+
+    @Test
+    public void testRootsAreFoundInWorkingTree() throws Exception {
+        assertEquals(Set.of("/order-service", "/platform/user-service", "/gradle-service"), microservicePaths("working-tree", Map.of()));
+    }
+
+    @Test
+    public void testRootsAreFoundInObjectDatabase() throws Exception {
+        assertEquals(Set.of("/order-service", "/platform/user-service", "/gradle-service"),
+                microservicePaths("object-database", Map.of("readFromObjectDatabase", true)));
+    }
+
+    private Set<String> microservicePaths(String name, Map<String, Object> options) throws Exception {
+        // Poms with modules are aggregators and node_modules is not descended into
+        return read(extract(name, options)).getMicroservices().stream().map(Microservice::getPath).collect(Collectors.toSet());
+    }
+}
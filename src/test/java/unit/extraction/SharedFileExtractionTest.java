@@ -0,0 +1,78 @@
+package unit.extraction;
+
+import com.google.gson.JsonObject;
+import edu.university.ecs.lab.common.models.ir.JClass;
+import edu.university.ecs.lab.common.models.ir.MethodCall;
+import edu.university.ecs.lab.common.models.ir.MicroserviceSystem;
+import edu.university.ecs.lab.common.utils.ExtractionMetrics;
+import edu.university.ecs.lab.common.utils.JsonReadWriteUtils;
+import org.junit.jupiter.api.Test;
+import unit.git.FixtureRepository;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SharedFileExtractionTest extends FixtureExtractionTest {
+
+    @Test
+    public void testIdenticalFilesAreParsedOnce() throws Exception {
+        Map<String, String> files = new LinkedHashMap<>(FixtureRepository.system(List.of("order-service", "user-service")));
+        for (String service : List.of("order-service", "user-service")) {
+            files.put(service + "/src/main/resources/logging.yml", "logging:\n  level:\n    root: INFO\n");
+        }
+        repository.commit(files);
+        long orderFiles = parsedFiles(extract("order", Map.of("extractionMetrics", true, "includePaths", List.of("order-service"))));
+        Path systemPath = extract("system", Map.of("extractionMetrics", true));
+
+        // Both microservices hold the same logging config, its copy in the second is derived from the first
+        assertEquals(2 * orderFiles - 1, parsedFiles(systemPath));
+
+        MicroserviceSystem microserviceSystem = read(systemPath);
+        for (String service : List.of("order-service", "user-service")) {
+            String path = "/" + service + "/src/main/resources/logging.yml";
+            assertTrue(microserviceSystem.findMicroserviceByPath("/" + service).getFiles().stream()
+                    .anyMatch(configFile -> configFile.getPath().equals(path)));
+        }
+    }
+
+    @Test
+    public void testIdenticalFilesResolveTypesPerModule() throws Exception {
+        Map<String, String> files = new LinkedHashMap<>(FixtureRepository.system(List.of("order-service", "user-service")));
+        Map<String, String> resultTypes = Map.of("order-service", "Order", "user-service", "Account");
+        for (String service : List.of("order-service", "user-service")) {
+            // The same lookup in both microservices, the type its source opens differs
+            String dir = service + "/src/main/java/com/demo/shared/";
+            files.put(dir + "Lookup.java", "package com.demo.shared;\n"
+                    + "import org.springframework.stereotype.Service;\n"
+                    + "@Service\n"
+                    + "public class Lookup {\n"
+                    + "    private Source source;\n"
+                    + "    public String find() { return source.open().getName(); }\n"
+                    + "}\n");
+            files.put(dir + "Source.java", "package com.demo.shared;\n"
+                    + "public class Source { public " + resultTypes.get(service) + " open() { return null; } }\n");
+            files.put(dir + resultTypes.get(service) + ".java", "package com.demo.shared;\n"
+                    + "public class " + resultTypes.get(service) + " { public String getName() { return null; } }\n");
+        }
+        repository.commit(files);
+
+        MicroserviceSystem microserviceSystem = read(extract("system", Map.of()));
+        for (String service : List.of("order-service", "user-service")) {
+            JClass lookup = microserviceSystem.findClass("/" + service + "/src/main/java/com/demo/shared/Lookup.java");
+            assertNotNull(lookup);
+            MethodCall getName = lookup.getMethodCalls().stream()
+                    .filter(methodCall -> methodCall.getName().equals("getName")).findFirst().orElseThrow();
+            assertEquals(resultTypes.get(service), getName.getObjectType());
+            assertEquals(service, getName.getMicroserviceName());
+        }
+    }
+
+    private static long parsedFiles(Path output) {
+        JsonObject metrics = JsonReadWriteUtils.readFromJSON(ExtractionMetrics.sidecarPath(output.toString()), JsonObject.class);
+        return metrics.getAsJsonObject("files").get("count").getAsLong();
+    }
+}
@@ -0,0 +1,79 @@
+package unit.git;
+
+import edu.university.ecs.lab.common.services.GitService;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommitWalkTest {
+
+    @TempDir
+    Path directory;
+
+    private FixtureRepository fixture;
+    private String pom, readme, order, feature, main, merge, docs;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        fixture = new FixtureRepository(directory, "walk-fixture");
+        pom = fixture.commit(Map.of("order-service/pom.xml", "<project/>"));
+        readme = fixture.commit(Map.of("README.md", "# Demo"));
+        order = fixture.commit(Map.of("order-service/src/main/java/Order.java", "class Order {}"));
+
+        fixture.checkout("feature", true);
+        feature = fixture.commit(Map.of("order-service/src/main/java/Item.java", "class Item {}"));
+        fixture.checkout("main", false);
+        main = fixture.commit(Map.of("order-service/src/main/resources/application.yml", "server:\n  port: 8080\n"));
+
+        merge = fixture.merge("feature");
+        docs = fixture.commit(Map.of(".github/workflows/build.yml", "on: push"));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Test
+    public void testCommitsChangingValidFilesInTopologicalOrder() throws Exception {
+        Repository repository = fixture.getRepository();
+
+        // The README and workflow commits change no valid file, the merge adds the feature files to main
+        List<String> commits = walk(repository, null, null, false);
+        assertEquals(List.of(pom, order), commits.subList(0, 2));
+        assertEquals(Set.of(main, feature), Set.copyOf(commits.subList(2, 4)));
+        assertEquals(merge, commits.get(4));
+        assertEquals(5, commits.size());
+        assertFalse(commits.contains(readme));
+        assertFalse(commits.contains(docs));
+
+        // Following first parents the feature commit is skipped, its change is part of the merge
+        assertEquals(List.of(pom, order, main, merge), walk(repository, null, null, true));
+
+        // A range excludes its start and the ancestors of the start
+        assertEquals(List.of(main, merge), walk(repository, order, "HEAD", true));
+        assertEquals(List.of(order, main), walk(repository, pom, main.substring(0, 7), false));
+    }
+
+    private static List<String> walk(Repository repository, String fromCommit, String toCommit, boolean firstParent) throws Exception {
+        List<String> commits = new ArrayList<>();
+        try (RevWalk revWalk = GitService.walkCommits(repository, fromCommit, toCommit, firstParent)) {
+            for (RevCommit commit : revWalk) {
+                commits.add(commit.getName());
+            }
+        }
+        return commits;
+    }
+}
@@ -0,0 +1,258 @@
+package unit.git;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import edu.university.ecs.lab.common.utils.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Git repository of a small microservice system for tests. The services under test clone it
+ * from its file URL into the local clone directory, which is removed again on close.
+ */
+public class FixtureRepository implements AutoCloseable {
+    private final Path source;
+    private final String name;
+    private final Git git;
+
+    /**
+     * Create an empty repository on the main branch
+     *
+     * @param directory the directory to create the repository in
+     * @param name the name of the repository and of its clone
+     */
+    public FixtureRepository(Path directory, String name) throws Exception {
+        this.name = name;
+        this.source = directory.resolve(name + ".git");
+        deleteClone();
+        this.git = Git.init().setDirectory(source.toFile()).setInitialBranch("main").call();
+    }
+
+    /**
+     * Write files and commit them
+     *
+     * @param files the content of each file by path, null to delete the file
+     * @return the id of the new commit
+     */
+    public String commit(Map<String, String> files) throws Exception {
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            Path path = source.resolve(file.getKey());
+            if (file.getValue() == null) {
+                Files.delete(path);
+                git.rm().addFilepattern(file.getKey()).call();
+            } else {
+                Files.createDirectories(path.getParent());
+                Files.writeString(path, file.getValue());
+            }
+        }
+        git.add().addFilepattern(".").call();
+
+        return git.commit().setMessage("commit").setAuthor("test", "test@example.com")
+                .setCommitter("test", "test@example.com").call().getName();
+    }
+
+    /**
+     * Switch the working tree to a branch
+     *
+     * @param branch the name of the branch
+     * @param create whether the branch is created at the current commit
+     */
+    public void checkout(String branch, boolean create) throws Exception {
+        git.checkout().setCreateBranch(create).setName(branch).call();
+    }
+
+    /**
+     * Merge a branch into the current branch with a merge commit
+     *
+     * @param branch the name of the branch to merge
+     * @return the id of the merge commit
+     */
+    public String merge(String branch) throws Exception {
+        MergeResult result = git.merge().include(git.getRepository().resolve(branch)).setMessage("merge")
+                .setFastForward(MergeCommand.FastForwardMode.NO_FF).call();
+        if (!result.getMergeStatus().isSuccessful()) {
+            throw new IllegalStateException("Failed to merge " + branch + ": " + result.getMergeStatus());
+        }
+        return result.getNewHead().getName();
+    }
+
+    /**
+     * @return the source repository
+     */
+    public Repository getRepository() {
+        return git.getRepository();
+    }
+
+    /**
+     * Write a config file of the repository
+     *
+     * @param directory the directory to write the config to
+     * @param fileName the name of the config file
+     * @param options additional options of the config
+     * @return the path of the config file
+     */
+    public String writeConfig(Path directory, String fileName, Map<String, Object> options) throws IOException {
+        JsonObject json = new JsonObject();
+        json.addProperty("systemName", name);
+        json.addProperty("repositoryURL", "file://" + source);
+        json.addProperty("baseBranch", "main");
+        options.forEach((option, value) -> json.add(option, new Gson().toJsonTree(value)));
+
+        Path config = directory.resolve(fileName);
+        Files.writeString(config, json.toString());
+        return config.toString();
+    }
+
+    /**
+     * @return the path of the local clone of the repository
+     */
+    public Path getClonePath() {
+        return Path.of(FileUtils.getRepositoryPath(name));
+    }
+
+    /**
+     * The files of a microservice with a controller calling its service and another microservice,
+     * an entity with its repository, a Feign client and a DTO shared by every microservice
+     *
+     * @param service the name of the microservice, its directory and package
+     * @param called the name of the microservice called by the controller
+     * @return the content of each file by path
+     */
+    public static Map<String, String> microservice(String service, String called) {
+        String pkg = "com.demo." + service.replace("-service", "");
+        String dir = service + "/src/main/java/" + pkg.replace('.', '/') + "/";
+
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put(service + "/pom.xml", "<project><artifactId>" + service + "</artifactId></project>");
+        files.put(service + "/src/main/resources/application.yml", "server:\n  port: 8080\nspring:\n  application:\n    name: " + service + "\n");
+        files.put(dir + "controller/ItemController.java", "package " + pkg + ".controller;\n"
+                + "import org.springframework.web.bind.annotation.*;\n"
+                + "import org.springframework.web.client.RestTemplate;\n"
+                + "import " + pkg + ".service.ItemService;\n"
+                + "import " + pkg + ".model.Item;\n"
+                + "import java.util.List;\n"
+                + "@RestController\n"
+                + "@RequestMapping(\"/api/" + service + "\")\n"
+                + "public class ItemController {\n"
+                + "    private RestTemplate restTemplate;\n"
+                + "    private ItemService service;\n"
+                + "    @GetMapping(\"/items/{id}\")\n"
+                + "    public Item get(@PathVariable String id) {\n"
+                + "        Item other = restTemplate.getForObject(\"http://" + called + "/api/" + called + "/items/\" + id, Item.class);\n"
+                + "        List<Item> items = service.findAll();\n"
+                + "        return service.find(id);\n"
+                + "    }\n"
+                + "    @PostMapping(\"/items\")\n"
+                + "    public Item post(@RequestBody Item item) {\n"
+                + "        service.save(item);\n"
+                + "        return restTemplate.postForObject(\"http://" + called + "/api/" + called + "/items\", item, Item.class);\n"
+                + "    }\n"
+                + "}\n");
+        files.put(dir + "service/ItemService.java", "package " + pkg + ".service;\n"
+                + "import org.springframework.stereotype.Service;\n"
+                + "import " + pkg + ".model.Item;\n"
+                + "import " + pkg + ".repository.ItemRepository;\n"
+                + "import java.util.List;\n"
+                + "@Service\n"
+                + "public class ItemService {\n"
+                + "    private ItemRepository repo;\n"
+                + "    public List<Item> findAll() { return repo.findAll(); }\n"
+                + "    public Item find(String id) { String s = id.trim(); return repo.findById(s).orElse(null); }\n"
+                + "    public void save(Item item) { repo.save(item); }\n"
+                + "}\n");
+        files.put(dir + "model/Item.java", "package " + pkg + ".model;\n"
+                + "import javax.persistence.Entity;\n"
+                + "@Entity\n"
+                + "public class Item { private String id; private String name; public String getId() { return id; } }\n");
+        files.put(dir + "repository/ItemRepository.java", "package " + pkg + ".repository;\n"
+                + "import org.springframework.stereotype.Repository;\n"
+                + "import org.springframework.data.jpa.repository.JpaRepository;\n"
+                + "import " + pkg + ".model.Item;\n"
+                + "@Repository\n"
+                + "public interface ItemRepository extends JpaRepository<Item, String> { Item findByName(String name); }\n");
+        files.put(dir + "client/ItemClient.java", "package " + pkg + ".client;\n"
+                + "import org.springframework.cloud.openfeign.FeignClient;\n"
+                + "import org.springframework.web.bind.annotation.*;\n"
+                + "@FeignClient(name = \"" + called + "\")\n"
+                + "public interface ItemClient {\n"
+                + "    @GetMapping(\"/api/" + called + "/items/{id}\")\n"
+                + "    String get(@PathVariable(\"id\") String id);\n"
+                + "}\n");
+        files.put(dir + "dto/SharedDto.java", "package com.demo.shared;\n"
+                + "import javax.persistence.Embeddable;\n"
+                + "@Embeddable\n"
+                + "public class SharedDto { private String id; public String getId() { return id; } }\n");
+        return files;
+    }
+
+    /**
+     * The files of a system of microservices calling each other in turn, below a parent pom
+     *
+     * @param services the names of the microservices
+     * @return the content of each file by path
+     */
+    public static Map<String, String> system(List<String> services) {
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("pom.xml", "<project><modules><module>" + String.join("</module><module>", services) + "</module></modules></project>");
+        for (int i = 0; i < services.size(); i++) {
+            files.putAll(microservice(services.get(i), services.get((i + 1) % services.size())));
+        }
+        return files;
+    }
+
+    /**
+     * Write a tree of blobs to the object database without a commit
+     *
+     * @param repository the repository to write to
+     * @param files the content of each file by path
+     * @return the id of the tree
+     */
+    public static ObjectId writeTree(Repository repository, Map<String, String> files) throws IOException {
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            DirCache dirCache = DirCache.newInCore();
+            DirCacheBuilder builder = dirCache.builder();
+            for (Map.Entry<String, String> file : new TreeMap<>(files).entrySet()) {
+                DirCacheEntry entry = new DirCacheEntry(file.getKey());
+                entry.setFileMode(FileMode.REGULAR_FILE);
+                entry.setObjectId(inserter.insert(Constants.OBJ_BLOB, file.getValue().getBytes(StandardCharsets.UTF_8)));
+                builder.add(entry);
+            }
+            builder.finish();
+
+            ObjectId tree = dirCache.writeTree(inserter);
+            inserter.flush();
+            return tree;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        git.close();
+        deleteClone();
+    }
+
+    private void deleteClone() throws IOException {
+        for (String path : List.of(FileUtils.getRepositoryPath(name), FileUtils.getRepositoryPath(name) + "-worktrees")) {
+            org.eclipse.jgit.util.FileUtils.delete(new File(path), org.eclipse.jgit.util.FileUtils.RECURSIVE | org.eclipse.jgit.util.FileUtils.SKIP_MISSING);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package unit.git;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import edu.university.ecs.lab.common.config.Config;
+import edu.university.ecs.lab.common.services.GitService;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GitCloneTest {
+
+    @TempDir
+    Path directory;
+
+    private Path source;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        source = directory.resolve("fixture.git");
+        try (Git git = Git.init().setDirectory(source.toFile()).setInitialBranch("main").call()) {
+            for (int i = 0; i < 3; i++) {
+                commit(git, "order/src/main/java/Order.java", "class Order { int version = " + i + "; }");
+            }
+            git.branchCreate().setName("feature").call();
+        }
+    }
+
+    @Test
+    public void testShallowSingleBranchClone() throws Exception {
+        JsonObject json = config();
+        json.addProperty("cloneDepth", 1);
+        json.addProperty("singleBranch", true);
+
+        File clone = directory.resolve("clone").toFile();
+        GitService.cloneRepository(new Gson().fromJson(json, Config.class), clone);
+
+        try (Git git = Git.open(clone)) {
+            assertEquals(1, count(git.log().call()));
+            assertNotNull(git.getRepository().findRef(Constants.R_REMOTES + "origin/main"));
+            assertNull(git.getRepository().findRef(Constants.R_REMOTES + "origin/feature"));
+            assertTrue(Files.exists(clone.toPath().resolve("order/src/main/java/Order.java")));
+        }
+
+        // Without a base branch the default branch of the remote is cloned
+        json.remove("baseBranch");
+        File defaultClone = directory.resolve("default").toFile();
+        GitService.cloneRepository(new Gson().fromJson(json, Config.class), defaultClone);
+        try (Git git = Git.open(defaultClone)) {
+            assertEquals("main", git.getRepository().getBranch());
+            assertNull(git.getRepository().findRef(Constants.R_REMOTES + "origin/feature"));
+        }
+    }
+
+    @Test
+    public void testMirrorIsReusedAndFetched() throws Exception {
+        JsonObject json = config();
+        json.addProperty("mirrorDirectory", directory.resolve("mirrors").toString());
+        Config config = new Gson().fromJson(json, Config.class);
+
+        GitService.cloneRepository(config, directory.resolve("first").toFile());
+
+        try (Git git = Git.open(source.toFile())) {
+            commit(git, "order/src/main/java/Item.java", "class Item {}");
+        }
+        GitService.cloneRepository(config, directory.resolve("second").toFile());
+
+        // Both clones come from the same mirror, which was fetched before the second clone
+        assertEquals(1, directory.resolve("mirrors").toFile().list().length);
+        try (Git first = Git.open(directory.resolve("first").toFile());
+             Git second = Git.open(directory.resolve("second").toFile())) {
+            assertEquals(3, count(first.log().call()));
+            assertEquals(4, count(second.log().call()));
+        }
+    }
+
+    @Test
+    public void testFailedCloneIsRemoved() {
+        JsonObject json = config();
+        json.addProperty("repositoryURL", "file://" + directory.resolve("missing.git"));
+
+        File clone = directory.resolve("clone").toFile();
+        assertThrows(GitAPIException.class, () -> GitService.cloneRepository(new Gson().fromJson(json, Config.class), clone));
+        assertFalse(clone.exists());
+    }
+
+    private JsonObject config() {
+        JsonObject json = new JsonObject();
+        json.addProperty("systemName", "fixture");
+        json.addProperty("repositoryURL", "file://" + source);
+        json.addProperty("baseBranch", "main");
+        return json;
+    }
+
+    private void commit(Git git, String path, String content) throws Exception {
+        Path file = git.getRepository().getWorkTree().toPath().resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("commit").setAuthor("test", "test@example.com").setCommitter("test", "test@example.com").call();
+    }
+
+    private static int count(Iterable<RevCommit> commits) {
+        List<RevCommit> list = new ArrayList<>();
+        commits.forEach(list::add);
+        return list.size();
+    }
+}
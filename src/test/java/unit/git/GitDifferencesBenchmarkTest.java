@@ -0,0 +1,133 @@
+package unit.git;
+
+import edu.university.ecs.lab.common.services.GitService;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark of the differences between two trees of a synthetic repository with a few thousand
+ * files, a few hundred of which change, half of them in comments only. Tagged as a benchmark,
+ * it only runs with the benchmark profile, mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+public class GitDifferencesBenchmarkTest {
+    private static final int SERVICES = 20;
+    private static final int PACKAGES = 10;
+    private static final int FILES = 8;
+    private static final int CHANGED = 300;
+
+    @TempDir
+    Path repositoryDirectory;
+
+    @Test
+    public void testDifferencesOfLargeTree() throws Exception {
+        try (Repository repository = FileRepositoryBuilder.create(repositoryDirectory.resolve(".git").toFile())) {
+            repository.create(true);
+
+            Map<String, String> oldFiles = new TreeMap<>();
+            for (int service = 0; service < SERVICES; service++) {
+                oldFiles.put("service" + service + "/pom.xml", "<project><artifactId>service" + service + "</artifactId></project>");
+                for (int pkg = 0; pkg < PACKAGES; pkg++) {
+                    for (int file = 0; file < FILES; file++) {
+                        String name = "Class" + pkg + "_" + file;
+                        oldFiles.put("service" + service + "/src/main/java/com/demo/pkg" + pkg + "/" + name + ".java",
+                                "package com.demo.pkg" + pkg + ";\npublic class " + name + " {\n    int value = " + service + ";\n}\n");
+                    }
+                }
+            }
+
+            // Every other changed file only gets a comment
+            Map<String, String> newFiles = new TreeMap<>(oldFiles);
+            List<String> javaFiles = oldFiles.keySet().stream().filter(path -> path.endsWith(".java")).collect(Collectors.toList());
+            Set<String> expected = new TreeSet<>();
+            for (int i = 0; i < CHANGED; i++) {
+                String path = javaFiles.get(i * javaFiles.size() / CHANGED);
+                if (i % 2 == 0) {
+                    newFiles.put(path, oldFiles.get(path).replace("int value", "long value"));
+                    expected.add(path);
+                } else {
+                    newFiles.put(path, "// Reviewed\n" + oldFiles.get(path).replace("{\n", "{ /* unchanged */\n"));
+                }
+            }
+            newFiles.remove(javaFiles.get(1));
+            newFiles.put("service0/src/main/java/com/demo/Added.java", "public class Added {}");
+            newFiles.put("service0/src/main/resources/application.yml", "server:\n  port: 8080\n");
+            expected.addAll(List.of(javaFiles.get(1), "service0/src/main/java/com/demo/Added.java", "service0/src/main/resources/application.yml"));
+
+            ObjectId oldTree = FixtureRepository.writeTree(repository, oldFiles);
+            ObjectId newTree = FixtureRepository.writeTree(repository, newFiles);
+
+            long start = System.nanoTime();
+            List<DiffEntry> differences = GitService.getDifferences(repository, oldTree, newTree);
+            long batchedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            // The former lookup walked the whole tree for both sides of every changed Java file
+            start = System.nanoTime();
+            Set<String> perPath = perPathDifferences(repository, oldTree, newTree);
+            long perPathMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(expected, paths(differences));
+            assertEquals(perPath, paths(differences));
+            assertTrue(batchedMillis <= perPathMillis, "Differences of " + newFiles.size() + " files, " + CHANGED + " changed: "
+                    + batchedMillis + " ms batched, " + perPathMillis + " ms with a tree walk per path");
+        }
+    }
+
+    private static Set<String> perPathDifferences(Repository repository, ObjectId oldTree, ObjectId newTree) throws Exception {
+        List<DiffEntry> rawDiffs;
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(oldTree);
+            treeWalk.addTree(newTree);
+            treeWalk.setRecursive(true);
+            rawDiffs = DiffEntry.scan(treeWalk);
+        }
+
+        Set<String> paths = new TreeSet<>();
+        for (DiffEntry diff : rawDiffs) {
+            String oldCode = strip(contentByPath(repository, oldTree, diff.getOldPath()));
+            String newCode = strip(contentByPath(repository, newTree, diff.getNewPath()));
+            if (!diff.getNewPath().endsWith(".java") && !diff.getOldPath().endsWith(".java") || !oldCode.equals(newCode)) {
+                paths.add(diff.getChangeType() == DiffEntry.ChangeType.DELETE ? diff.getOldPath() : diff.getNewPath());
+            }
+        }
+        return paths;
+    }
+
+    private static String contentByPath(Repository repository, ObjectId tree, String path) throws Exception {
+        try (ObjectReader reader = repository.newObjectReader();
+             TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(tree);
+            treeWalk.setRecursive(true);
+            while (treeWalk.next()) {
+                if (treeWalk.getPathString().equals(path)) {
+                    return new String(reader.open(treeWalk.getObjectId(0)).getBytes(), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return "";
+    }
+
+    private static String strip(String content) {
+        return content.replaceAll("(//.*|/\\*[^*]*\\*+(?:[^/*][^*]*\\*+)*/|\\s+)", "");
+    }
+
+    private static Set<String> paths(List<DiffEntry> differences) {
+        return differences.stream()
+                .map(diff -> diff.getChangeType() == DiffEntry.ChangeType.DELETE ? diff.getOldPath() : diff.getNewPath())
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+}
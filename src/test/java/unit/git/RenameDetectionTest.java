@@ -0,0 +1,122 @@
+package unit.git;
+
+import com.google.gson.JsonObject;
+import edu.university.ecs.lab.common.models.enums.ClassRole;
+import edu.university.ecs.lab.common.models.ir.JClass;
+import edu.university.ecs.lab.common.models.ir.Microservice;
+import edu.university.ecs.lab.common.models.ir.MicroserviceSystem;
+import edu.university.ecs.lab.common.services.GitService;
+import edu.university.ecs.lab.common.utils.JsonReadWriteUtils;
+import edu.university.ecs.lab.common.utils.MicroserviceSystemWriter;
+import edu.university.ecs.lab.delta.models.Delta;
+import edu.university.ecs.lab.delta.models.SystemChange;
+import edu.university.ecs.lab.delta.models.enums.ChangeType;
+import edu.university.ecs.lab.intermediate.merge.services.MergeService;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RenameDetectionTest {
+    private static final String ORDER = "order-service/src/main/java/com/demo/order/";
+    private static final String HELPER = "package com.demo.order;\n\npublic class Helper {\n"
+            + "    public int one() { return 1; }\n    public int two() { return 2; }\n    public int three() { return 3; }\n}\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRenamesAreDetectedAboveSimilarity() throws Exception {
+        try (Repository repository = FileRepositoryBuilder.create(directory.resolve(".git").toFile())) {
+            repository.create(true);
+
+            ObjectId oldTree = FixtureRepository.writeTree(repository, Map.of(
+                    ORDER + "controller/OrderController.java", "public class OrderController {}",
+                    ORDER + "util/Helper.java", HELPER,
+                    ORDER + "model/Order.java", "public class Order { long id; }",
+                    ORDER + "Unrelated.java", "public class Unrelated { int a; }"));
+            ObjectId newTree = FixtureRepository.writeTree(repository, Map.of(
+                    ORDER + "api/OrderController.java", "public class OrderController {}",
+                    ORDER + "helpers/Helper.java", HELPER.replace("return 3", "return 4"),
+                    ORDER + "model/PurchaseOrder.java", "public class Order { long id; }",
+                    ORDER + "Other.java", "interface Other { void run(); }"));
+
+            // Without rename detection every moved file is a deletion and an addition
+            assertEquals(8, GitService.getDifferences(repository, oldTree, newTree).size());
+
+            Map<String, DiffEntry> renames = new HashMap<>();
+            for (DiffEntry diff : GitService.getDifferences(repository, oldTree, newTree, 50)) {
+                renames.put(diff.getNewPath().equals(DiffEntry.DEV_NULL) ? diff.getOldPath() : diff.getNewPath(), diff);
+            }
+
+            assertEquals(5, renames.size());
+            DiffEntry controller = renames.get(ORDER + "api/OrderController.java");
+            assertEquals(DiffEntry.ChangeType.RENAME, controller.getChangeType());
+            assertEquals(ORDER + "controller/OrderController.java", controller.getOldPath());
+            assertEquals(ChangeType.RENAME, ChangeType.fromDiffEntry(controller));
+
+            // A renamed file with changed content is parsed again
+            DiffEntry helper = renames.get(ORDER + "helpers/Helper.java");
+            assertEquals(DiffEntry.ChangeType.RENAME, helper.getChangeType());
+            assertEquals(ChangeType.MODIFY, ChangeType.fromDiffEntry(helper));
+
+            // The class name is taken from the file name, a renamed file is parsed again even if its content is unchanged
+            DiffEntry order = renames.get(ORDER + "model/PurchaseOrder.java");
+            assertEquals(DiffEntry.ChangeType.RENAME, order.getChangeType());
+            assertEquals(order.getOldId(), order.getNewId());
+            assertEquals(ChangeType.MODIFY, ChangeType.fromDiffEntry(order));
+
+            // Dissimilar files stay a deletion and an addition
+            assertEquals(DiffEntry.ChangeType.DELETE, renames.get(ORDER + "Unrelated.java").getChangeType());
+            assertEquals(DiffEntry.ChangeType.ADD, renames.get(ORDER + "Other.java").getChangeType());
+        }
+    }
+
+    @Test
+    public void testRenameIsAppliedInPlace() throws Exception {
+        Microservice orderService = new Microservice("order-service", "/order-service");
+        JClass controller = new JClass("OrderController", "/" + ORDER + "controller/OrderController.java", "com.demo.order", ClassRole.CONTROLLER);
+        orderService.addJClass(controller);
+        orderService.addJClass(new JClass("OrderService", "/" + ORDER + "service/OrderService.java", "com.demo.order", ClassRole.SERVICE));
+        Microservice userService = new Microservice("user-service", "/user-service");
+        MicroserviceSystem microserviceSystem = new MicroserviceSystem("demo", "old", new HashSet<>(Set.of(orderService, userService)), new HashSet<>());
+
+        String irPath = directory.resolve("IR.json").toString();
+        String deltaPath = directory.resolve("Delta.json").toString();
+        String configPath = directory.resolve("config.json").toString();
+        String outputPath = directory.resolve("NewIR.json").toString();
+        MicroserviceSystemWriter.write(irPath, microserviceSystem);
+        JsonReadWriteUtils.writeToJSON(deltaPath, new SystemChange("old", "new", List.of(
+                new Delta("/" + ORDER + "controller/OrderController.java", "/" + ORDER + "api/OrderController.java", ChangeType.RENAME, new JsonObject()),
+                new Delta("/" + ORDER + "Missing.java", "/" + ORDER + "Found.java", ChangeType.RENAME, new JsonObject()),
+                new Delta("/" + ORDER + "service/OrderService.java", "/" + ORDER + "service/CheckoutService.java", ChangeType.MODIFY,
+                        new JClass("CheckoutService", "/" + ORDER + "service/CheckoutService.java", "com.demo.order", ClassRole.SERVICE).toJsonObject()))));
+        Files.writeString(Path.of(configPath), "{\"systemName\": \"demo\", \"repositoryURL\": \"https://github.com/cloudhubs/demo.git\", \"baseBranch\": \"main\"}");
+
+        new MergeService(irPath, deltaPath, configPath, outputPath).generateMergeIR("new");
+        MicroserviceSystem merged = JsonReadWriteUtils.readFromJSON(outputPath, MicroserviceSystem.class);
+
+        // The class keeps its parsed content under the new path
+        JClass renamed = merged.findClass("/" + ORDER + "api/OrderController.java");
+        assertNotNull(renamed);
+        assertEquals("com.demo.order", renamed.getPackageName());
+        assertEquals(ClassRole.CONTROLLER, renamed.getClassRole());
+        assertNull(merged.findClass("/" + ORDER + "controller/OrderController.java"));
+        assertEquals(1, merged.findMicroserviceByPath("/order-service").getControllers().size());
+
+        // A file that is not in the system is not created by its rename
+        assertNull(merged.findFile("/" + ORDER + "Found.java"));
+
+        // A class whose file name changed is extracted as a modification and parsed again under its new name
+        assertNull(merged.findClass("/" + ORDER + "service/OrderService.java"));
+        assertEquals("CheckoutService", merged.findClass("/" + ORDER + "service/CheckoutService.java").getName());
+    }
+}
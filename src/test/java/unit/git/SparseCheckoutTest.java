@@ -0,0 +1,100 @@
+package unit.git;
+
+import edu.university.ecs.lab.common.services.GitService;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SparseCheckoutTest {
+    private static final String ORDER = "order-service/src/main/java/com/demo/order/";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testOnlyValidFilesBelowBuildFilesAreSelected() {
+        Map<String, ObjectId> treeFiles = new LinkedHashMap<>();
+        for (String path : List.of("README.md", "docs/diagram.png", "tools/Generate.java", "order-service/pom.xml",
+                "order-service/src/main/java/com/demo/Order.java", "order-service/src/main/resources/application.yml",
+                "order-service/src/main/resources/logo.png", "order-service/.github/workflows/build.yml",
+                "gradle-service/build.gradle", "gradle-service/src/main/java/com/demo/Gradle.java")) {
+            treeFiles.put(path, ObjectId.zeroId());
+        }
+
+        assertEquals(List.of("order-service/pom.xml", "order-service/src/main/java/com/demo/Order.java",
+                "order-service/src/main/resources/application.yml", "gradle-service/build.gradle",
+                "gradle-service/src/main/java/com/demo/Gradle.java"), List.copyOf(GitService.getSparseFiles(treeFiles).keySet()));
+
+        // A build file at the repository root covers every valid file
+        treeFiles.put("pom.xml", ObjectId.zeroId());
+        assertTrue(GitService.getSparseFiles(treeFiles).containsKey("tools/Generate.java"));
+        assertFalse(GitService.getSparseFiles(treeFiles).containsKey("README.md"));
+    }
+
+    @Test
+    public void testCommitsAreMaterializedIncrementally() throws Exception {
+        try (FixtureRepository repository = new FixtureRepository(directory, "sparse-fixture")) {
+            Map<String, String> files = new LinkedHashMap<>(FixtureRepository.microservice("order-service", "user-service"));
+            files.put("README.md", "# demo");
+            files.put("tools/Generate.java", "class Generate {}");
+            String first = repository.commit(files);
+
+            Map<String, String> changes = new HashMap<>();
+            changes.put(ORDER + "service/ItemService.java", files.get(ORDER + "service/ItemService.java").replace("trim()", "strip()"));
+            changes.put(ORDER + "model/Item.java", null);
+            changes.put(ORDER + "model/Order.java", "package com.demo.order.model;\npublic class Order {}\n");
+            String second = repository.commit(changes);
+
+            Path clone = repository.getClonePath();
+            Path manifest = clone.resolve(".git").resolve("cimet-sparse");
+            GitService gitService = new GitService(repository.writeConfig(directory, "sparse.json", Map.of("sparseCheckout", true)));
+
+            // Only the files below the build file are written
+            gitService.resetLocal(first);
+            assertTrue(Files.exists(clone.resolve(ORDER + "model/Item.java")));
+            assertFalse(Files.exists(clone.resolve(ORDER + "model/Order.java")));
+            assertFalse(Files.exists(clone.resolve("README.md")));
+            assertFalse(Files.exists(clone.resolve("tools/Generate.java")));
+            assertEquals(manifest(gitService, first), Files.readAllLines(manifest));
+
+            // Moving on writes the changed files and deletes the removed ones
+            gitService.resetLocal(second);
+            assertFalse(Files.exists(clone.resolve(ORDER + "model/Item.java")));
+            assertTrue(Files.exists(clone.resolve(ORDER + "model/Order.java")));
+            assertEquals(changes.get(ORDER + "service/ItemService.java"), Files.readString(clone.resolve(ORDER + "service/ItemService.java")));
+            assertEquals(manifest(gitService, second), Files.readAllLines(manifest));
+
+            // HEAD and the index follow the commit
+            try (Repository cloned = new FileRepositoryBuilder().setGitDir(clone.resolve(".git").toFile()).build()) {
+                assertEquals(second, cloned.resolve("HEAD").name());
+                DirCache dirCache = cloned.readDirCache();
+                assertEquals(gitService.getTreeFiles(second).size(), dirCache.getEntryCount());
+                assertEquals(gitService.getTreeFiles(second).get("README.md"), dirCache.getEntry("README.md").getObjectId());
+                assertNull(dirCache.getEntry(ORDER + "model/Item.java"));
+            }
+
+            // A full reset afterwards restores the files left out
+            new GitService(repository.writeConfig(directory, "full.json", Map.of())).resetLocal(second);
+            assertTrue(Files.exists(clone.resolve("README.md")));
+            assertFalse(Files.exists(manifest));
+        }
+    }
+
+    private static List<String> manifest(GitService gitService, String commitID) {
+        return GitService.getSparseFiles(gitService.getTreeFiles(commitID)).entrySet().stream()
+                .map(file -> file.getValue().name() + " " + file.getKey()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,86 @@
+package unit.git;
+
+import edu.university.ecs.lab.common.services.GitService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorktreePoolTest {
+    private static final String ORDER = "order-service/src/main/java/com/demo/Order.java";
+    private static final String ITEM = "order-service/src/main/java/com/demo/Item.java";
+
+    @TempDir
+    Path directory;
+
+    private final List<String> commits = new ArrayList<>();
+    private FixtureRepository repository;
+    private String configPath;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        repository = new FixtureRepository(directory, "worktree-fixture");
+        commits.add(repository.commit(Map.of("order-service/pom.xml", "<project><artifactId>order-service</artifactId></project>")));
+        commits.add(repository.commit(Map.of(ITEM, "class Item {}")));
+        commits.add(repository.commit(Map.of(ORDER, "class Order { int version = 1; }")));
+        Map<String, String> last = new HashMap<>();
+        last.put(ITEM, null);
+        last.put(ORDER, "class Order { int version = 2; }");
+        commits.add(repository.commit(last));
+
+        configPath = repository.writeConfig(directory, "config.json", Map.of("worktrees", 2));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        repository.close();
+    }
+
+    @Test
+    public void testLeasesHoldTheirCommitAtOnce() throws Exception {
+        GitService gitService = new GitService(configPath);
+
+        try (GitService.Worktree older = gitService.leaseWorktree(commits.get(2));
+             GitService.Worktree newer = gitService.leaseWorktree(commits.get(3))) {
+            assertNotEquals(older.getPath(), newer.getPath());
+            assertEquals("class Order { int version = 1; }", Files.readString(older.getPath().resolve(ORDER)));
+            assertTrue(Files.exists(older.getPath().resolve(ITEM)));
+            assertEquals("class Order { int version = 2; }", Files.readString(newer.getPath().resolve(ORDER)));
+            assertFalse(Files.exists(newer.getPath().resolve(ITEM)));
+
+            // Every checkout is leased, the next lease waits for one to be returned
+            CompletableFuture<Path> waiting = CompletableFuture.supplyAsync(() -> {
+                try (GitService.Worktree worktree = gitService.leaseWorktree(commits.get(3))) {
+                    return worktree.getPath();
+                }
+            });
+            assertThrows(TimeoutException.class, () -> waiting.get(500, TimeUnit.MILLISECONDS));
+            newer.close();
+            assertEquals(newer.getPath(), waiting.get(10, TimeUnit.SECONDS));
+        }
+
+        // An idle checkout at the commit is preferred, otherwise the least recently leased one is moved
+        Path newerPath;
+        try (GitService.Worktree worktree = gitService.leaseWorktree(commits.get(3))) {
+            newerPath = worktree.getPath();
+            assertEquals(commits.get(3), worktree.getCommitID());
+        }
+        try (GitService.Worktree worktree = gitService.leaseWorktree(commits.get(1))) {
+            assertNotEquals(newerPath, worktree.getPath());
+            assertTrue(Files.exists(worktree.getPath().resolve(ITEM)));
+            assertFalse(Files.exists(worktree.getPath().resolve(ORDER)));
+        }
+    }
+}
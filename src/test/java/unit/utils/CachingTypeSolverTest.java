@@ -0,0 +1,71 @@
+package unit.utils;
+
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import edu.university.ecs.lab.common.utils.CachingTypeSolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingTypeSolverTest {
+
+    @Test
+    public void testLookupsAreCachedInLeastRecentlyUsedOrder() {
+        CountingTypeSolver delegate = new CountingTypeSolver();
+        CachingTypeSolver cachingTypeSolver = new CachingTypeSolver(delegate, 2);
+
+        // Lookups the delegate makes through its parent go through the cache as well
+        assertSame(cachingTypeSolver, delegate.getParent());
+
+        assertTrue(cachingTypeSolver.tryToSolveType("java.lang.String").isSolved());
+        assertTrue(cachingTypeSolver.tryToSolveType("java.lang.String").isSolved());
+        assertEquals(List.of("java.lang.String"), delegate.lookups);
+
+        // Unsolved lookups are cached too
+        assertFalse(cachingTypeSolver.tryToSolveType("com.demo.Missing").isSolved());
+        assertFalse(cachingTypeSolver.tryToSolveType("com.demo.Missing").isSolved());
+        assertEquals(List.of("java.lang.String", "com.demo.Missing"), delegate.lookups);
+        assertEquals(2, cachingTypeSolver.getHits());
+        assertEquals(2, cachingTypeSolver.getMisses());
+
+        // A third name evicts the least recently used one
+        cachingTypeSolver.tryToSolveType("java.util.List");
+        cachingTypeSolver.tryToSolveType("com.demo.Missing");
+        cachingTypeSolver.tryToSolveType("java.lang.String");
+        assertEquals(List.of("java.lang.String", "com.demo.Missing", "java.util.List", "java.lang.String"), delegate.lookups);
+
+        cachingTypeSolver.clear();
+        cachingTypeSolver.tryToSolveType("com.demo.Missing");
+        assertEquals(5, delegate.lookups.size());
+    }
+
+    /**
+     * Reflection type solver recording the names it is asked to solve
+     */
+    private static class CountingTypeSolver implements TypeSolver {
+        private final TypeSolver reflectionTypeSolver = new ReflectionTypeSolver();
+        private final List<String> lookups = new ArrayList<>();
+        private TypeSolver parent;
+
+        @Override
+        public TypeSolver getParent() {
+            return parent;
+        }
+
+        @Override
+        public void setParent(TypeSolver parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+            lookups.add(name);
+            return reflectionTypeSolver.tryToSolveType(name);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package unit.utils;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import edu.university.ecs.lab.common.utils.DeclarationCollector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeclarationCollectorTest {
+    private static final String SOURCE = String.join("\n",
+            "interface Helper { void help(); }",
+            "@Service",
+            "public class OrderService implements Runnable, Comparable<OrderService> {",
+            "    private String url = \"/orders\";",
+            "    public void run() {",
+            "        helper.help();",
+            "        new Helper() { public void help() { client.call(); } };",
+            "    }",
+            "    @Deprecated",
+            "    static class Inner implements Cloneable {",
+            "        private int count;",
+            "        void inner() { other.call(); }",
+            "    }",
+            "}");
+
+    @Test
+    public void testMatchesFindAll() {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+        DeclarationCollector declarations = DeclarationCollector.collect(cu);
+
+        assertEquals(cu.findAll(MethodDeclaration.class), declarations.getMethods());
+        assertEquals(cu.findAll(FieldDeclaration.class), declarations.getFields());
+        assertEquals(3, declarations.getTypes().size());
+
+        for (MethodDeclaration methodDeclaration : declarations.getMethods()) {
+            assertEquals(methodDeclaration.findAll(MethodCallExpr.class), declarations.getMethodCalls(methodDeclaration));
+        }
+
+        Set<String> classAnnotations = declarations.getClassAnnotations().stream().map(AnnotationExpr::getNameAsString).collect(Collectors.toSet());
+        assertEquals(Set.of("Service", "Deprecated"), classAnnotations);
+    }
+
+    @Test
+    public void testImplementedTypesOfPrimaryType() {
+        DeclarationCollector declarations = DeclarationCollector.collect(StaticJavaParser.parse(SOURCE));
+
+        assertEquals(Set.of("Runnable", "Comparable"), declarations.getImplementedTypes("OrderService"));
+        assertEquals(Set.of(), declarations.getImplementedTypes("Missing"));
+    }
+}
@@ -0,0 +1,162 @@
+package unit.utils;
+
+import edu.university.ecs.lab.common.services.GitService;
+import edu.university.ecs.lab.common.utils.DeclarationIndex;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import unit.git.FixtureRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeclarationIndexTest {
+    private static final String SOURCE = "package com.demo.order;\n"
+            + "/* class Commented {} */\n"
+            + "@Service(value = \"class Quoted {}\")\n"
+            + "public class OrderService implements OrderApi, java.io.Serializable, Comparable<OrderService> {\n"
+            + "    private Class<?> type = OrderService.class;\n"
+            + "    private int[] sizes = {1, 2};\n"
+            + "    void place() {\n"
+            + "        class Local {}\n"
+            + "        new Runnable() { public void run() {} };\n"
+            + "    }\n"
+            + "    static class Line extends Base implements Cloneable {\n"
+            + "        enum Status { OPEN, CLOSED { void close() {} } }\n"
+            + "    }\n"
+            + "    interface Listener extends EventListener {}\n"
+            + "    @interface Audited {}\n"
+            + "    record Total<T>(int amount, String currency) implements Money {}\n"
+            + "}\n";
+
+    @TempDir
+    Path repositoryDirectory;
+
+    @Test
+    public void testMemberTypesAreIndexed() {
+        List<DeclarationIndex.Declaration> declarations = DeclarationIndex.scan("order/src/main/java/com/demo/order/OrderService.java",
+                ObjectId.zeroId(), SOURCE.getBytes(StandardCharsets.UTF_8));
+
+        Map<String, DeclarationIndex.Declaration> byName = declarations.stream()
+                .collect(Collectors.toMap(DeclarationIndex.Declaration::getName, Function.identity()));
+        assertEquals(Set.of("com.demo.order.OrderService", "com.demo.order.OrderService.Line", "com.demo.order.OrderService.Line.Status",
+                "com.demo.order.OrderService.Listener", "com.demo.order.OrderService.Audited", "com.demo.order.OrderService.Total"), byName.keySet());
+
+        assertEquals(List.of("OrderApi", "Serializable", "Comparable"), byName.get("com.demo.order.OrderService").getInterfaces());
+        assertEquals(List.of("Cloneable"), byName.get("com.demo.order.OrderService.Line").getInterfaces());
+        assertEquals(List.of("EventListener"), byName.get("com.demo.order.OrderService.Listener").getInterfaces());
+        assertEquals(List.of("Money"), byName.get("com.demo.order.OrderService.Total").getInterfaces());
+
+        assertEquals(DeclarationIndex.Kind.ENUM, byName.get("com.demo.order.OrderService.Line.Status").getKind());
+        assertEquals(DeclarationIndex.Kind.INTERFACE, byName.get("com.demo.order.OrderService.Listener").getKind());
+        assertEquals(DeclarationIndex.Kind.ANNOTATION, byName.get("com.demo.order.OrderService.Audited").getKind());
+        assertEquals(DeclarationIndex.Kind.RECORD, byName.get("com.demo.order.OrderService.Total").getKind());
+        assertEquals("OrderService.Line.Status", byName.get("com.demo.order.OrderService.Line.Status").getTypeName());
+    }
+
+    @Test
+    public void testIndexIsUpdatedFromDifferences() throws Exception {
+        try (Git git = Git.init().setDirectory(repositoryDirectory.toFile()).call()) {
+            write("order/src/main/java/com/demo/Order.java", "package com.demo; public class Order implements Entity {}");
+            write("order/src/main/java/com/demo/Item.java", "package com.demo; public class Item {}");
+            RevCommit first = commit(git);
+
+            write("order/src/main/java/com/demo/Order.java", "package com.demo; public class Order {}");
+            Files.delete(repositoryDirectory.resolve("order/src/main/java/com/demo/Item.java"));
+            write("payment/src/main/java/com/demo/Payment.java", "package com.demo; public class Payment implements Entity {}");
+            RevCommit second = commit(git);
+
+            Function<ObjectId, byte[]> blobReader = blobId -> {
+                try {
+                    return git.getRepository().open(blobId).getBytes();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+
+            DeclarationIndex index = DeclarationIndex.build(first.getName(), treeFiles(git, first), blobReader);
+            assertEquals(1, index.find("com.demo.Item").size());
+            assertEquals(List.of("com.demo.Order"), names(index.findImplementations("Entity")));
+
+            List<DiffEntry> differences;
+            try (TreeWalk treeWalk = new TreeWalk(git.getRepository())) {
+                treeWalk.addTree(first.getTree());
+                treeWalk.addTree(second.getTree());
+                treeWalk.setRecursive(true);
+                differences = DiffEntry.scan(treeWalk);
+            }
+
+            DeclarationIndex updated = index.update(second.getName(), differences, blobReader);
+            assertEquals(second.getName(), updated.getCommitID());
+            assertTrue(updated.find("com.demo.Item").isEmpty());
+            assertEquals(List.of("com.demo.Payment"), names(updated.findImplementations("Entity")));
+            assertEquals("payment/src/main/java/com/demo/Payment.java", updated.find("com.demo.Payment").get(0).getPath());
+
+            // The index of the first commit is unchanged and agrees with a full build of the second
+            assertEquals(1, index.find("com.demo.Item").size());
+            DeclarationIndex rebuilt = DeclarationIndex.build(second.getName(), treeFiles(git, second), blobReader);
+            assertEquals(rebuilt.size(), updated.size());
+            assertEquals(rebuilt.find("com.demo.Order").get(0).getBlobId(), updated.find("com.demo.Order").get(0).getBlobId());
+        }
+    }
+
+    @Test
+    public void testIndexesAreKeptByCommit() throws Exception {
+        try (FixtureRepository repository = new FixtureRepository(repositoryDirectory, "declaration-fixture")) {
+            String order = "order/src/main/java/com/demo/Order.java";
+            String first = repository.commit(Map.of(order, "package com.demo; public class Order {}"));
+            String second = repository.commit(Map.of(order, "package com.demo; /* comment only */ public class Order {}"));
+            try (GitService gitService = new GitService(repository.writeConfig(repositoryDirectory, "config.json", Map.of()))) {
+                DeclarationIndex firstIndex = DeclarationIndex.forCommit(gitService, "declaration-fixture", first);
+                DeclarationIndex secondIndex = DeclarationIndex.forCommit(gitService, "declaration-fixture", first, second);
+
+                // A change that is not a code change still moves the declaration to the new blob
+                assertEquals(second, secondIndex.getCommitID());
+                assertEquals(gitService.getTreeFiles(second).get(order), secondIndex.find("com.demo.Order").get(0).getBlobId());
+                assertNotEquals(firstIndex.find("com.demo.Order").get(0).getBlobId(), secondIndex.find("com.demo.Order").get(0).getBlobId());
+
+                // Extracting an earlier commit again does not replace the index of the later one
+                assertSame(firstIndex, DeclarationIndex.forCommit(gitService, "declaration-fixture", first));
+                assertSame(secondIndex, DeclarationIndex.forCommit(gitService, "declaration-fixture", second));
+            }
+        }
+    }
+
+    private void write(String path, String content) throws Exception {
+        Path file = repositoryDirectory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private static RevCommit commit(Git git) throws Exception {
+        git.add().addFilepattern(".").call();
+        git.add().setUpdate(true).addFilepattern(".").call();
+        return git.commit().setMessage("commit").setAuthor("test", "test@example.com").setCommitter("test", "test@example.com").call();
+    }
+
+    private static Map<String, ObjectId> treeFiles(Git git, RevCommit commit) throws Exception {
+        Map<String, ObjectId> treeFiles = new LinkedHashMap<>();
+        try (TreeWalk treeWalk = new TreeWalk(git.getRepository())) {
+            treeWalk.addTree(git.getRepository().parseCommit(commit).getTree());
+            treeWalk.setRecursive(true);
+            while (treeWalk.next()) {
+                treeFiles.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
+            }
+        }
+        return treeFiles;
+    }
+
+    private static List<String> names(List<DeclarationIndex.Declaration> declarations) {
+        return declarations.stream().map(DeclarationIndex.Declaration::getName).collect(Collectors.toList());
+    }
+}
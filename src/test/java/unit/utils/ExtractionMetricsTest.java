@@ -0,0 +1,54 @@
+package unit.utils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import edu.university.ecs.lab.common.utils.ExtractionMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExtractionMetricsTest {
+
+    @Test
+    public void testSlowestFilesAreKept() {
+        ExtractionMetrics metrics = new ExtractionMetrics(2);
+        metrics.recordFile("/a/A.java", 10, 3_000_000);
+        metrics.recordFile("/a/B.java", 20, 9_000_000);
+        metrics.recordFile("/a/C.java", 30, 1_000_000);
+        metrics.recordFile("/a/D.java", 40, 6_000_000);
+
+        List<String> slowest = metrics.getSlowestFiles().stream().map(ExtractionMetrics.FileTiming::getPath).collect(Collectors.toList());
+        assertEquals(List.of("/a/B.java", "/a/D.java"), slowest);
+        assertEquals(4, metrics.getFileCount());
+    }
+
+    @Test
+    public void testHistogramAndStages() {
+        ExtractionMetrics metrics = new ExtractionMetrics(0);
+        metrics.recordFile("/A.java", 1, 500_000);
+        metrics.recordFile("/B.java", 1, 1_500_000);
+        metrics.recordFile("/C.java", 1, 60_000_000_000L);
+        metrics.time(ExtractionMetrics.Stage.WRITE, () -> { });
+        metrics.record(ExtractionMetrics.Stage.CLONE, 2_000_000);
+
+        JsonObject json = metrics.toJsonObject();
+        JsonArray histogram = json.getAsJsonObject("files").getAsJsonArray("histogram");
+        assertEquals(1, histogram.get(0).getAsJsonObject().get("count").getAsLong());
+        assertEquals(1, histogram.get(1).getAsJsonObject().get("count").getAsLong());
+        assertEquals(1, histogram.get(histogram.size() - 1).getAsJsonObject().get("count").getAsLong());
+        assertEquals(0, json.getAsJsonArray("slowestFiles").size());
+
+        JsonObject stages = json.getAsJsonObject("stages");
+        assertEquals(1, stages.getAsJsonObject("WRITE").get("count").getAsLong());
+        assertEquals(2, stages.getAsJsonObject("CLONE").get("millis").getAsLong());
+    }
+
+    @Test
+    public void testSidecarPathIsNextToIR() {
+        assertEquals("output/IR.metrics.json", ExtractionMetrics.sidecarPath("output/IR.json"));
+        assertEquals("output/IR.metrics.json", ExtractionMetrics.sidecarPath("output/IR"));
+    }
+}
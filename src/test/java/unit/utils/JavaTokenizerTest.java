@@ -0,0 +1,56 @@
+package unit.utils;
+
+import edu.university.ecs.lab.common.utils.JavaTokenizer;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JavaTokenizerTest {
+    private static final String SOURCE = "@GetMapping(\"http://user-service/users\") // list\n"
+            + "public List<User> users() { return client.get(\"/*all*/\", 'x', 10_000L); }\n";
+
+    @Test
+    public void testCommentsAndWhitespaceAreInsignificant() {
+        assertEquals(List.of("@", "GetMapping", "(", "\"http://user-service/users\"", ")", "public", "List", "<", "User", ">", "users",
+                "(", ")", "{", "return", "client", ".", "get", "(", "\"/*all*/\"", ",", "'x'", ",", "10_000L", ")", ";", "}"),
+                JavaTokenizer.tokenize(SOURCE, true));
+        assertEquals(List.of("@", "GetMapping", "(", "\"", ")"), JavaTokenizer.tokenize(SOURCE, false).subList(0, 5));
+
+        String reformatted = "/** Users */\n@GetMapping(\"http://user-service/users\")\npublic List<User> users() {\n"
+                + "    return client.get(\"/*all*/\", 'x', 10_000L); // all users\n}\n";
+        assertEquals(hash(SOURCE), hash(reformatted));
+
+        // Comment markers inside literals are part of the code
+        assertNotEquals(hash(SOURCE), hash(SOURCE.replace("http://user-service", "http://order-service")));
+        assertNotEquals(hash(SOURCE), hash(SOURCE.replace("/*all*/", "/*any*/")));
+        assertNotEquals(hash("int a;"), hash("inta;"));
+    }
+
+    @Test
+    public void testHashIsCachedByBlobId() {
+        ObjectId blobId = ObjectId.fromString("0123456789abcdef0123456789abcdef01234567");
+        AtomicInteger reads = new AtomicInteger();
+
+        ObjectId first = JavaTokenizer.semanticHash(blobId, () -> {
+            reads.incrementAndGet();
+            return SOURCE.getBytes(StandardCharsets.UTF_8);
+        });
+        ObjectId second = JavaTokenizer.semanticHash(blobId, () -> {
+            reads.incrementAndGet();
+            return SOURCE.getBytes(StandardCharsets.UTF_8);
+        });
+
+        assertEquals(1, reads.get());
+        assertEquals(first, second);
+        assertEquals(hash(SOURCE), first);
+    }
+
+    private static ObjectId hash(String source) {
+        return JavaTokenizer.semanticHash(source.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,81 @@
+package unit.utils;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import edu.university.ecs.lab.common.utils.LexicalTypeResolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LexicalTypeResolverTest {
+    private static final String SOURCE = "package com.demo;\n"
+            + "class OrderService<T> {\n"
+            + "    private OrderRepository repository;\n"
+            + "    private java.util.Map.Entry<String, T> entry;\n"
+            + "    void place(RestTemplate template, T item, int count) {\n"
+            + "        template.a();\n"
+            + "        repository.b();\n"
+            + "        this.repository.c();\n"
+            + "        item.d();\n"
+            + "        UUID.e();\n"
+            + "        entry.f();\n"
+            + "        java.util.List<Item> repository = null;\n"
+            + "        repository.g();\n"
+            + "        var local = template;\n"
+            + "        local.h();\n"
+            + "        java.util.List.of(1).forEach(n -> n.i());\n"
+            + "        for (Item each : items) { each.j(); }\n"
+            + "        String.valueOf(count).k();\n"
+            + "    }\n"
+            + "}\n"
+            + "class Child extends Parent {\n"
+            + "    void run() { inherited.l(); }\n"
+            + "}\n";
+
+    private static Optional<String> resolve(CompilationUnit cu, String methodName) {
+        MethodCallExpr methodCallExpr = cu.findAll(MethodCallExpr.class).stream()
+                .filter(mce -> mce.getNameAsString().equals(methodName))
+                .findFirst()
+                .orElseThrow();
+        return LexicalTypeResolver.resolve(methodCallExpr.getScope().orElseThrow());
+    }
+
+    @Test
+    public void testDeclaredTypesAreResolved() {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+
+        assertEquals(Optional.of("RestTemplate"), resolve(cu, "a"));
+        assertEquals(Optional.of("OrderRepository"), resolve(cu, "b"));
+        assertEquals(Optional.of("OrderRepository"), resolve(cu, "c"));
+        assertEquals(Optional.of("Entry"), resolve(cu, "f"));
+        assertEquals(Optional.of("Item"), resolve(cu, "j"));
+    }
+
+    @Test
+    public void testLocalsShadowFields() {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+
+        assertEquals(Optional.of("List"), resolve(cu, "g"));
+    }
+
+    @Test
+    public void testNonReferenceTypesAreEmpty() {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+
+        assertEquals(Optional.of(""), resolve(cu, "d"));
+    }
+
+    @Test
+    public void testUnknownScopesAreLeftToSolver() {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+
+        assertEquals(Optional.empty(), resolve(cu, "e"));
+        assertEquals(Optional.empty(), resolve(cu, "h"));
+        assertEquals(Optional.empty(), resolve(cu, "i"));
+        assertEquals(Optional.empty(), resolve(cu, "k"));
+        assertEquals(Optional.empty(), resolve(cu, "l"));
+    }
+}
@@ -0,0 +1,113 @@
+package unit.utils;
+
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import edu.university.ecs.lab.common.config.Config;
+import edu.university.ecs.lab.common.utils.MavenRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MavenRepositoryTest {
+
+    @TempDir
+    Path repositoryDirectory;
+
+    private MavenRepository openRepository() {
+        JsonObject json = new JsonObject();
+        json.addProperty("systemName", "test");
+        json.addProperty("repositoryURL", "https://github.com/test/test.git");
+        json.addProperty("baseBranch", "main");
+        json.addProperty("mavenRepository", repositoryDirectory.toString());
+        return MavenRepository.fromConfig(new Gson().fromJson(json, Config.class));
+    }
+
+    private void install(String groupPath, String artifactId, String version, String pom, Path jar) throws Exception {
+        Path directory = repositoryDirectory.resolve(groupPath).resolve(artifactId).resolve(version);
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve(artifactId + "-" + version + ".pom"), pom);
+        if (jar != null) {
+            Files.copy(jar, directory.resolve(artifactId + "-" + version + ".jar"));
+        }
+    }
+
+    private static String pom(String dependencies) {
+        return "<project><modelVersion>4.0.0</modelVersion><dependencies>" + dependencies + "</dependencies></project>";
+    }
+
+    @Test
+    public void testTransitiveJarsResolveLibraryTypes() throws Exception {
+        Path gsonJar = Path.of(Gson.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+        // A starter without classes depending on the library without a version, only the highest version is used
+        install("com/google/code/gson", "gson", "2.0.0", pom(""), null);
+        install("com/google/code/gson", "gson", "2.10.0", pom(""), gsonJar);
+        install("org/example", "starter", "1.0", pom(
+                "<dependency><groupId>com.google.code.gson</groupId><artifactId>gson</artifactId>"
+                        + "<exclusions><exclusion><groupId>x</groupId><artifactId>y</artifactId></exclusion></exclusions></dependency>"), null);
+
+        MavenRepository mavenRepository = openRepository();
+        byte[] modulePom = pom("<dependency><groupId>org.example</groupId><artifactId>starter</artifactId><version>${starter.version}</version></dependency>"
+                + "<dependency><groupId>org.example</groupId><artifactId>missing</artifactId><version>1.0</version></dependency>"
+                + "<dependency><groupId>org.junit</groupId><artifactId>junit</artifactId><scope>test</scope></dependency>")
+                .replace("<dependencies>", "<properties><starter.version>1.0</starter.version></properties><dependencies>")
+                .getBytes(StandardCharsets.UTF_8);
+
+        List<Path> jars = mavenRepository.resolveJars(modulePom);
+        assertEquals(1, jars.size());
+        assertTrue(jars.get(0).endsWith(Path.of("2.10.0", "gson-2.10.0.jar")));
+
+        TypeSolver typeSolver = mavenRepository.openLibraries().typeSolver(jars);
+        assertTrue(typeSolver.tryToSolveType("com.google.gson.Gson").isSolved());
+        assertFalse(typeSolver.tryToSolveType("com.example.Missing").isSolved());
+
+        // Library types are resolved against the other libraries and the JDK
+        assertTrue(typeSolver.solveType("com.google.gson.JsonObject").getAllAncestors().stream()
+                .anyMatch(ancestor -> ancestor.getQualifiedName().equals("com.google.gson.JsonElement")));
+    }
+
+    @Test
+    public void testThreadsResolveLibraryTypesAtOnce() throws Exception {
+        Path gsonJar = Path.of(Gson.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        install("com/google/code/gson", "gson", "2.10.0", pom(""), gsonJar);
+
+        MavenRepository mavenRepository = openRepository();
+        List<Path> jars = mavenRepository.resolveJars(pom("<dependency><groupId>com.google.code.gson</groupId><artifactId>gson</artifactId></dependency>")
+                .getBytes(StandardCharsets.UTF_8));
+
+        // Each thread resolves through its own libraries over the shared jar index
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> resolved = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                resolved.add(executor.submit(() -> {
+                    TypeSolver typeSolver = mavenRepository.openLibraries().typeSolver(jars);
+                    return typeSolver.tryToSolveType("com.google.gson.Gson").isSolved()
+                            && typeSolver.solveType("com.google.gson.JsonArray").getAllAncestors().size() > 1;
+                }));
+            }
+            for (Future<Boolean> future : resolved) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testMissingRepositoryIsDisabled() throws Exception {
+        Files.delete(repositoryDirectory);
+        assertNull(openRepository());
+    }
+}
@@ -0,0 +1,56 @@
+package unit.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import edu.university.ecs.lab.common.config.Config;
+import edu.university.ecs.lab.common.utils.MicroserviceFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MicroserviceFilterTest {
+
+    private static MicroserviceFilter filter(String[] includes, String[] excludes) {
+        JsonObject json = new JsonObject();
+        json.addProperty("systemName", "test");
+        json.addProperty("repositoryURL", "https://github.com/test/test.git");
+        json.addProperty("baseBranch", "main");
+        if (includes != null) {
+            JsonArray includePaths = new JsonArray();
+            for (String include : includes) {
+                includePaths.add(include);
+            }
+            json.add("includePaths", includePaths);
+        }
+        if (excludes != null) {
+            JsonArray excludePaths = new JsonArray();
+            for (String exclude : excludes) {
+                excludePaths.add(exclude);
+            }
+            json.add("excludePaths", excludePaths);
+        }
+        return MicroserviceFilter.fromConfig(new Gson().fromJson(json, Config.class));
+    }
+
+    @Test
+    public void testEverythingIsAcceptedByDefault() {
+        MicroserviceFilter microserviceFilter = filter(null, null);
+
+        assertTrue(microserviceFilter.acceptsAll());
+        assertTrue(microserviceFilter.accepts("/order-service"));
+        assertTrue(microserviceFilter.accepts(""));
+    }
+
+    @Test
+    public void testExclusionsTakePrecedence() {
+        MicroserviceFilter microserviceFilter = filter(new String[]{"services/*", "gateway"}, new String[]{"**/legacy-*"});
+
+        assertFalse(microserviceFilter.acceptsAll());
+        assertTrue(microserviceFilter.accepts("/services/order-service"));
+        assertTrue(microserviceFilter.accepts("gateway"));
+        assertFalse(microserviceFilter.accepts("/services/legacy-billing"));
+        assertFalse(microserviceFilter.accepts("/services/order-service/nested"));
+        assertFalse(microserviceFilter.accepts("/tools/generator"));
+    }
+}
@@ -0,0 +1,58 @@
+package unit.utils;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import edu.university.ecs.lab.common.models.enums.ClassRole;
+import edu.university.ecs.lab.common.models.enums.FileType;
+import edu.university.ecs.lab.common.models.ir.*;
+import edu.university.ecs.lab.common.utils.MicroserviceSystemWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MicroserviceSystemWriterTest {
+
+    @TempDir
+    Path outputDirectory;
+
+    @Test
+    public void testStreamedSystemMatchesJsonObject() throws Exception {
+        Microservice microservice = new Microservice("order-service", "/order-service");
+        microservice.addJClass(new JClass("OrderController", "/order-service/OrderController.java", "com.order", ClassRole.CONTROLLER));
+        microservice.addJClass(new JClass("OrderService", "/order-service/OrderService.java", "com.order", ClassRole.SERVICE));
+        JsonObject data = new JsonObject();
+        data.addProperty("server.port", "8080");
+        microservice.getFiles().add(new ConfigFile("/order-service/application.yml", "application.yml", data, FileType.CONFIG));
+
+        Set<ProjectFile> orphans = new HashSet<>();
+        orphans.add(new JClass("Orphan", "/Orphan.java", "com.orphan", ClassRole.ENTITY));
+        MicroserviceSystem microserviceSystem = new MicroserviceSystem("system", "abc123", Set.of(microservice), orphans);
+
+        Path output = outputDirectory.resolve("nested").resolve("IR.json");
+        MicroserviceSystemWriter.write(output.toString(), microserviceSystem);
+
+        JsonElement written = JsonParser.parseString(Files.readString(output));
+        assertEquals(microserviceSystem.toJsonObject(), written);
+    }
+
+    @Test
+    public void testClosingWithoutOrphansCompletesSystem() throws Exception {
+        Path output = outputDirectory.resolve("IR.json");
+        try (MicroserviceSystemWriter writer = new MicroserviceSystemWriter(output.toString(), "system", "abc123")) {
+            writer.writeMicroservice(new Microservice("order-service", "/order-service"));
+            writer.writeMicroservice(new Microservice("user-service", "/user-service"));
+            assertEquals(2, writer.getMicroserviceCount());
+        }
+
+        JsonObject written = JsonParser.parseString(Files.readString(output)).getAsJsonObject();
+        assertEquals(2, written.getAsJsonArray("microservices").size());
+        assertEquals(0, written.getAsJsonArray("orphans").size());
+    }
+}
@@ -0,0 +1,137 @@
+package unit.utils;
+
+import com.google.gson.JsonArray;
+import edu.university.ecs.lab.common.models.enums.ClassRole;
+import edu.university.ecs.lab.common.models.enums.HttpMethod;
+import edu.university.ecs.lab.common.models.ir.JClass;
+import edu.university.ecs.lab.common.models.ir.RestCall;
+import edu.university.ecs.lab.common.utils.NodeWorkerPool;
+import edu.university.ecs.lab.common.utils.SourceToObjectUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class NodeWorkerPoolTest {
+    // Speaks the protocol of scripts/worker.js, answering one GET of the file content per file
+    private static final String STUB_WORKER = "const lines = require('readline').createInterface({input: process.stdin});\n"
+            + "lines.on('line', line => {\n"
+            + "    const request = JSON.parse(line);\n"
+            + "    if (request.type === 'ping') { console.log(JSON.stringify({id: request.id, type: 'pong'})); return; }\n"
+            + "    if (request.files.some(file => file.content === 'crash')) { process.exit(1); }\n"
+            + "    if (request.files.some(file => file.content === 'hang')) { return; }\n"
+            + "    console.log(JSON.stringify({id: request.id, type: 'result', files: request.files.map(file => ({path: file.path,\n"
+            + "        restCalls: [{name: 'get', objectName: '$http', objectType: '$http', calledFrom: 'load', parameterContents: 'url',\n"
+            + "            url: file.content, httpMethod: 'GET'}]}))}));\n"
+            + "});\n"
+            + "lines.on('close', () => process.exit(0));\n";
+
+    @TempDir
+    Path scriptDirectory;
+
+    private List<String> command;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        assumeTrue(isNodeAvailable(), "Node.js is not installed");
+        Path script = scriptDirectory.resolve("worker.js");
+        Files.writeString(script, STUB_WORKER);
+        command = List.of("node", script.toString());
+    }
+
+    @Test
+    public void testBatchesAreAnsweredInOrder() {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < 70; i++) {
+            sources.put("/web/src/app/file" + i + ".js", "/api/items/" + i);
+        }
+
+        try (NodeWorkerPool pool = new NodeWorkerPool(command, 2, 10_000)) {
+            Map<String, JsonArray> restCalls = pool.parse(sources);
+            assertEquals(new ArrayList<>(sources.keySet()), new ArrayList<>(restCalls.keySet()));
+            assertEquals("/api/items/42", restCalls.get("/web/src/app/file42.js").get(0).getAsJsonObject().get("url").getAsString());
+            assertEquals(0, pool.getRestarts());
+
+            JClass jClass = SourceToObjectUtils.parseJavaScript("/web/src/app/file42.js", restCalls.get("/web/src/app/file42.js"), "web");
+            assertEquals("file42", jClass.getName());
+            assertEquals(ClassRole.FEIGN_CLIENT, jClass.getClassRole());
+            RestCall restCall = (RestCall) jClass.getMethodCalls().get(0);
+            assertEquals(HttpMethod.GET, restCall.getHttpMethod());
+            assertEquals("load", restCall.getCalledFrom());
+            assertEquals("web", restCall.getMicroserviceName());
+        }
+    }
+
+    @Test
+    public void testFailedWorkersAreRestarted() {
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("/web/a.js", "/api/a");
+        sources.put("/web/crash.js", "crash");
+        sources.put("/web/hang.js", "hang");
+        sources.put("/web/b.js", "/api/b");
+
+        try (NodeWorkerPool pool = new NodeWorkerPool(command, 1, 1_000)) {
+            // The batch fails, its files are retried one by one and only the bad files are lost
+            Map<String, JsonArray> restCalls = pool.parse(sources);
+            assertEquals(List.of("/web/a.js", "/web/b.js"), new ArrayList<>(restCalls.keySet()));
+            assertTrue(pool.getRestarts() >= 4);
+
+            // The restarted worker keeps serving
+            assertEquals(Set.of("/web/c.js"), pool.parse(Map.of("/web/c.js", "/api/c")).keySet());
+        }
+    }
+
+    @Test
+    public void testWorkerExtractsRestCalls() {
+        assumeTrue(isAcornAvailable(), "acorn and acorn-walk are not installed, run npm install");
+        String source = "angular.module('app').controller('OrderController', function ($http) {\n"
+                + "    var base = '/api/orders';\n"
+                + "    this.load = function (id) { return $http.get(base + '/' + id); };\n"
+                + "});\n"
+                + "export async function createUser(user) { return axios.post(`/api/users`, user); }\n"
+                + "function remove(id) { return fetch('/api/items/' + id, { method: 'DELETE' }); }\n";
+
+        try (NodeWorkerPool pool = new NodeWorkerPool(2)) {
+            Map<String, JsonArray> restCalls = pool.parse(Map.of("/web/src/app/orders.js", source));
+            JClass jClass = SourceToObjectUtils.parseJavaScript("/web/src/app/orders.js", restCalls.get("/web/src/app/orders.js"), "web");
+            assertNotNull(jClass);
+            assertEquals("orders", jClass.getName());
+
+            List<RestCall> calls = jClass.getRestCalls();
+            assertEquals(3, calls.size());
+            assertRestCall(calls.get(0), "$http", "load", "/api/orders/{?}", HttpMethod.GET);
+            assertRestCall(calls.get(1), "axios", "createUser", "/api/users", HttpMethod.POST);
+            assertRestCall(calls.get(2), "fetch", "remove", "/api/items/{?}", HttpMethod.DELETE);
+        }
+    }
+
+    private static void assertRestCall(RestCall restCall, String objectName, String calledFrom, String url, HttpMethod httpMethod) {
+        assertEquals(objectName, restCall.getObjectName());
+        assertEquals(calledFrom, restCall.getCalledFrom());
+        assertEquals(url, restCall.getUrl());
+        assertEquals(httpMethod, restCall.getHttpMethod());
+        assertEquals("web", restCall.getMicroserviceName());
+    }
+
+    private static boolean isAcornAvailable() {
+        try {
+            return new ProcessBuilder("node", "-e", "require('acorn'); require('acorn-walk')").start().waitFor() == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static boolean isNodeAvailable() {
+        try {
+            return new ProcessBuilder("node", "--version").start().waitFor() == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
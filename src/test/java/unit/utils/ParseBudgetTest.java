@@ -0,0 +1,110 @@
+package unit.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import edu.university.ecs.lab.common.config.Config;
+import edu.university.ecs.lab.common.models.enums.ClassRole;
+import edu.university.ecs.lab.common.models.ir.JClass;
+import edu.university.ecs.lab.common.utils.ParseBudget;
+import edu.university.ecs.lab.common.utils.ParseCache;
+import edu.university.ecs.lab.common.utils.ParseSession;
+import edu.university.ecs.lab.common.utils.Quarantine;
+import edu.university.ecs.lab.common.utils.SourceToObjectUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParseBudgetTest {
+
+    @TempDir
+    Path quarantineDirectory;
+
+    @Test
+    public void testExceededBudgetAbandonsWork() {
+        assertThrows(ParseBudget.ExceededException.class, () -> ParseBudget.run(0, () -> {
+            ParseBudget.check();
+            return null;
+        }));
+
+        // The budget only applies to the work it was given
+        assertDoesNotThrow(ParseBudget::check);
+        assertEquals("done", ParseBudget.run(60_000_000_000L, () -> {
+            ParseBudget.check();
+            return "done";
+        }));
+    }
+
+    @Test
+    public void testQuarantineIsPersisted() throws Exception {
+        JsonObject json = new JsonObject();
+        json.addProperty("systemName", "test");
+        json.addProperty("repositoryURL", "https://github.com/test/test.git");
+        json.addProperty("baseBranch", "main");
+        json.addProperty("quarantineFile", quarantineDirectory.resolve("quarantine.json").toString());
+        Config config = new Gson().fromJson(json, Config.class);
+
+        Quarantine quarantine = Quarantine.fromConfig(config);
+        quarantine.add("/order-service/src/main/java/com/demo/Huge.java");
+        assertTrue(quarantine.contains("/order-service/src/main/java/com/demo/Huge.java"));
+
+        // A later run reads the list back from disk
+        Path copy = quarantineDirectory.resolve("copy.json");
+        Files.copy(quarantineDirectory.resolve("quarantine.json"), copy);
+        json.addProperty("quarantineFile", copy.toString());
+        assertTrue(Quarantine.fromConfig(new Gson().fromJson(json, Config.class)).contains("/order-service/src/main/java/com/demo/Huge.java"));
+
+        json.remove("quarantineFile");
+        assertFalse(Quarantine.fromConfig(new Gson().fromJson(json, Config.class)).contains("/order-service/src/main/java/com/demo/Huge.java"));
+    }
+
+    @Test
+    public void testDegradedParseIsNotCached() {
+        String path = "/order-service/src/main/java/com/demo/OrderService.java";
+        byte[] content = "package com.demo;\n\n@Service\npublic class OrderService {\n}\n".getBytes(StandardCharsets.UTF_8);
+        String blobId = ParseCache.blobId(content);
+        AtomicInteger parses = new AtomicInteger();
+
+        JsonObject json = new JsonObject();
+        json.addProperty("systemName", "test");
+        json.addProperty("repositoryURL", "https://github.com/test/test.git");
+        json.addProperty("baseBranch", "main");
+        json.addProperty("parseCacheDirectory", quarantineDirectory.resolve("cache").toString());
+        json.addProperty("quarantineFile", quarantineDirectory.resolve("quarantine.json").toString());
+        Config config = new Gson().fromJson(json, Config.class);
+        Quarantine.fromConfig(config).add(path);
+        ParseCache parseCache = ParseCache.fromConfig(config);
+
+        // A quarantined file is parsed without type resolution every time
+        try (ParseSession session = new ParseSession(config)) {
+            for (int i = 0; i < 2; i++) {
+                JClass jClass = (JClass) parseCache.getOrParse(blobId, "OrderService.java", path, "order-service", session.getResolutionKey(path), () -> {
+                    parses.incrementAndGet();
+                    return SourceToObjectUtils.parseClass(path, content, "order-service", session);
+                });
+                assertEquals(ClassRole.SERVICE, jClass.getClassRole());
+            }
+            assertEquals(2, session.getDegradedFiles());
+        }
+        assertEquals(2, parses.get());
+
+        // Once the file is out of quarantine its full parse is cached
+        json.remove("quarantineFile");
+        config = new Gson().fromJson(json, Config.class);
+        try (ParseSession session = new ParseSession(config)) {
+            for (int i = 0; i < 2; i++) {
+                parseCache.getOrParse(blobId, "OrderService.java", path, "order-service", session.getResolutionKey(path), () -> {
+                    parses.incrementAndGet();
+                    return SourceToObjectUtils.parseClass(path, content, "order-service", session);
+                });
+            }
+            assertEquals(0, session.getDegradedFiles());
+        }
+        assertEquals(3, parses.get());
+    }
+}
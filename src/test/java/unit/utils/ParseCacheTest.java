@@ -0,0 +1,138 @@
+package unit.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import edu.university.ecs.lab.common.config.Config;
+import edu.university.ecs.lab.common.models.enums.ClassRole;
+import edu.university.ecs.lab.common.models.enums.FileType;
+import edu.university.ecs.lab.common.models.ir.ConfigFile;
+import edu.university.ecs.lab.common.models.ir.JClass;
+import edu.university.ecs.lab.common.models.ir.ProjectFile;
+import edu.university.ecs.lab.common.utils.ParseCache;
+import edu.university.ecs.lab.common.utils.ParseSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParseCacheTest {
+    private static final String RESOLUTION = "sources;maven=;module=null";
+
+    @TempDir
+    Path cacheDirectory;
+
+    @TempDir
+    Path mavenRepository;
+
+    private ParseCache openCache() {
+        return ParseCache.fromConfig(createConfig(null));
+    }
+
+    private Config createConfig(String mavenRepository) {
+        JsonObject json = new JsonObject();
+        json.addProperty("systemName", "test");
+        json.addProperty("repositoryURL", "https://github.com/test/test.git");
+        json.addProperty("baseBranch", "main");
+        json.addProperty("parseCacheDirectory", cacheDirectory.toString());
+        json.addProperty("mavenRepository", mavenRepository);
+        return new Gson().fromJson(json, Config.class);
+    }
+
+    @Test
+    public void testHitIsRebasedToRequestedPath() {
+        ParseCache parseCache = openCache();
+        String blobId = ParseCache.blobId("class Foo {}".getBytes(StandardCharsets.UTF_8));
+        AtomicInteger parses = new AtomicInteger();
+
+        ProjectFile first = parseCache.getOrParse(blobId, "Foo.java", "a/Foo.java", "a", RESOLUTION, () -> {
+            parses.incrementAndGet();
+            return new JClass("Foo", "a/Foo.java", "pkg", ClassRole.SERVICE);
+        });
+        ProjectFile second = parseCache.getOrParse(blobId, "Foo.java", "b/Foo.java", "b", RESOLUTION, () -> {
+            parses.incrementAndGet();
+            return null;
+        });
+
+        assertEquals(1, parses.get());
+        assertEquals("a/Foo.java", first.getPath());
+        assertInstanceOf(JClass.class, second);
+        assertEquals("b/Foo.java", second.getPath());
+        assertEquals("pkg", ((JClass) second).getPackageName());
+    }
+
+    @Test
+    public void testParsedFileIsRebasedToCopy() {
+        JClass parsed = new JClass("Foo", "/a/Foo.java", "pkg", ClassRole.SERVICE);
+
+        ProjectFile copy = ParseCache.rebase(parsed.toJsonObject(), "/b/Foo.java", "b");
+
+        assertInstanceOf(JClass.class, copy);
+        assertNotSame(parsed, copy);
+        assertEquals("/b/Foo.java", copy.getPath());
+        assertEquals("/a/Foo.java", parsed.getPath());
+        assertEquals("pkg", ((JClass) copy).getPackageName());
+    }
+
+    @Test
+    public void testFilteredFilesAreCached() {
+        ParseCache parseCache = openCache();
+        String blobId = ParseCache.blobId("class Bar {}".getBytes(StandardCharsets.UTF_8));
+        AtomicInteger parses = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            ProjectFile projectFile = parseCache.getOrParse(blobId, "Bar.java", "Bar.java", "", RESOLUTION, () -> {
+                parses.incrementAndGet();
+                return null;
+            });
+            assertNull(projectFile);
+        }
+
+        assertEquals(1, parses.get());
+    }
+
+    @Test
+    public void testSameContentWithDifferentNameIsParsed() {
+        ParseCache parseCache = openCache();
+        String blobId = ParseCache.blobId("key: value".getBytes(StandardCharsets.UTF_8));
+        JsonObject data = new JsonObject();
+        data.addProperty("key", "value");
+
+        parseCache.getOrParse(blobId, "application.yml", "application.yml", "", RESOLUTION,
+                () -> new ConfigFile("application.yml", "application.yml", data, FileType.CONFIG));
+        ProjectFile projectFile = parseCache.getOrParse(blobId, "other.yml", "other.yml", "", RESOLUTION,
+                () -> new ConfigFile("other.yml", "other.yml", data, FileType.CONFIG));
+
+        assertEquals("other.yml", projectFile.getName());
+        assertEquals(2, parseCache.getMisses());
+    }
+
+    @Test
+    public void testEntriesAreKeyedByTypeResolution() {
+        ParseCache parseCache = openCache();
+        String blobId = ParseCache.blobId("class Dto {}".getBytes(StandardCharsets.UTF_8));
+        String orderPath = "/order-service/src/main/java/com/demo/Dto.java";
+        String userPath = "/user-service/src/main/java/com/demo/Dto.java";
+
+        try (ParseSession session = new ParseSession(createConfig(null));
+             ParseSession librarySession = new ParseSession(createConfig(mavenRepository.toString()))) {
+            assertNotEquals(session.getResolutionKey(orderPath), session.getResolutionKey(userPath));
+            assertEquals(session.getResolutionKey(orderPath), session.getResolutionKey("/order-service/src/main/java/com/demo/Other.java"));
+            assertNotEquals(session.getResolutionKey(orderPath), librarySession.getResolutionKey(orderPath));
+
+            // Another module or library jars resolve the types of the same content differently
+            for (String resolutionKey : List.of(session.getResolutionKey(orderPath), session.getResolutionKey(userPath),
+                    librarySession.getResolutionKey(orderPath), session.getResolutionKey(orderPath))) {
+                parseCache.getOrParse(blobId, "Dto.java", orderPath, "order-service", resolutionKey,
+                        () -> new JClass("Dto", orderPath, "com.demo", ClassRole.ENTITY));
+            }
+        }
+
+        assertEquals(3, parseCache.getMisses());
+        assertEquals(1, parseCache.getHits());
+    }
+}
@@ -0,0 +1,75 @@
+package unit.utils;
+
+import com.google.gson.JsonElement;
+import edu.university.ecs.lab.common.utils.ParseScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParseSchedulerTest {
+
+    @Test
+    public void testLargestFilesStartFirst() throws Exception {
+        List<Long> started = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+
+        try (ParseScheduler scheduler = new ParseScheduler(1)) {
+            // Occupy the only worker so the remaining tasks are queued together
+            Future<Long> first = scheduler.submitLargestFirst(List.of(new ParseScheduler.Task<>(0, () -> {
+                blocking.countDown();
+                blocker.await();
+                return 0L;
+            }))).get(0);
+            blocking.await();
+
+            List<ParseScheduler.Task<Long>> tasks = new ArrayList<>();
+            for (long size : new long[]{10, 5000, 300, 5000, 1}) {
+                tasks.add(new ParseScheduler.Task<>(size, () -> {
+                    started.add(size);
+                    return size;
+                }));
+            }
+            List<Future<Long>> futures = scheduler.submitLargestFirst(tasks);
+            assertEquals(5, scheduler.getQueueDepth());
+            blocker.countDown();
+
+            // Results are returned in submission order
+            List<Long> results = new ArrayList<>();
+            for (Future<Long> future : futures) {
+                results.add(future.get());
+            }
+            assertEquals(0L, first.get());
+            assertEquals(List.of(10L, 5000L, 300L, 5000L, 1L), results);
+            assertEquals(List.of(5000L, 5000L, 300L, 10L, 1L), started);
+        }
+    }
+
+    @Test
+    public void testCountersAreRecorded() throws Exception {
+        try (ParseScheduler scheduler = new ParseScheduler(2)) {
+            List<ParseScheduler.Task<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                int value = i;
+                tasks.add(new ParseScheduler.Task<>(i, () -> value));
+            }
+            for (Future<Integer> future : scheduler.submitLargestFirst(tasks)) {
+                future.get();
+            }
+
+            assertEquals(0, scheduler.getQueueDepth());
+            assertEquals(8, scheduler.getMaxQueueDepth());
+            assertFalse(scheduler.getWorkerUtilisation().isEmpty());
+            scheduler.getWorkerUtilisation().values().forEach(utilisation -> assertTrue(utilisation >= 0 && utilisation <= 1));
+            long tasksRun = 0;
+            for (JsonElement worker : scheduler.toJsonObject().getAsJsonArray("workers")) {
+                tasksRun += worker.getAsJsonObject().get("tasks").getAsLong();
+            }
+            assertEquals(8, tasksRun);
+        }
+    }
+}
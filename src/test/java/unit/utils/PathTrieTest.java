@@ -0,0 +1,55 @@
+package unit.utils;
+
+import edu.university.ecs.lab.common.utils.PathTrie;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathTrieTest {
+
+    @Test
+    public void testNestingQueries() {
+        PathTrie<String> trie = new PathTrie<>();
+        trie.put("services/order", "order");
+        trie.put("services/order/api", "api");
+        trie.put("services/user", "user");
+
+        assertTrue(trie.contains("services/order"));
+        assertFalse(trie.contains("services"));
+        assertTrue(trie.hasDescendant("services"));
+        assertTrue(trie.hasDescendant("services/order"));
+        assertFalse(trie.hasDescendant("services/order/api"));
+        assertFalse(trie.hasDescendant("services/ord"));
+
+        assertEquals("api", trie.findAncestor("services/order/api/v1"));
+        assertEquals("order", trie.findAncestor("services/order/api"));
+        assertNull(trie.findAncestor("services/order"));
+        assertNull(trie.findAncestor("services/orderly/x"));
+    }
+
+    @Test
+    public void testRemove() {
+        PathTrie<String> trie = new PathTrie<>();
+        trie.put("a/b", "b");
+        trie.put("a/b/c", "c");
+
+        assertEquals("c", trie.remove("a/b/c"));
+        assertNull(trie.remove("a/b/c"));
+        assertNull(trie.remove("a"));
+        assertFalse(trie.hasDescendant("a/b"));
+        assertTrue(trie.hasDescendant("a"));
+
+        assertEquals("b", trie.remove("a/b"));
+        assertFalse(trie.hasDescendant("a"));
+    }
+
+    @Test
+    public void testMostSpecific() {
+        List<String> paths = List.of("./clone/repo/a", "./clone/repo/a/b", "./clone/repo/a.c", "./clone/repo", "./clone/repo/d");
+
+        assertEquals(List.of("./clone/repo/a/b", "./clone/repo/a.c", "./clone/repo/d"), PathTrie.mostSpecific(paths));
+        assertEquals(List.of("x\\y"), PathTrie.mostSpecific(List.of("x", "x\\y")));
+    }
+}
@@ -0,0 +1,39 @@
+package unit.utils;
+
+import edu.university.ecs.lab.common.utils.StereotypeFilter;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StereotypeFilterTest {
+
+    private static boolean accepts(String source) {
+        return StereotypeFilter.mayDeclareStereotype(source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testAcceptsStereotypes() {
+        assertTrue(accepts("@RestController public class A {}"));
+        assertTrue(accepts("@Controller public class A {}"));
+        assertTrue(accepts("@org.springframework.stereotype.Service class A {}"));
+        assertTrue(accepts("@RepositoryRestResource interface A {}"));
+        assertTrue(accepts("@ Entity class A {}"));
+        assertTrue(accepts("@Embeddable class A {}"));
+        assertTrue(accepts("@FeignClient(name = \"a\") interface A {}"));
+    }
+
+    @Test
+    public void testAcceptsUnicodeEscapes() {
+        assertTrue(accepts("@\\u0053ervice class A {}"));
+    }
+
+    @Test
+    public void testRejectsPlainClasses() {
+        assertFalse(accepts("public class OrderDto { private String id; }"));
+        assertFalse(accepts("@Configuration public class AppConfig {}"));
+        assertFalse(accepts(""));
+        assertFalse(accepts("class Servic"));
+    }
+}